@@ -18,21 +18,30 @@ package org.springframework.integration.splunk.config.xml;
 
 import org.w3c.dom.Element;
 
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
 import org.springframework.beans.factory.parsing.BeanComponentDefinition;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.ManagedList;
 import org.springframework.beans.factory.xml.ParserContext;
+import org.springframework.core.Conventions;
 import org.springframework.integration.config.xml.AbstractOutboundChannelAdapterParser;
 import org.springframework.integration.config.xml.IntegrationNamespaceUtils;
 import org.springframework.integration.splunk.outbound.SplunkOutboundChannelAdapter;
+import org.springframework.integration.splunk.support.LoadBalancingSplunkDataWriter;
 import org.springframework.integration.splunk.support.SplunkArgsFactoryBean;
+import org.springframework.integration.splunk.support.SplunkHecWriter;
 import org.springframework.integration.splunk.support.SplunkIndexWriter;
+import org.springframework.integration.splunk.support.SplunkNioTcpWriter;
+import org.springframework.integration.splunk.support.SplunkRoutingIndexWriter;
+import org.springframework.integration.splunk.support.SplunkS2sWriter;
 import org.springframework.integration.splunk.support.SplunkServiceFactory;
 import org.springframework.integration.splunk.support.SplunkSubmitWriter;
 import org.springframework.integration.splunk.support.SplunkTcpWriter;
+import org.springframework.integration.splunk.support.SplunkUdpWriter;
 import org.springframework.util.StringUtils;
 import org.springframework.util.xml.DomUtils;
 
@@ -47,6 +56,16 @@ import org.springframework.util.xml.DomUtils;
  */
 public class SplunkOutboundChannelAdapterParser extends AbstractOutboundChannelAdapterParser {
 
+	/**
+	 * Attributes common to the writers extending
+	 * {@link org.springframework.integration.splunk.support.AbstractSplunkDataWriter}.
+	 */
+	private static final String[] WRITER_ATTRIBUTES = { "batch-size", "batch-max-bytes", "batch-linger",
+			"flush-policy", "flush-events", "flush-bytes", "flush-interval", "queue-capacity", "overflow-policy",
+			"spool-directory", "spool-segment-size", "spool-max-bytes", "spool-retry-interval", "lazy-connect" };
+
+	private static final String[] WRITER_REFERENCE_ATTRIBUTES = { "throttle", "warm-up-executor" };
+
 	@Override
 	protected boolean shouldGenerateId() {
 		return false;
@@ -70,27 +89,44 @@ public class SplunkOutboundChannelAdapterParser extends AbstractOutboundChannelA
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(argsBuilder, element, "host");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(argsBuilder, element, "host-regex");
 
-		BeanDefinitionBuilder dataWriterBuilder = parseDataWriter(element);
+		BeanDefinitionBuilder dataWriterBuilder;
 
 		// initialize splunk servers references
 
-		BeanDefinitionBuilder serviceFactoryBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkServiceFactory.class);
-
 		String splunkServerBeanNames = element.getAttribute("splunk-server-ref");
-		if (StringUtils.hasText(splunkServerBeanNames)) {
+		String loadBalancing = element.getAttribute("load-balancing");
+		if (StringUtils.hasText(loadBalancing)) {
+			for (String writerType : new String[] { "routing-index-writer", "hec-writer" }) {
+				if (DomUtils.getChildElementByTagName(element, writerType) != null) {
+					// a routing writer is no AbstractSplunkDataWriter, and all hec writers post to the same url
+					parserContext.getReaderContext().error(
+							"'load-balancing' cannot be combined with a " + writerType, element);
+					return null;
+				}
+			}
+			dataWriterBuilder = parseLoadBalancingDataWriter(element, splunkServerBeanNames, argsBuilder);
+			dataWriterBuilder.addPropertyValue("strategy", loadBalancing);
+		}
+		else {
+			dataWriterBuilder = parseDataWriter(element);
 
-			ManagedList<RuntimeBeanReference> splunkServersList = new ManagedList<RuntimeBeanReference>();
+			BeanDefinitionBuilder serviceFactoryBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkServiceFactory.class);
 
-			for (String splunkServerBeanName : StringUtils.delimitedListToStringArray(splunkServerBeanNames, ";")) {
-				splunkServersList.add(new RuntimeBeanReference(splunkServerBeanName));
+			if (StringUtils.hasText(splunkServerBeanNames)) {
+
+				ManagedList<RuntimeBeanReference> splunkServersList = new ManagedList<RuntimeBeanReference>();
+
+				for (String splunkServerBeanName : StringUtils.delimitedListToStringArray(splunkServerBeanNames, ";")) {
+					splunkServersList.add(new RuntimeBeanReference(splunkServerBeanName));
+				}
+				serviceFactoryBuilder.addConstructorArgValue(splunkServersList);
 			}
-			serviceFactoryBuilder.addConstructorArgValue(splunkServersList);
-		}
 
-		dataWriterBuilder.addConstructorArgValue(serviceFactoryBuilder.getBeanDefinition());
+			dataWriterBuilder.addConstructorArgValue(serviceFactoryBuilder.getBeanDefinition());
 
 
-		dataWriterBuilder.addConstructorArgValue(argsBuilder.getBeanDefinition());
+			dataWriterBuilder.addConstructorArgValue(argsBuilder.getBeanDefinition());
+		}
 
 		String channelAdapterId = this.resolveId(element, splunkOutboundChannelAdapterBuilder.getRawBeanDefinition(),
 				parserContext);
@@ -112,25 +148,118 @@ public class SplunkOutboundChannelAdapterParser extends AbstractOutboundChannelA
 
 	}
 
+	/**
+	 * Build a {@link LoadBalancingSplunkDataWriter} with a writer of its own for
+	 * every server. Spool directories get a sub directory per server.
+	 */
+	private BeanDefinitionBuilder parseLoadBalancingDataWriter(Element element, String splunkServerBeanNames,
+			BeanDefinitionBuilder argsBuilder) {
+		ManagedList<RuntimeBeanReference> splunkServersList = new ManagedList<RuntimeBeanReference>();
+		ManagedList<BeanDefinition> dataWritersList = new ManagedList<BeanDefinition>();
+		for (String splunkServerBeanName : StringUtils.delimitedListToStringArray(splunkServerBeanNames, ";")) {
+			splunkServersList.add(new RuntimeBeanReference(splunkServerBeanName));
+
+			BeanDefinitionBuilder dataWriterBuilder = parseDataWriter(element);
+			BeanDefinitionBuilder serviceFactoryBuilder =
+					BeanDefinitionBuilder.genericBeanDefinition(SplunkServiceFactory.class);
+			serviceFactoryBuilder.addConstructorArgReference(splunkServerBeanName);
+			dataWriterBuilder.addConstructorArgValue(serviceFactoryBuilder.getBeanDefinition());
+			dataWriterBuilder.addConstructorArgValue(argsBuilder.getBeanDefinition());
+
+			PropertyValue spoolDirectory = dataWriterBuilder.getRawBeanDefinition().getPropertyValues()
+					.getPropertyValue("spoolDirectory");
+			if (spoolDirectory != null) {
+				dataWriterBuilder.addPropertyValue("spoolDirectory",
+						((TypedStringValue) spoolDirectory.getValue()).getValue() + "/" + splunkServerBeanName);
+			}
+			dataWritersList.add(dataWriterBuilder.getBeanDefinition());
+		}
+
+		BeanDefinitionBuilder loadBalancingBuilder =
+				BeanDefinitionBuilder.genericBeanDefinition(LoadBalancingSplunkDataWriter.class);
+		loadBalancingBuilder.addConstructorArgValue(splunkServersList);
+		loadBalancingBuilder.addConstructorArgValue(dataWritersList);
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(loadBalancingBuilder, element,
+				IntegrationNamespaceUtils.AUTO_STARTUP);
+		return loadBalancingBuilder;
+	}
+
 	private BeanDefinitionBuilder parseDataWriter(Element element) {
 		BeanDefinitionBuilder dataWriterBuilder = null;
+		Element dataWriter = null;
+		String writerPropertyPrefix = "";
 		if (DomUtils.getChildElementByTagName(element, "index-writer") != null) {
-			Element dataWriter = DomUtils.getChildElementByTagName(element, "index-writer");
+			dataWriter = DomUtils.getChildElementByTagName(element, "index-writer");
 			dataWriterBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkIndexWriter.class);
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "index");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "stripes");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "idle-timeout");
 
 		}
+		if (DomUtils.getChildElementByTagName(element, "routing-index-writer") != null) {
+			dataWriter = DomUtils.getChildElementByTagName(element, "routing-index-writer");
+			dataWriterBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkRoutingIndexWriter.class);
+			setExpressionIfAttributeDefined(dataWriterBuilder, dataWriter, "index-expression", "indexExpression");
+			setExpressionIfAttributeDefined(dataWriterBuilder, dataWriter, "source-type-expression",
+					"sourceTypeExpression");
+			setExpressionIfAttributeDefined(dataWriterBuilder, dataWriter, "source-expression", "sourceExpression");
+			setExpressionIfAttributeDefined(dataWriterBuilder, dataWriter, "host-expression", "hostExpression");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "max-streams");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "idle-timeout");
+			// the common attributes configure the writers created per route
+			writerPropertyPrefix = "writerTemplate.";
+		}
 		if (DomUtils.getChildElementByTagName(element, "submit-writer") != null) {
-			Element dataWriter = DomUtils.getChildElementByTagName(element, "submit-writer");
+			dataWriter = DomUtils.getChildElementByTagName(element, "submit-writer");
 			dataWriterBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkSubmitWriter.class);
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "index");
 		}
 		if (DomUtils.getChildElementByTagName(element, "tcp-writer") != null) {
-			Element dataWriter = DomUtils.getChildElementByTagName(element, "tcp-writer");
+			dataWriter = DomUtils.getChildElementByTagName(element, "tcp-writer");
 			dataWriterBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkTcpWriter.class);
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "port");
 
 		}
+		if (DomUtils.getChildElementByTagName(element, "nio-tcp-writer") != null) {
+			dataWriter = DomUtils.getChildElementByTagName(element, "nio-tcp-writer");
+			dataWriterBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkNioTcpWriter.class);
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "port");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "buffer-size");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "send-buffer-size");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "tcp-no-delay");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "keep-alive");
+		}
+		if (DomUtils.getChildElementByTagName(element, "s2s-writer") != null) {
+			dataWriter = DomUtils.getChildElementByTagName(element, "s2s-writer");
+			dataWriterBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkS2sWriter.class);
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "port");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "index");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "server-name");
+		}
+		if (DomUtils.getChildElementByTagName(element, "udp-writer") != null) {
+			dataWriter = DomUtils.getChildElementByTagName(element, "udp-writer");
+			dataWriterBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkUdpWriter.class);
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "port");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "max-datagram-size");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "send-buffer-size");
+		}
+		if (DomUtils.getChildElementByTagName(element, "hec-writer") != null) {
+			dataWriter = DomUtils.getChildElementByTagName(element, "hec-writer");
+			dataWriterBuilder = BeanDefinitionBuilder.genericBeanDefinition(SplunkHecWriter.class);
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "url");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "token");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "index");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "gzip");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "timeout");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "ack");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "ack-window");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "ack-timeout");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "ack-poll-interval");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, dataWriter, "ack-max-retries");
+			IntegrationNamespaceUtils.setReferenceIfAttributeDefined(dataWriterBuilder, dataWriter, "ack-channel");
+		}
+
+		setWriterAttributes(dataWriterBuilder, dataWriter, writerPropertyPrefix);
 
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(dataWriterBuilder, element,
 				IntegrationNamespaceUtils.AUTO_STARTUP);
@@ -138,4 +267,24 @@ public class SplunkOutboundChannelAdapterParser extends AbstractOutboundChannelA
 		return dataWriterBuilder;
 	}
 
+	private static void setWriterAttributes(BeanDefinitionBuilder builder, Element element, String propertyPrefix) {
+		for (String attributeName : WRITER_ATTRIBUTES) {
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, attributeName,
+					propertyPrefix + Conventions.attributeNameToPropertyName(attributeName));
+		}
+		for (String attributeName : WRITER_REFERENCE_ATTRIBUTES) {
+			IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, attributeName,
+					propertyPrefix + Conventions.attributeNameToPropertyName(attributeName));
+		}
+	}
+
+	private static void setExpressionIfAttributeDefined(BeanDefinitionBuilder builder, Element element,
+			String attributeName, String propertyName) {
+		BeanDefinition expression = IntegrationNamespaceUtils.createExpressionDefIfAttributeDefined(attributeName,
+				element);
+		if (expression != null) {
+			builder.addPropertyValue(propertyName, expression);
+		}
+	}
+
 }
@@ -15,6 +15,8 @@
  */
 package org.springframework.integration.splunk.core;
 
+import java.util.Collection;
+
 import org.springframework.integration.splunk.event.SplunkEvent;
 
 /**
@@ -28,4 +30,12 @@ public interface DataWriter {
 
 	void write(SplunkEvent data) throws Exception;
 
+	/**
+	 * Write several events in one operation where the writer supports it.
+	 * @param data the events, in order
+	 * @throws Exception if the events could not be written
+	 * @since 1.2
+	 */
+	void write(Collection<SplunkEvent> data) throws Exception;
+
 }
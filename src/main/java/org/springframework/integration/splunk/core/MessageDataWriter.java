@@ -0,0 +1,36 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.core;
+
+import org.springframework.messaging.Message;
+
+/**
+ * Data writer that needs the whole message, e.g. to decide from its headers where
+ * the events go.
+ *
+ * @since 1.2
+ */
+public interface MessageDataWriter extends DataWriter {
+
+	/**
+	 * @param message a message with a {@code SplunkEvent} or a
+	 * {@code Collection<SplunkEvent>} payload
+	 * @throws Exception if the events could not be written
+	 */
+	void write(Message<?> message) throws Exception;
+
+}
@@ -41,17 +41,17 @@ public class AcManagementEvent extends SplunkEvent {
 	 * The domain containing the user that is affected by the account management
 	 * event.
 	 */
-	public static String AC_MANAGEMENT_DEST_NT_DOMAIN = "dest_nt_domain";
+	public static final String AC_MANAGEMENT_DEST_NT_DOMAIN = "dest_nt_domain";
 	/**
 	 * Description of the account management change performed.
 	 */
-	public static String AC_MANAGEMENT_SIGNATURE = "signature";
+	public static final String AC_MANAGEMENT_SIGNATURE = "signature";
 	/**
 	 * The NT source of the destination. In the case of an account management
 	 * event, this is the domain that contains the user that generated the
 	 * event.
 	 */
-	public static String AC_MANAGEMENT_SRC_NT_DOMAIN = "src_nt_domain";
+	public static final String AC_MANAGEMENT_SRC_NT_DOMAIN = "src_nt_domain";
 
 	public void setAcManagementDestNtDomain(String acManagementDestNtDomain) {
 		addPair(AC_MANAGEMENT_DEST_NT_DOMAIN, acManagementDestNtDomain);
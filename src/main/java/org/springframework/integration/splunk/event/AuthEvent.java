@@ -25,17 +25,17 @@ public class AuthEvent extends SplunkEvent {
 	/**
 	 * The action performed on the resource. success, failure
 	 */
-	public static String AUTH_ACTION = "action";
+	public static final String AUTH_ACTION = "action";
 	/**
 	 * The application involved in the event (such as ssh, spunk, win:local).
 	 */
-	public static String AUTH_APP = "app";
+	public static final String AUTH_APP = "app";
 	/**
 	 * The target involved in the authentication. If your field is named
 	 * dest_host, dest_ip, dest_ipv6, or dest_nt_host you can alias it as dest
 	 * to make it CIM-compliant.
 	 */
-	public static String AUTH_DEST = "dest";
+	public static final String AUTH_DEST = "dest";
 	/**
 	 * The source involved in the authentication. In the case of endpoint
 	 * protection authentication the src is the client. If your field is named
@@ -45,18 +45,18 @@ public class AuthEvent extends SplunkEvent {
 	 * center, and update). Note: Do not confuse this with the event source or
 	 * sourcetype fields.
 	 */
-	public static String AUTH_SRC = "src";
+	public static final String AUTH_SRC = "src";
 	/**
 	 * In privilege escalation events, src_user represents the user who
 	 * initiated the privilege escalation.
 	 */
-	public static String AUTH_SRC_USER = "src_user";
+	public static final String AUTH_SRC_USER = "src_user";
 	/**
 	 * The name of the user involved in the event, or who initiated the event.
 	 * For authentication privilege escalation events this should represent the
 	 * user targeted by the escalation.
 	 */
-	public static String AUTH_USER = "user";
+	public static final String AUTH_USER = "user";
 
 	public void setAuthApp(String authApp) {
 		addPair(AUTH_APP, authApp);
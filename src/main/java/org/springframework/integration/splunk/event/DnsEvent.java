@@ -25,20 +25,20 @@ public class DnsEvent extends SplunkEvent {
 		/**
 		 * The DNS domain that has been queried.
 		 */
-		public static String DNS_DEST_DOMAIN = "dest_domain";
+		public static final String DNS_DEST_DOMAIN = "dest_domain";
 		/**
 		 * The remote DNS resource record being acted upon.
 		 */
-		public static String DNS_DEST_RECORD = "dest_record";
+		public static final String DNS_DEST_RECORD = "dest_record";
 		/**
 		 * The DNS zone that is being received by the slave as part of a zone
 		 * transfer.
 		 */
-		public static String DNS_DEST_ZONE = "dest_zone";
+		public static final String DNS_DEST_ZONE = "dest_zone";
 		/**
 		 * The DNS resource record class.
 		 */
-		public static String DNS_RECORD_CLASS = "record_class";
+		public static final String DNS_RECORD_CLASS = "record_class";
 		/**
 		 * The DNS resource record type.
 		 *
@@ -46,20 +46,20 @@ public class DnsEvent extends SplunkEvent {
 		 *      href="https://secure.wikimedia.org/wikipedia/en/wiki/List_of_DNS_record_types">see
 		 *      this Wikipedia article on DNS record types</a>
 		 */
-		public static String DNS_RECORD_TYPE = "record_type";
+		public static final String DNS_RECORD_TYPE = "record_type";
 		/**
 		 * The local DNS domain that is being queried.
 		 */
-		public static String DNS_SRC_DOMAIN = "src_domain";
+		public static final String DNS_SRC_DOMAIN = "src_domain";
 		/**
 		 * The local DNS resource record being acted upon.
 		 */
-		public static String DNS_SRC_RECORD = "src_record";
+		public static final String DNS_SRC_RECORD = "src_record";
 		/**
 		 * The DNS zone that is being transferred by the master as part of a zone
 		 * transfer.
 		 */
-		public static String DNS_SRC_ZONE = "src_zone";
+		public static final String DNS_SRC_ZONE = "src_zone";
 		public void setDnsDestDomain(String dnsDestDomain) {
 			addPair(DNS_DEST_DOMAIN, dnsDestDomain);
 		}
@@ -25,15 +25,15 @@ public class EmailEvent extends SplunkEvent {
 		/**
 		 * The person to whom an email is sent.
 		 */
-		public static String EMAIL_RECIPIENT = "recipient";
+		public static final String EMAIL_RECIPIENT = "recipient";
 		/**
 		 * The person responsible for sending an email.
 		 */
-		public static String EMAIL_SENDER = "sender";
+		public static final String EMAIL_SENDER = "sender";
 		/**
 		 * The email subject line.
 		 */
-		public static String EMAIL_SUBJECT = "subject";
+		public static final String EMAIL_SUBJECT = "subject";
 		
 		public void setEmailRecipient(String emailRecipient) {
 			addPair(EMAIL_RECIPIENT, emailRecipient);
@@ -26,49 +26,49 @@ public class EndpointProtectionEvent extends SplunkEvent {
 	/**
 	 * The action performed on the resource.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_ACTION = "action";
+	public static final String CHANGE_ENDPOINT_PROTECTION_ACTION = "action";
 	/**
 	 * The type of change discovered in the change analysis event.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_CHANGE_TYPE = "change_type";
+	public static final String CHANGE_ENDPOINT_PROTECTION_CHANGE_TYPE = "change_type";
 	/**
 	 * The host that was affected by the change. If your field is named
 	 * dest_host,dest_ip,dest_ipv6, or dest_nt_host you can alias it as dest to
 	 * make it CIM-compliant.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_DEST = "dest";
+	public static final String CHANGE_ENDPOINT_PROTECTION_DEST = "dest";
 	/**
 	 * The hash signature of the modified resource.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_HASH = "hash";
+	public static final String CHANGE_ENDPOINT_PROTECTION_HASH = "hash";
 	/**
 	 * The group ID of the modified resource.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_GID = "gid";
+	public static final String CHANGE_ENDPOINT_PROTECTION_GID = "gid";
 	/**
 	 * Indicates whether or not the modified resource is a directory.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_ISDR = "isdr";
+	public static final String CHANGE_ENDPOINT_PROTECTION_ISDR = "isdr";
 	/**
 	 * The permissions mode of the modified resource.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_MODE = "mode";
+	public static final String CHANGE_ENDPOINT_PROTECTION_MODE = "mode";
 	/**
 	 * The modification time of the modified resource.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_MODTIME = "modtime";
+	public static final String CHANGE_ENDPOINT_PROTECTION_MODTIME = "modtime";
 	/**
 	 * The file path of the modified resource.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_PATH = "path";
+	public static final String CHANGE_ENDPOINT_PROTECTION_PATH = "path";
 	/**
 	 * The size of the modified resource.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_SIZE = "size";
+	public static final String CHANGE_ENDPOINT_PROTECTION_SIZE = "size";
 	/**
 	 * The user ID of the modified resource.
 	 */
-	public static String CHANGE_ENDPOINT_PROTECTION_UID = "uid";
+	public static final String CHANGE_ENDPOINT_PROTECTION_UID = "uid";
 	public void setChangeEndpointProtectionAction(String changeEndpointProtectionAction) {
 		addPair(CHANGE_ENDPOINT_PROTECTION_ACTION, changeEndpointProtectionAction);
 	}
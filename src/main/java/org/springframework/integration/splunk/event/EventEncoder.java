@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The field schema of a {@link SplunkEvent} class: the keys declared as
+ * {@code public static final String} constants by the class and its super classes,
+ * such as the CIM fields of {@link NetworkTrafficGenericEvent}, numbered and with
+ * their {@code key="} and {@code key=} prefixes encoded once. Events remember the
+ * number of every schema key they are given, render those pairs by copying the
+ * prefix and keep a bit per number to tell which fields are present.
+ *
+ * @since 1.2
+ */
+final class EventEncoder {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final ConcurrentMap<Class<?>, EventEncoder> ENCODERS =
+			new ConcurrentHashMap<Class<?>, EventEncoder>();
+
+	private final Map<String, Integer> ids;
+
+	private final byte[][] quotedPrefixes;
+
+	private final byte[][] prefixes;
+
+	private EventEncoder(List<String> keys) {
+		this.ids = new HashMap<String, Integer>(keys.size() * 4 / 3 + 1);
+		this.quotedPrefixes = new byte[keys.size()][];
+		this.prefixes = new byte[keys.size()][];
+		for (int id = 0; id < keys.size(); id++) {
+			String key = keys.get(id);
+			this.ids.put(key, id);
+			this.prefixes[id] = (key + SplunkEvent.KVDELIM).getBytes(UTF8);
+			this.quotedPrefixes[id] = (key + SplunkEvent.KVDELIM + SplunkEvent.QUOTE).getBytes(UTF8);
+		}
+	}
+
+	static EventEncoder forClass(Class<? extends SplunkEvent> eventClass) {
+		EventEncoder encoder = ENCODERS.get(eventClass);
+		if (encoder == null) {
+			encoder = new EventEncoder(keys(eventClass));
+			EventEncoder existing = ENCODERS.putIfAbsent(eventClass, encoder);
+			if (existing != null) {
+				encoder = existing;
+			}
+		}
+		return encoder;
+	}
+
+	private static List<String> keys(Class<?> eventClass) {
+		List<String> keys = new ArrayList<String>();
+		keys.add(SplunkEvent.PREFIX_NAME);
+		keys.add(SplunkEvent.PREFIX_EVENT_ID);
+		keys.add(SplunkEvent.THROWABLE_CLASS);
+		keys.add(SplunkEvent.THROWABLE_MESSAGE);
+		keys.add(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS);
+		keys.add(SplunkEvent.THROWABLE_STACKTRACE_HASH);
+		List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+		for (Class<?> type = eventClass; SplunkEvent.class.isAssignableFrom(type); type = type.getSuperclass()) {
+			hierarchy.add(0, type);
+		}
+		// super class keys first, so that the most common fields get the same numbers in all schemas
+		for (Class<?> type : hierarchy) {
+			for (Field field : type.getDeclaredFields()) {
+				int modifiers = field.getModifiers();
+				if (field.getType() == String.class && Modifier.isPublic(modifiers)
+						&& Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+					try {
+						String key = (String) field.get(null);
+						if (key != null && !keys.contains(key)) {
+							keys.add(key);
+						}
+					}
+					catch (IllegalAccessException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * @return the number of the key in the schema, or -1
+	 */
+	int id(String key) {
+		Integer id = this.ids.get(key);
+		return id != null ? id : -1;
+	}
+
+	/**
+	 * @return the number of keys in the schema
+	 */
+	int size() {
+		return this.prefixes.length;
+	}
+
+	/**
+	 * Append the key of the pair and the separator, with the opening quote if the value
+	 * is quoted.
+	 */
+	void appendPrefix(RenderBuffer buffer, int id, boolean quoteValue) {
+		buffer.append(quoteValue ? this.quotedPrefixes[id] : this.prefixes[id]);
+	}
+
+}
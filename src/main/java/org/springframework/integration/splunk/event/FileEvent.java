@@ -25,39 +25,39 @@ public class FileEvent extends SplunkEvent {
 	/**
 	 * The time the file (the object of the event) was accessed.
 	 */
-	public static String FILE_ACCESS_TIME = "file_access_time";
+	public static final String FILE_ACCESS_TIME = "file_access_time";
 	/**
 	 * The time the file (the object of the event) was created.
 	 */
-	public static String FILE_CREATE_TIME = "file_create_time";
+	public static final String FILE_CREATE_TIME = "file_create_time";
 	/**
 	 * A cryptographic identifier assigned to the file object affected by the
 	 * event.
 	 */
-	public static String FILE_HASH = "file_hash";
+	public static final String FILE_HASH = "file_hash";
 	/**
 	 * The time the file (the object of the event) was altered.
 	 */
-	public static String FILE_MODIFY_TIME = "file_modify_time";
+	public static final String FILE_MODIFY_TIME = "file_modify_time";
 	/**
 	 * The name of the file that is the object of the event (without location
 	 * information related to local file or directory structure).
 	 */
-	public static String FILE_NAME = "file_name";
+	public static final String FILE_NAME = "file_name";
 	/**
 	 * The location of the file that is the object of the event, in terms of
 	 * local file and directory structure.
 	 */
-	public static String FILE_PATH = "file_path";
+	public static final String FILE_PATH = "file_path";
 	/**
 	 * Access controls associated with the file affected by the event.
 	 */
-	public static String FILE_PERMISSION = "file_permission";
+	public static final String FILE_PERMISSION = "file_permission";
 	/**
 	 * The size of the file that is the object of the event. Indicate whether
 	 * Bytes, KB, MB, GB.
 	 */
-	public static String FILE_SIZE = "file_size";
+	public static final String FILE_SIZE = "file_size";
 
 	public void setFileAccessTime(long fileAccessTime) {
 		addPair(FILE_ACCESS_TIME, fileAccessTime);
@@ -27,21 +27,21 @@ public class IntrusionDetectionEvent extends SplunkEvent {
 	/**
 	 * The category of the triggered signature.
 	 */
-	public static String INTRUSION_DETECTION_CATEGORY = "category";
+	public static final String INTRUSION_DETECTION_CATEGORY = "category";
 	/**
 	 * The destination of the attack detected by the intrusion detection system
 	 * (IDS). If your field is named dest_host, dest_ip, dest_ipv6, or
 	 * dest_nt_host you can alias it as dest to make it CIM-compliant.
 	 */
-	public static String INTRUSION_DETECTION_DEST = "dest";
+	public static final String INTRUSION_DETECTION_DEST = "dest";
 	/**
 	 * The device that detected the intrusion event.
 	 */
-	public static String INTRUSION_DETECTION_DVC = "dvc";
+	public static final String INTRUSION_DETECTION_DVC = "dvc";
 	/**
 	 * The type of IDS that generated the event.
 	 */
-	public static String INTRUSION_DETECTION_IDS_TYPE = "ids_type";
+	public static final String INTRUSION_DETECTION_IDS_TYPE = "ids_type";
 	/**
 	 * The product name of the vendor technology generating network protection
 	 * data, such as IDP, Providentia, and ASA.
@@ -50,7 +50,7 @@ public class IntrusionDetectionEvent extends SplunkEvent {
 	 * analysis, proxy, malware, intrusion detection, packet filtering, and
 	 * vulnerability).
 	 */
-	public static String INTRUSION_DETECTION_PRODUCT = "product";
+	public static final String INTRUSION_DETECTION_PRODUCT = "product";
 	/**
 	 * The severity of the network protection event (such as critical, high,
 	 * medium, low, or informational).
@@ -58,22 +58,22 @@ public class IntrusionDetectionEvent extends SplunkEvent {
 	 * Note: This field is a string. Please use a severity_id field for severity
 	 * ID fields that are integer data types.
 	 */
-	public static String INTRUSION_DETECTION_SEVERITY = "severity";
+	public static final String INTRUSION_DETECTION_SEVERITY = "severity";
 	/**
 	 * The name of the intrusion detected on the client (the src), such as
 	 * PlugAndPlay_BO and JavaScript_Obfuscation_Fre.
 	 */
-	public static String INTRUSION_DETECTION_SIGNATURE = "signature";
+	public static final String INTRUSION_DETECTION_SIGNATURE = "signature";
 	/**
 	 * The source involved in the attack detected by the IDS. If your field is
 	 * named src_host, src_ip, src_ipv6, or src_nt_host you can alias it as src
 	 * to make it CIM-compliant.
 	 */
-	public static String INTRUSION_DETECTION_SRC = "src";
+	public static final String INTRUSION_DETECTION_SRC = "src";
 	/**
 	 * The user involved with the intrusion detection event.
 	 */
-	public static String INTRUSION_DETECTION_USER = "user";
+	public static final String INTRUSION_DETECTION_USER = "user";
 	/**
 	 * The vendor technology used to generate network protection data, such as
 	 * IDP, Providentia, and ASA.
@@ -82,7 +82,7 @@ public class IntrusionDetectionEvent extends SplunkEvent {
 	 * analysis, proxy, malware, intrusion detection, packet filtering, and
 	 * vulnerability).
 	 */
-	public static String INTRUSION_DETECTION_VENDOR = "vendor";
+	public static final String INTRUSION_DETECTION_VENDOR = "vendor";
 	public void setIntrusionDetectionCategory(String intrusionDetectionCategory) {
 		addPair(INTRUSION_DETECTION_CATEGORY, intrusionDetectionCategory);
 	}
@@ -25,36 +25,36 @@ public class MalwareEndpointProtectionEvent extends SplunkEvent {
 	/**
 	 * The outcome of the infection
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_ACTION = "action";
+	public static final String MALWARE_ENDPOINT_PROTECTION_ACTION = "action";
 	/**
 	 * The NT domain of the destination (the dest_bestmatch).
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_DEST_NT_DOMAIN = "dest_nt_domain";
+	public static final String MALWARE_ENDPOINT_PROTECTION_DEST_NT_DOMAIN = "dest_nt_domain";
 	/**
 	 * The cryptographic hash of the file associated with the malware event
 	 * (such as the malicious or infected file).
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_FILE_HASH = "file_hash";
+	public static final String MALWARE_ENDPOINT_PROTECTION_FILE_HASH = "file_hash";
 	/**
 	 * The name of the file involved in the malware event (such as the infected
 	 * or malicious file).
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_FILE_NAME = "file_name";
+	public static final String MALWARE_ENDPOINT_PROTECTION_FILE_NAME = "file_name";
 	/**
 	 * The path of the file involved in the malware event (such as the infected
 	 * or malicious file).
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_FILE_PATH = "file_path";
+	public static final String MALWARE_ENDPOINT_PROTECTION_FILE_PATH = "file_path";
 	/**
 	 * The product name of the vendor technology (the vendor field) that is
 	 * generating malware data (such as Antivirus or EPO).
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_PRODUCT = "product";
+	public static final String MALWARE_ENDPOINT_PROTECTION_PRODUCT = "product";
 	/**
 	 * The product version number of the vendor technology installed on the
 	 * client (such as 10.4.3 or 11.0.2).
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_PRODUCT_VERSION = "product_version";
+	public static final String MALWARE_ENDPOINT_PROTECTION_PRODUCT_VERSION = "product_version";
 	/**
 	 * The name of the malware infection detected on the client (the src), such
 	 * as Trojan.Vundo,Spyware.Gaobot,W32.Nimbda).
@@ -62,31 +62,31 @@ public class MalwareEndpointProtectionEvent extends SplunkEvent {
 	 * Note: This field is a string. Please use a signature_id field for
 	 * signature ID fields that are integer data types.
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_SIGNATURE = "signature";
+	public static final String MALWARE_ENDPOINT_PROTECTION_SIGNATURE = "signature";
 	/**
 	 * The current signature definition set running on the client, such as
 	 * 11hsvx)
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_SIGNATURE_VERSION = "signature_version";
+	public static final String MALWARE_ENDPOINT_PROTECTION_SIGNATURE_VERSION = "signature_version";
 	/**
 	 * The target affected or infected by the malware. If your field is named
 	 * dest_host, dest_ip, dest_ipv6, or dest_nt_host you can alias it as dest
 	 * to make it CIM-compliant.
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_DEST = "dest";
+	public static final String MALWARE_ENDPOINT_PROTECTION_DEST = "dest";
 	/**
 	 * The NT domain of the source (the src).
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_SRC_NT_DOMAIN = "src_nt_domain";
+	public static final String MALWARE_ENDPOINT_PROTECTION_SRC_NT_DOMAIN = "src_nt_domain";
 	/**
 	 * The name of the user involved in the malware event.
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_USER = "user";
+	public static final String MALWARE_ENDPOINT_PROTECTION_USER = "user";
 	/**
 	 * The name of the vendor technology generating malware data, such as
 	 * Symantec or McAfee.
 	 */
-	public static String MALWARE_ENDPOINT_PROTECTION_VENDOR = "vendor";
+	public static final String MALWARE_ENDPOINT_PROTECTION_VENDOR = "vendor";
 
 	public void setMalwareEndpointProtectionAction(String malwareEndpointProtectionAction) {
 		addPair(MALWARE_ENDPOINT_PROTECTION_ACTION, malwareEndpointProtectionAction);
@@ -31,7 +31,7 @@ public class MalwareNetworkProtectionEvent extends SplunkEvent {
 	 * analysis, proxy, malware, intrusion detection, packet filtering, and
 	 * vulnerability).
 	 */
-	public static String MALWARE_NETWORK_PROTECTION_PRODUCT = "product";
+	public static final String MALWARE_NETWORK_PROTECTION_PRODUCT = "product";
 	/**
 	 * The severity of the network protection event (such as critical, high,
 	 * medium, low, or informational).
@@ -39,7 +39,7 @@ public class MalwareNetworkProtectionEvent extends SplunkEvent {
 	 * Note: This field is a string. Please use a severity_id field for severity
 	 * ID fields that are integer data types.
 	 */
-	public static String MALWARE_NETWORK_PROTECTION_SEVERITY = "severity";
+	public static final String MALWARE_NETWORK_PROTECTION_SEVERITY = "severity";
 	/**
 	 * The vendor technology used to generate network protection data, such as
 	 * IDP, Proventia, and ASA.
@@ -48,7 +48,7 @@ public class MalwareNetworkProtectionEvent extends SplunkEvent {
 	 * analysis, proxy, malware, intrusion detection, packet filtering, and
 	 * vulnerability).
 	 */
-	public static String MALWARE_NETWORK_PROTECTION_VENDOR = "vendor";
+	public static final String MALWARE_NETWORK_PROTECTION_VENDOR = "vendor";
 
 	public void setMalwareNetworkProtectionProduct(String malwareNetworkProtectionProduct) {
 		addPair(MALWARE_NETWORK_PROTECTION_PRODUCT, malwareNetworkProtectionProduct);
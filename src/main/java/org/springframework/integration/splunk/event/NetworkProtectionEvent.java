@@ -25,19 +25,19 @@ public class NetworkProtectionEvent extends SplunkEvent {
 		/**
 		 * The type of change observed.
 		 */
-		public static String CHANGE_NETWORK_PROTECTION_ACTION = "action";
+		public static final String CHANGE_NETWORK_PROTECTION_ACTION = "action";
 		/**
 		 * The command that initiated the change.
 		 */
-		public static String CHANGE_NETWORK_PROTECTION_COMMAND = "command";
+		public static final String CHANGE_NETWORK_PROTECTION_COMMAND = "command";
 		/**
 		 * The device that is directly affected by the change.
 		 */
-		public static String CHANGE_NETWORK_PROTECTION_DVC = "dvc";
+		public static final String CHANGE_NETWORK_PROTECTION_DVC = "dvc";
 		/**
 		 * The user that initiated the change.
 		 */
-		public static String CHANGE_NETWORK_PROTECTION_USER = "user";
+		public static final String CHANGE_NETWORK_PROTECTION_USER = "user";
 
 		public void setChangeNetworkProtectionAction(String changeNetworkProtectionAction) {
 			addPair(CHANGE_NETWORK_PROTECTION_ACTION, changeNetworkProtectionAction);
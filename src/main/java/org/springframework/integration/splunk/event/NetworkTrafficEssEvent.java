@@ -25,11 +25,11 @@ public class NetworkTrafficEssEvent extends SplunkEvent {
 	/**
 	 * The action of the network traffic.
 	 */
-	public static String NETWORK_TRAFFIC_ESS_ACTION = "action";
+	public static final String NETWORK_TRAFFIC_ESS_ACTION = "action";
 	/**
 	 * The destination port of the network traffic.
 	 */
-	public static String NETWORK_TRAFFIC_ESS_DEST_PORT = "dest_port";
+	public static final String NETWORK_TRAFFIC_ESS_DEST_PORT = "dest_port";
 	/**
 	 * The product name of the vendor technology generating NetworkProtection
 	 * data, such as IDP, Proventia, and ASA.
@@ -38,11 +38,11 @@ public class NetworkTrafficEssEvent extends SplunkEvent {
 	 * analysis, proxy, malware, intrusion detection, packet filtering, and
 	 * vulnerability).
 	 */
-	public static String NETWORK_TRAFFIC_ESS_PRODUCT = "product";
+	public static final String NETWORK_TRAFFIC_ESS_PRODUCT = "product";
 	/**
 	 * The source port of the network traffic.
 	 */
-	public static String NETWORK_TRAFFIC_ESS_SRC_PORT = "src_port";
+	public static final String NETWORK_TRAFFIC_ESS_SRC_PORT = "src_port";
 	/**
 	 * The vendor technology used to generate NetworkProtection data, such as
 	 * IDP, Proventia, and ASA.
@@ -51,7 +51,7 @@ public class NetworkTrafficEssEvent extends SplunkEvent {
 	 * analysis, proxy, malware, intrusion detection, packet filtering, and
 	 * vulnerability).
 	 */
-	public static String NETWORK_TRAFFIC_ESS_VENDOR = "vendor";
+	public static final String NETWORK_TRAFFIC_ESS_VENDOR = "vendor";
 
 	public void setNetworkTrafficEssAction(String networkTrafficEssAction) {
 		addPair(NETWORK_TRAFFIC_ESS_ACTION, networkTrafficEssAction);
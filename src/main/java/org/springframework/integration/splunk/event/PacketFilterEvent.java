@@ -27,28 +27,28 @@ public class PacketFilterEvent extends SplunkEvent {
 	 * The action the filtering device (the dvc_bestmatch field) performed on
 	 * the communication.
 	 */
-	public static String PACKET_FILTERING_ACTION = "action";
+	public static final String PACKET_FILTERING_ACTION = "action";
 	/**
 	 * The IP port of the packet's destination, such as 22.
 	 */
-	public static String PACKET_FILTERING_DEST_PORT = "dest_port";
+	public static final String PACKET_FILTERING_DEST_PORT = "dest_port";
 	/**
 	 * The direction the packet is traveling.
 	 */
-	public static String PACKET_FILTERING_DIRECTION = "direction";
+	public static final String PACKET_FILTERING_DIRECTION = "direction";
 	/**
 	 * The name of the packet filtering device. If your field is named dvc_host,
 	 * dvc_ip, or dvc_nt_host you can alias it as dvc to make it CIM-compliant.
 	 */
-	public static String PACKET_FILTERING_DVC = "dvc";
+	public static final String PACKET_FILTERING_DVC = "dvc";
 	/**
 	 * The rule which took action on the packet, such as 143.
 	 */
-	public static String PACKET_FILTERING_RULE = "rule";
+	public static final String PACKET_FILTERING_RULE = "rule";
 	/**
 	 * The IP port of the packet's source, such as 34541.
 	 */
-	public static String PACKET_FILTERING_SVC_PORT = "svc_port";
+	public static final String PACKET_FILTERING_SVC_PORT = "svc_port";
 	public void setPacketFilteringAction(String packetFilteringAction) {
 		addPair(PACKET_FILTERING_ACTION, packetFilteringAction);
 	}
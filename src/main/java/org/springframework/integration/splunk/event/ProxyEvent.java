@@ -25,57 +25,57 @@ public class ProxyEvent extends SplunkEvent {
 		/**
 		 * The action taken by the proxy.
 		 */
-		public static String PROXY_ACTION = "action";
+		public static final String PROXY_ACTION = "action";
 		/**
 		 * The destination of the network traffic (the remote host).
 		 */
-		public static String PROXY_DEST = "dest";
+		public static final String PROXY_DEST = "dest";
 		/**
 		 * The content-type of the requested HTTP resource.
 		 */
-		public static String PROXY_HTTP_CONTENT_TYPE = "http_content_type";
+		public static final String PROXY_HTTP_CONTENT_TYPE = "http_content_type";
 		/**
 		 * The HTTP method used to request the resource.
 		 */
-		public static String PROXY_HTTP_METHOD = "http_method";
+		public static final String PROXY_HTTP_METHOD = "http_method";
 		/**
 		 * The HTTP referrer used to request the HTTP resource.
 		 */
-		public static String PROXY_HTTP_REFER = "http_refer";
+		public static final String PROXY_HTTP_REFER = "http_refer";
 		/**
 		 * The HTTP response code.
 		 */
-		public static String PROXY_HTTP_RESPONSE = "http_response";
+		public static final String PROXY_HTTP_RESPONSE = "http_response";
 		/**
 		 * The user agent used to request the HTTP resource.
 		 */
-		public static String PROXY_HTTP_USER_AGENT = "http_user_agent";
+		public static final String PROXY_HTTP_USER_AGENT = "http_user_agent";
 		/**
 		 * The product name of the vendor technology generating Network Protection
 		 * data, such as IDP, Providentia, and ASA.
 		 */
-		public static String PROXY_PRODUCT = "product";
+		public static final String PROXY_PRODUCT = "product";
 		/**
 		 * The source of the network traffic (the client requesting the connection).
 		 */
-		public static String PROXY_SRC = "src";
+		public static final String PROXY_SRC = "src";
 		/**
 		 * The HTTP response code indicating the status of the proxy request.
 		 */
-		public static String PROXY_STATUS = "status";
+		public static final String PROXY_STATUS = "status";
 		/**
 		 * The user that requested the HTTP resource.
 		 */
-		public static String PROXY_USER = "user";
+		public static final String PROXY_USER = "user";
 		/**
 		 * The URL of the requested HTTP resource.
 		 */
-		public static String PROXY_URL = "url";
+		public static final String PROXY_URL = "url";
 		/**
 		 * The vendor technology generating Network Protection data, such as IDP,
 		 * Providentia, and ASA.
 		 */
-		public static String PROXY_VENDOR = "vendor";
+		public static final String PROXY_VENDOR = "vendor";
 
 
 		public void setProxyAction(String proxyAction) {
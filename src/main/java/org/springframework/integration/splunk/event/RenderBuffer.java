@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+/**
+ * Per-thread scratch space {@link SplunkEvent}s are rendered into as UTF-8, so that
+ * rendering allocates neither strings nor buffers once the scratch arrays have grown
+ * to the size of the events.
+ *
+ * @since 1.2
+ */
+final class RenderBuffer {
+
+	private static final int INITIAL_SIZE = 1024;
+
+	/**
+	 * Arrays grown beyond this size by an unusually large event are not kept.
+	 */
+	private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<RenderBuffer> BUFFERS = new ThreadLocal<RenderBuffer>() {
+
+		@Override
+		protected RenderBuffer initialValue() {
+			return new RenderBuffer();
+		}
+
+	};
+
+	char[] chars = new char[INITIAL_SIZE];
+
+	byte[] bytes = new byte[INITIAL_SIZE];
+
+	int length;
+
+	static RenderBuffer get() {
+		RenderBuffer buffer = BUFFERS.get();
+		if (buffer.bytes.length > MAX_RETAINED_SIZE) {
+			buffer.chars = new char[INITIAL_SIZE];
+			buffer.bytes = new byte[INITIAL_SIZE];
+		}
+		buffer.length = 0;
+		return buffer;
+	}
+
+	/**
+	 * Append the time in the {@link SplunkEvent#DATEFORMATPATTERN} format in the
+	 * default time zone, e.g. {@code 2016-01-31\t23:59:59:999+0100}, as cached by the
+	 * {@link TimestampCache}.
+	 */
+	void appendTimestamp(long millis) {
+		append(TimestampCache.get(millis).bytes);
+	}
+
+	void append(byte b) {
+		ensureCapacity(1);
+		this.bytes[this.length++] = b;
+	}
+
+	void append(byte[] source) {
+		ensureCapacity(source.length);
+		System.arraycopy(source, 0, this.bytes, this.length, source.length);
+		this.length += source.length;
+	}
+
+	/**
+	 * Encode the string as UTF-8.
+	 */
+	void appendUtf8(String source) {
+		int count = source.length();
+		if (this.chars.length < count) {
+			this.chars = new char[Math.max(count, this.chars.length * 2)];
+		}
+		source.getChars(0, count, this.chars, 0);
+		ensureCapacity(count * 3);
+		char[] chars = this.chars;
+		byte[] bytes = this.bytes;
+		int position = this.length;
+		for (int i = 0; i < count; i++) {
+			char c = chars[i];
+			if (c < 0x80) {
+				bytes[position++] = (byte) c;
+			}
+			else if (c < 0x800) {
+				bytes[position++] = (byte) (0xC0 | (c >> 6));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(chars[i + 1])) {
+				int codePoint = Character.toCodePoint(c, chars[++i]);
+				bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+				bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+			}
+			else if (Character.isSurrogate(c)) {
+				// unpaired surrogate, replaced like String.getBytes does
+				bytes[position++] = '?';
+			}
+			else {
+				bytes[position++] = (byte) (0xE0 | (c >> 12));
+				bytes[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				bytes[position++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		this.length = position;
+	}
+
+	private void ensureCapacity(int additional) {
+		int required = this.length + additional;
+		if (required > this.bytes.length) {
+			byte[] bytes = new byte[Math.max(required, this.bytes.length * 2)];
+			System.arraycopy(this.bytes, 0, bytes, 0, this.length);
+			this.bytes = bytes;
+		}
+	}
+
+}
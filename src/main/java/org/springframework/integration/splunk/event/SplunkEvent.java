@@ -15,17 +15,42 @@
  */
 package org.springframework.integration.splunk.event;
 
-import java.io.Serializable;
-import java.util.Date;
-import java.util.HashMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.joda.time.DateTimeUtils.MillisProvider;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.springframework.util.Assert;
 
 /**
  * Splunk data entity
+ * <p>
+ * The pairs are kept in the order they are added and rendered only when the event is
+ * written; {@link #getFields()} and {@link #getField(String)} look fields up in an
+ * index built on first use instead of parsing the event text. The keys declared as
+ * constants by the event class, such as the CIM fields of the typed events, are
+ * rendered from prefixes encoded once per class, and their presence is kept in a bit
+ * set.
+ * <p>
+ * Events can be reused: {@link #reset()} empties an event, and events taken from a
+ * {@link SplunkEventPool} go back to it on {@link #release()}.
+ * <p>
+ * Events are {@link Externalizable} in a compact binary form, which
+ * {@link SplunkEventCodec} also reads and writes outside of Java serialization.
  *
  * @author Jarred Li
  * @author Damien Dallimore damien@dtdsoftware.com
@@ -35,12 +60,70 @@ import org.springframework.util.Assert;
  */
 
 @SuppressWarnings("serial")
-public class SplunkEvent implements Serializable {
+public class SplunkEvent implements Externalizable {
 
 	/**
-	 * Contents of the event message
+	 * The version of the binary form written by {@link #writeExternal(ObjectOutput)}.
 	 */
-	private StringBuffer eventMessage;
+	static final int BINARY_VERSION = 1;
+
+	private static final int FLAG_QUOTE_VALUES = 1;
+
+	private static final int FLAG_USE_INTERNAL_DATE = 2;
+
+	/**
+	 * Upper bounds of the binary form, so that a corrupt length cannot make a reader
+	 * allocate more than the input could hold.
+	 */
+	static final int MAX_BINARY_PAIRS = 64 * 1024;
+
+	static final int MAX_BINARY_STRING_BYTES = 64 * 1024 * 1024;
+
+	/**
+	 * Strings up to this size are read in one go; larger ones grow with the input.
+	 */
+	private static final int BINARY_READ_CHUNK = 8192;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private final EventEncoder encoder = EventEncoder.forClass(getClass());
+
+	/**
+	 * Keys of the pairs of the event, in the order they were added
+	 */
+	private String[] keys = new String[INITIAL_CAPACITY];
+
+	/**
+	 * Values of the pairs of the event, at the index of their key
+	 */
+	private String[] values = new String[INITIAL_CAPACITY];
+
+	/**
+	 * Numbers of the keys in the schema of the encoder, -1 for other keys
+	 */
+	private int[] ids = new int[INITIAL_CAPACITY];
+
+	/**
+	 * A bit for every schema key the event has a pair for
+	 */
+	private final long[] present = new long[(this.encoder.size() + 63) >>> 6];
+
+	private int size;
+
+	/**
+	 * Unmodifiable lookup of the fields, the last value added for a key winning;
+	 * created on first use and dropped when a pair is added
+	 */
+	private Map<String, String> fields;
+
+	/**
+	 * The pool the event was acquired from, if any
+	 */
+	private SplunkEventPool<?> pool;
+
+	private volatile boolean released;
 
 	/**
 	 * Whether or not to put quotes around values
@@ -85,6 +168,7 @@ public class SplunkEvent implements Serializable {
 	protected static final String THROWABLE_CLASS = "throwable_class";
 	protected static final String THROWABLE_MESSAGE = "throwable_message";
 	protected static final String THROWABLE_STACKTRACE_ELEMENTS = "stacktrace_elements";
+	protected static final String THROWABLE_STACKTRACE_HASH = "stacktrace_hash";
 
 	protected static final String LINEBREAK = "\n";
 
@@ -95,131 +179,131 @@ public class SplunkEvent implements Serializable {
 	/**
 	 * A device-specific classification provided as part of the event.
 	 */
-	public static String COMMON_CATEGORY = "category";
+	public static final String COMMON_CATEGORY = "category";
 	/**
 	 * A device-specific classification provided as part of the event.
 	 */
-	public static String COMMON_COUNT = "count";
+	public static final String COMMON_COUNT = "count";
 	/**
 	 * The free-form description of a particular event.
 	 */
-	public static String COMMON_DESC = "desc";
+	public static final String COMMON_DESC = "desc";
 	/**
 	 * The name of a given DHCP pool on a DHCP server.
 	 */
-	public static String COMMON_DHCP_POOL = "dhcp_pool";
+	public static final String COMMON_DHCP_POOL = "dhcp_pool";
 	/**
 	 * The amount of time the event lasted.
 	 */
-	public static String COMMON_DURATION = "duration";
+	public static final String COMMON_DURATION = "duration";
 	/**
 	 * The fully qualified domain name of the device transmitting or recording
 	 * the log record.
 	 */
-	public static String COMMON_DVC_HOST = "dvc_host";
+	public static final String COMMON_DVC_HOST = "dvc_host";
 	/**
 	 * The IPv4 address of the device reporting the event.
 	 */
-	public static String COMMON_DVC_IP = "dvc_ip";
+	public static final String COMMON_DVC_IP = "dvc_ip";
 	/**
 	 * The IPv6 address of the device reporting the event.
 	 */
-	public static String COMMON_DVC_IP6 = "dvc_ip6";
+	public static final String COMMON_DVC_IP6 = "dvc_ip6";
 	/**
 	 * The free-form description of the device's physical location.
 	 */
-	public static String COMMON_DVC_LOCATION = "dvc_location";
+	public static final String COMMON_DVC_LOCATION = "dvc_location";
 	/**
 	 * The MAC (layer 2) address of the device reporting the event.
 	 */
-	public static String COMMON_DVC_MAC = "dvc_mac";
+	public static final String COMMON_DVC_MAC = "dvc_mac";
 	/**
 	 * The Windows NT domain of the device recording or transmitting the event.
 	 */
-	public static String COMMON_DVC_NT_DOMAIN = "dvc_nt_domain";
+	public static final String COMMON_DVC_NT_DOMAIN = "dvc_nt_domain";
 	/**
 	 * The Windows NT host name of the device recording or transmitting the
 	 * event.
 	 */
-	public static String COMMON_DVC_NT_HOST = "dvc_nt_host";
+	public static final String COMMON_DVC_NT_HOST = "dvc_nt_host";
 	/**
 	 * Time at which the device recorded the event.
 	 */
-	public static String COMMON_DVC_TIME = "dvc_time";
+	public static final String COMMON_DVC_TIME = "dvc_time";
 	/**
 	 * The event's specified end time.
 	 */
-	public static String COMMON_END_TIME = "end_time";
+	public static final String COMMON_END_TIME = "end_time";
 	/**
 	 * A unique identifier that identifies the event. This is unique to the
 	 * reporting device.
 	 */
-	public static String COMMON_EVENT_ID = "event_id";
+	public static final String COMMON_EVENT_ID = "event_id";
 	/**
 	 * The length of the datagram, event, message, or packet.
 	 */
-	public static String COMMON_LENGTH = "length";
+	public static final String COMMON_LENGTH = "length";
 	/**
 	 * The log-level that was set on the device and recorded in the event.
 	 */
-	public static String COMMON_LOG_LEVEL = "log_level";
+	public static final String COMMON_LOG_LEVEL = "log_level";
 	/**
 	 * The name of the event as reported by the device. The name should not
 	 * contain information that's already being parsed into other fields from
 	 * the event, such as IP addresses.
 	 */
-	public static String COMMON_NAME = "name";
+	public static final String COMMON_NAME = "name";
 	/**
 	 * An integer assigned by the device operating system to the process
 	 * creating the record.
 	 */
-	public static String COMMON_PID = "pid";
+	public static final String COMMON_PID = "pid";
 	/**
 	 * An environment-specific assessment of the event's importance, based on
 	 * elements such as event severity, business function of the affected
 	 * system, or other locally defined variables.
 	 */
-	public static String COMMON_PRIORITY = "priority";
+	public static final String COMMON_PRIORITY = "priority";
 	/**
 	 * The product that generated the event.
 	 */
-	public static String COMMON_PRODUCT = "product";
+	public static final String COMMON_PRODUCT = "product";
 	/**
 	 * The version of the product that generated the event.
 	 */
-	public static String COMMON_PRODUCT_VERSION = "product_version";
+	public static final String COMMON_PRODUCT_VERSION = "product_version";
 	/**
 	 * The result root cause, such as connection refused, timeout, crash, and so
 	 * on.
 	 */
-	public static String COMMON_REASON = "reason";
+	public static final String COMMON_REASON = "reason";
 	/**
 	 * The action result. Often is a binary choice: succeeded and failed,
 	 * allowed and denied, and so on.
 	 */
-	public static String COMMON_RESULT = "result";
+	public static final String COMMON_RESULT = "result";
 	/**
 	 * The severity (or priority) of an event as reported by the originating
 	 * device.
 	 */
-	public static String COMMON_SEVERITY = "severity";
+	public static final String COMMON_SEVERITY = "severity";
 	/**
 	 * The event's specified start time.
 	 */
-	public static String COMMON_START_TIME = "start_time";
+	public static final String COMMON_START_TIME = "start_time";
 	/**
 	 * The transaction identifier.
 	 */
-	public static String COMMON_TRANSACTION_ID = "transaction_id";
+	public static final String COMMON_TRANSACTION_ID = "transaction_id";
 	/**
 	 * A uniform record locator (a web address, in other words) included in a
 	 * record.
 	 */
-	public static String COMMON_URL = "url";
+	public static final String COMMON_URL = "url";
 	/**
 	 * The vendor who made the product that generated the event.
 	 */
-	public static String COMMON_VENDOR = "vendor";
+	public static final String COMMON_VENDOR = "vendor";
 	// ----------------------------------
 	// Update
 	// ----------------------------------
@@ -227,14 +311,31 @@ public class SplunkEvent implements Serializable {
 	/**
 	 * The name of the installed update.
 	 */
-	public static String UPDATE_PACKAGE = "package";
+	public static final String UPDATE_PACKAGE = "package";
+
+	/**
+	 * Set the clock events are time stamped with when they are rendered, e.g. a fixed
+	 * clock in tests or benchmarks.
+	 * @param clock the clock, or null for the system clock
+	 * @since 1.2
+	 */
+	public static void setClock(MillisProvider clock) {
+		TimestampCache.setClock(clock);
+	}
+
+	/**
+	 * @return the current time of the clock events are time stamped with
+	 * @since 1.2
+	 */
+	public static long currentTimeMillis() {
+		return TimestampCache.currentTimeMillis();
+	}
 
 	/**
 	 * A Constructor to load data from a Map
 	 * @param data the map
 	 */
 	public SplunkEvent(Map<String, String> data) {
-		this.eventMessage = new StringBuffer();
 		for (String key : data.keySet()) {
 			this.addPair(key, data.get(key));
 		}
@@ -245,7 +346,15 @@ public class SplunkEvent implements Serializable {
 	 * @param splunkEvent
 	 */
 	public SplunkEvent(SplunkEvent splunkEvent) {
-		this.eventMessage = splunkEvent.eventMessage;
+		String[] keys;
+		String[] values;
+		synchronized (splunkEvent) {
+			keys = Arrays.copyOf(splunkEvent.keys, splunkEvent.size);
+			values = Arrays.copyOf(splunkEvent.values, splunkEvent.size);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			appendPair(keys[i], values[i]);
+		}
 		this.quoteValues = splunkEvent.quoteValues;
 		this.useInternalDate = splunkEvent.useInternalDate;
 	}
@@ -258,8 +367,7 @@ public class SplunkEvent implements Serializable {
 	 * @param quoteValues whether or not to put quotes around values
 	 */
 	public SplunkEvent(String eventName, String eventID, boolean useInternalDate, boolean quoteValues) {
-
-		this.eventMessage = new StringBuffer();
+		this();
 		this.quoteValues = quoteValues;
 		this.useInternalDate = useInternalDate;
 
@@ -282,31 +390,56 @@ public class SplunkEvent implements Serializable {
 	 * Default constructor
 	 */
 	public SplunkEvent() {
-		this.eventMessage = new StringBuffer();
 	}
 
+	/**
+	 * @return a copy of the fields of the event in the order they were added; of
+	 * several pairs with the same key, the value of the last one
+	 */
 	public Map<String, String> getEventData() {
-		Map<String, String> eventData = new HashMap<String, String>();
-		String eventEntries = eventMessage.toString();
-
-		String[] entries = eventEntries.split(PAIRDELIM);
-
-		String quote = new String(new char[] { QUOTE });
-
-		for (String entry : entries) {
-			String[] pair = entry.split(KVDELIM);
-
-			Assert.isTrue(pair.length == 2, String.format("invalid event data [%s]", entry));
+		return new LinkedHashMap<String, String>(getFields());
+	}
 
-			String key = pair[0].replaceAll(quote, "");
-			String value = pair[1].replaceAll(quote, "");
-			if ("null".equals(value)) {
-				value = null;
+	/**
+	 * Look the fields up without copying them: the snapshot is shared by all callers
+	 * until the next pair is added, and is never modified afterwards.
+	 * @return an unmodifiable snapshot of the fields of the event in the order they
+	 * were added; of several pairs with the same key, the value of the last one
+	 * @since 1.2
+	 */
+	public synchronized Map<String, String> getFields() {
+		assertNotReleased();
+		if (this.fields == null) {
+			Map<String, String> fields = new LinkedHashMap<String, String>(this.size * 4 / 3 + 1);
+			for (int i = 0; i < this.size; i++) {
+				fields.put(this.keys[i], this.values[i]);
 			}
+			this.fields = Collections.unmodifiableMap(fields);
+		}
+		return this.fields;
+	}
 
-			eventData.put(key, value);
+	/**
+	 * @param key the key of the field
+	 * @return the value of the last pair added with the key, or null
+	 * @since 1.2
+	 */
+	public String getField(String key) {
+		return getFields().get(key);
+	}
+
+	/**
+	 * @param key the key of the field
+	 * @return whether a pair with the key has been added
+	 * @since 1.2
+	 */
+	public synchronized boolean hasField(String key) {
+		assertNotReleased();
+		int id = this.encoder.id(key);
+		if (id >= 0) {
+			return (this.present[id >>> 6] & (1L << id)) != 0;
 		}
-		return eventData;
+		return getFields().containsKey(key);
 	}
 
 	/**
@@ -371,14 +504,16 @@ public class SplunkEvent implements Serializable {
 
 	/**
 	 * Utility method for formatting Throwable,Error,Exception objects in a more
-	 * linear and Splunk friendly manner than printStackTrace
+	 * linear and Splunk friendly manner than printStackTrace; as many stacktrace
+	 * elements as the {@link StackTraceCache#setDepth(int) depth} of the
+	 * {@link StackTraceCache} are logged, all by default
 	 *
 	 * @param throwable
 	 *            the Throwable object to add to the event
 	 */
 	public void addThrowable(Throwable throwable) {
 
-		addThrowableObject(throwable, -1);
+		addThrowableObject(throwable, StackTraceCache.getSharedInstance().getDepth());
 	}
 
 	/**
@@ -397,7 +532,8 @@ public class SplunkEvent implements Serializable {
 
 	/**
 	 * Internal private method for formatting Throwable,Error,Exception objects
-	 * in a more linear and Splunk friendly manner than printStackTrace
+	 * in a more linear and Splunk friendly manner than printStackTrace; the
+	 * rendered stacktrace elements are cached by the {@link StackTraceCache}
 	 *
 	 * @param throwable
 	 *            the Throwable object to add to the event
@@ -409,18 +545,7 @@ public class SplunkEvent implements Serializable {
 
 		addPair(THROWABLE_CLASS, throwable.getClass().getCanonicalName());
 		addPair(THROWABLE_MESSAGE, throwable.getMessage());
-		StackTraceElement[] elements = throwable.getStackTrace();
-		StringBuffer sb = new StringBuffer();
-		int depth = 0;
-		for (StackTraceElement element : elements) {
-			depth++;
-			if (stackTraceDepth == -1 || stackTraceDepth >= depth)
-				sb.append(element.toString()).append(",");
-			else
-				break;
-
-		}
-		addPair(THROWABLE_STACKTRACE_ELEMENTS, sb.toString());
+		StackTraceCache.getSharedInstance().addStackTrace(this, throwable, stackTraceDepth);
 	}
 
 	/**
@@ -429,13 +554,83 @@ public class SplunkEvent implements Serializable {
 	 * @param key
 	 * @param value
 	 */
-	public void addPair(String key, String value) {
+	public synchronized void addPair(String key, String value) {
 		Assert.notNull(key, "key cannot be null");
-		if (quoteValues)
-			this.eventMessage.append(key).append(KVDELIM).append(QUOTE).append(value).append(QUOTE).append(PAIRDELIM);
-		else
-			this.eventMessage.append(key).append(KVDELIM).append(value).append(PAIRDELIM);
+		assertNotReleased();
+		appendPair(key, value);
+	}
+
+	/**
+	 * Remove all pairs and restore the default format, so that the event can be
+	 * filled again.
+	 * @since 1.2
+	 */
+	public synchronized void reset() {
+		assertNotReleased();
+		clear();
+	}
+
+	private void clear() {
+		Arrays.fill(this.keys, 0, this.size, null);
+		Arrays.fill(this.values, 0, this.size, null);
+		this.size = 0;
+		Arrays.fill(this.present, 0L);
+		this.fields = null;
+		this.quoteValues = true;
+		this.useInternalDate = true;
+	}
+
+	/**
+	 * Return the event to the {@link SplunkEventPool} it was acquired from; it must not
+	 * be used afterwards. Does nothing for events not acquired from a pool. Writers call
+	 * this once they are done with an event.
+	 * @since 1.2
+	 */
+	public void release() {
+		SplunkEventPool<?> pool = this.pool;
+		if (pool == null) {
+			return;
+		}
+		synchronized (this) {
+			if (this.released) {
+				if (pool.isDebug()) {
+					throw new IllegalStateException("SplunkEvent released twice");
+				}
+				return;
+			}
+			this.released = true;
+			clear();
+		}
+		pool.recycle(this);
+	}
+
+	synchronized void acquired(SplunkEventPool<?> pool) {
+		this.pool = pool;
+		this.released = false;
+	}
+
+	private void assertNotReleased() {
+		if (this.released && this.pool != null && this.pool.isDebug()) {
+			throw new IllegalStateException("SplunkEvent used after it was released to its pool");
+		}
+	}
 
+	private void appendPair(String key, String value) {
+		if (this.size == this.keys.length) {
+			this.keys = Arrays.copyOf(this.keys, this.size * 2);
+			this.values = Arrays.copyOf(this.values, this.size * 2);
+			this.ids = Arrays.copyOf(this.ids, this.size * 2);
+		}
+		int id = this.encoder.id(key);
+		this.keys[this.size] = key;
+		this.values[this.size] = value;
+		this.ids[this.size] = id;
+		this.size++;
+		if (id >= 0) {
+			this.present[id >>> 6] |= 1L << id;
+		}
+		// snapshots handed out stay as they are
+		this.fields = null;
 	}
 
 	@Override
@@ -444,18 +639,219 @@ public class SplunkEvent implements Serializable {
 	 */
 	public String toString() {
 
-		String event = "";
+		assertNotReleased();
+		StringBuilder event = new StringBuilder(32 + this.size * 32);
 
 		if (useInternalDate) {
-			StringBuffer clonedMessage = new StringBuffer();
-			clonedMessage.append(DATE_FORMATTER.print(new Date().getTime())).append(PAIRDELIM)
-					.append(this.eventMessage);
-			event = clonedMessage.toString();
-		} else
-			event = eventMessage.toString();
+			event.append(TimestampCache.get().text()).append(PAIRDELIM);
+		}
+		synchronized (this) {
+			for (int i = 0; i < this.size; i++) {
+				event.append(this.keys[i]).append(KVDELIM);
+				if (quoteValues)
+					event.append(QUOTE).append(this.values[i]).append(QUOTE);
+				else
+					event.append(this.values[i]);
+				event.append(PAIRDELIM);
+			}
+		}
 		// trim off trailing pair delim char(s)
-		String result = event.substring(0, event.length() - PAIRDELIM.length()) + LINEBREAK;
-		return result;
+		event.setLength(event.length() - PAIRDELIM.length());
+		return event.append(LINEBREAK).toString();
+	}
+
+	/**
+	 * Write the completed event message as UTF-8, exactly like the bytes of
+	 * {@link #toString()}, without creating intermediate strings.
+	 * @param out the stream to write to
+	 * @return the number of bytes written
+	 * @throws IOException if the stream cannot be written
+	 * @since 1.2
+	 */
+	public int writeTo(OutputStream out) throws IOException {
+		RenderBuffer buffer = render();
+		out.write(buffer.bytes, 0, buffer.length);
+		return buffer.length;
+	}
+
+	/**
+	 * Write the completed event message as UTF-8, exactly like the bytes of
+	 * {@link #toString()}, without creating intermediate strings.
+	 * @param out the buffer to write to; it is left unchanged if the event does not fit
+	 * @throws BufferOverflowException if there is not enough room in the buffer
+	 * @since 1.2
+	 */
+	public void writeTo(ByteBuffer out) {
+		RenderBuffer buffer = render();
+		if (out.remaining() < buffer.length) {
+			throw new BufferOverflowException();
+		}
+		out.put(buffer.bytes, 0, buffer.length);
+	}
+
+	private RenderBuffer render() {
+		assertNotReleased();
+		RenderBuffer buffer = RenderBuffer.get();
+		if (useInternalDate) {
+			buffer.appendTimestamp(TimestampCache.currentTimeMillis());
+			buffer.append((byte) ' ');
+		}
+		synchronized (this) {
+			for (int i = 0; i < this.size; i++) {
+				int id = this.ids[i];
+				if (id >= 0) {
+					this.encoder.appendPrefix(buffer, id, quoteValues);
+				}
+				else {
+					buffer.appendUtf8(this.keys[i]);
+					buffer.append((byte) '=');
+					if (quoteValues) {
+						buffer.append((byte) QUOTE);
+					}
+				}
+				buffer.appendUtf8(String.valueOf(this.values[i]));
+				if (quoteValues) {
+					buffer.append((byte) QUOTE);
+				}
+				buffer.append((byte) ' ');
+			}
+		}
+		// trim off the trailing pair delim char
+		if (buffer.length > 0) {
+			buffer.length--;
+		}
+		buffer.append((byte) '\n');
+		return buffer;
+	}
+
+	/**
+	 * Write the binary form of the event: a version byte, a byte of flags, the number
+	 * of pairs and their keys and values as length prefixed UTF-8.
+	 * @since 1.2
+	 */
+	public void writeExternal(ObjectOutput out) throws IOException {
+		writeBinary(out);
+	}
+
+	/**
+	 * Read the binary form written by {@link #writeExternal(ObjectOutput)}. Corrupt
+	 * input, including counts or lengths beyond the input or the bounds of the form,
+	 * is rejected with an {@link InvalidObjectException} or an {@link java.io.EOFException}.
+	 * @since 1.2
+	 */
+	public void readExternal(ObjectInput in) throws IOException {
+		readBinary(in);
+	}
+
+	void writeBinary(DataOutput out) throws IOException {
+		assertNotReleased();
+		out.writeByte(BINARY_VERSION);
+		out.writeByte((this.quoteValues ? FLAG_QUOTE_VALUES : 0)
+				| (this.useInternalDate ? FLAG_USE_INTERNAL_DATE : 0));
+		synchronized (this) {
+			writeVarInt(out, this.size);
+			for (int i = 0; i < this.size; i++) {
+				writeString(out, this.keys[i]);
+				writeString(out, this.values[i]);
+			}
+		}
+	}
+
+	void readBinary(DataInput in) throws IOException {
+		int version = in.readUnsignedByte();
+		if (version != BINARY_VERSION) {
+			throw new InvalidObjectException("Unsupported SplunkEvent binary version " + version);
+		}
+		int flags = in.readUnsignedByte();
+		int size = readVarInt(in);
+		if (size > MAX_BINARY_PAIRS) {
+			throw new InvalidObjectException("Too many pairs in SplunkEvent binary form: " + size);
+		}
+		// grown while reading, so that a count beyond the input ends at its end
+		String[] keys = new String[Math.min(size, INITIAL_CAPACITY)];
+		String[] values = new String[keys.length];
+		for (int i = 0; i < size; i++) {
+			if (i == keys.length) {
+				keys = Arrays.copyOf(keys, Math.min(size, i * 2));
+				values = Arrays.copyOf(values, keys.length);
+			}
+			keys[i] = readString(in);
+			if (keys[i] == null) {
+				throw new InvalidObjectException("Null key in SplunkEvent binary form");
+			}
+			values[i] = readString(in);
+		}
+		synchronized (this) {
+			assertNotReleased();
+			clear();
+			this.quoteValues = (flags & FLAG_QUOTE_VALUES) != 0;
+			this.useInternalDate = (flags & FLAG_USE_INTERNAL_DATE) != 0;
+			for (int i = 0; i < size; i++) {
+				appendPair(keys[i], values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Write the string as UTF-8 prefixed with its length plus one, 0 standing for null.
+	 */
+	private static void writeString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			out.writeByte(0);
+			return;
+		}
+		RenderBuffer buffer = RenderBuffer.get();
+		buffer.appendUtf8(value);
+		writeVarInt(out, buffer.length + 1);
+		out.write(buffer.bytes, 0, buffer.length);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		int length = readVarInt(in);
+		if (length == 0) {
+			return null;
+		}
+		length--;
+		if (length > MAX_BINARY_STRING_BYTES) {
+			throw new InvalidObjectException("String too long in SplunkEvent binary form: " + length);
+		}
+		byte[] bytes = new byte[Math.min(length, BINARY_READ_CHUNK)];
+		int read = 0;
+		while (read < length) {
+			if (read == bytes.length) {
+				bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * read));
+			}
+			in.readFully(bytes, read, bytes.length - read);
+			read = bytes.length;
+		}
+		return new String(bytes, 0, length, UTF8);
+	}
+
+	/**
+	 * Write a non-negative int in 7 bit groups, low group first, so that lengths below
+	 * 128 take a single byte.
+	 */
+	private static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0) {
+					break;
+				}
+				return value;
+			}
+		}
+		throw new InvalidObjectException("Malformed length in SplunkEvent binary form");
 	}
 
 	public void setCommonCategory(String commonCategory) {
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.integration.codec.Codec;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link Codec} for {@link SplunkEvent}s in the binary form of
+ * {@link SplunkEvent#writeExternal(java.io.ObjectOutput)}, without the class
+ * descriptors of Java serialization; e.g. for the payloads of messages in a
+ * {@link org.springframework.integration.codec.CompositeCodec} or a
+ * {@link org.springframework.integration.codec.CodecMessageConverter}.
+ * The event type to decode must have a public no-arg constructor.
+ *
+ * @since 1.2
+ */
+public class SplunkEventCodec implements Codec {
+
+	@Override
+	public void encode(Object object, OutputStream outputStream) throws IOException {
+		Assert.isInstanceOf(SplunkEvent.class, object);
+		DataOutputStream out = new DataOutputStream(outputStream);
+		((SplunkEvent) object).writeBinary(out);
+		out.flush();
+	}
+
+	@Override
+	public byte[] encode(Object object) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		encode(object, out);
+		return out.toByteArray();
+	}
+
+	@Override
+	public <T> T decode(InputStream inputStream, Class<T> type) throws IOException {
+		Assert.isAssignable(SplunkEvent.class, type);
+		T event = BeanUtils.instantiateClass(type);
+		((SplunkEvent) event).readBinary(new DataInputStream(inputStream));
+		return event;
+	}
+
+	@Override
+	public <T> T decode(byte[] bytes, Class<T> type) throws IOException {
+		return decode(new ByteArrayInputStream(bytes), type);
+	}
+
+}
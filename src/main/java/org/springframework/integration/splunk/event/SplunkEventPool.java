@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.Assert;
+
+/**
+ * A pool of reusable {@link SplunkEvent}s of one type, for producers writing events at
+ * a rate where allocating an event per message churns the young generation.
+ * <p>
+ * An event taken with {@link #acquire()} is returned with {@link SplunkEvent#release()};
+ * the writers of this module release events once their bytes have been written, or
+ * rendered into a batch, a spool or a buffer. The event must not be used after it has
+ * been handed to a writer or released. Events that are never released are simply
+ * garbage collected.
+ * <p>
+ * Released events are kept in stripes chosen by thread, each a small stack guarded by
+ * its own lock, so that producers and the writer threads releasing their events rarely
+ * contend. A thread finding its stripe empty takes an event from another stripe before
+ * allocating a new one.
+ * <p>
+ * In {@link #setDebug(boolean) debug} mode released events are not reused but kept
+ * released for good, and any use of them, as well as a second release, throws an
+ * {@link IllegalStateException}.
+ *
+ * @param <T> the event type
+ * @since 1.2
+ */
+public class SplunkEventPool<T extends SplunkEvent> {
+
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final Class<T> eventType;
+
+	private final Stripe[] stripes;
+
+	private volatile boolean debug;
+
+	/**
+	 * Create a pool of up to {@link #DEFAULT_CAPACITY} events with a stripe per
+	 * processor.
+	 * @param eventType the event type, with a public no-arg constructor
+	 */
+	public SplunkEventPool(Class<T> eventType) {
+		this(eventType, DEFAULT_CAPACITY, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param eventType the event type, with a public no-arg constructor
+	 * @param capacity the maximum number of released events kept
+	 * @param stripes the number of stripes the events are kept in
+	 */
+	public SplunkEventPool(Class<T> eventType, int capacity, int stripes) {
+		Assert.notNull(eventType, "eventType cannot be null");
+		Assert.isTrue(stripes > 0, "stripes must be positive");
+		Assert.isTrue(capacity >= stripes, "capacity must be at least the number of stripes");
+		this.eventType = eventType;
+		this.stripes = new Stripe[stripes];
+		for (int i = 0; i < stripes; i++) {
+			this.stripes[i] = new Stripe(capacity / stripes);
+		}
+	}
+
+	/**
+	 * @param debug whether to keep released events from reuse and fail on any use of
+	 * them, false by default
+	 */
+	public void setDebug(boolean debug) {
+		this.debug = debug;
+	}
+
+	public boolean isDebug() {
+		return this.debug;
+	}
+
+	/**
+	 * @return an empty event in the default format
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		SplunkEvent event = null;
+		int home = stripe();
+		for (int i = 0; i < this.stripes.length && event == null; i++) {
+			event = this.stripes[(home + i) % this.stripes.length].pop();
+		}
+		if (event == null) {
+			event = BeanUtils.instantiateClass(this.eventType);
+		}
+		event.acquired(this);
+		return (T) event;
+	}
+
+	/**
+	 * @param eventName the event name
+	 * @param eventID the event id
+	 * @return an event with the name and id pairs
+	 * @see SplunkEvent#SplunkEvent(String, String)
+	 */
+	public T acquire(String eventName, String eventID) {
+		T event = acquire();
+		event.addPair(SplunkEvent.PREFIX_NAME, eventName);
+		event.addPair(SplunkEvent.PREFIX_EVENT_ID, eventID);
+		return event;
+	}
+
+	/**
+	 * @return the number of released events kept for reuse
+	 */
+	public int getPooledCount() {
+		int count = 0;
+		for (Stripe stripe : this.stripes) {
+			count += stripe.size();
+		}
+		return count;
+	}
+
+	void recycle(SplunkEvent event) {
+		if (!this.debug) {
+			this.stripes[stripe()].push(event);
+		}
+	}
+
+	private int stripe() {
+		return (int) (Thread.currentThread().getId() % this.stripes.length);
+	}
+
+	/**
+	 * A bounded stack of released events.
+	 */
+	private static final class Stripe {
+
+		private final SplunkEvent[] events;
+
+		private int size;
+
+		Stripe(int capacity) {
+			this.events = new SplunkEvent[capacity];
+		}
+
+		synchronized SplunkEvent pop() {
+			if (this.size == 0) {
+				return null;
+			}
+			SplunkEvent event = this.events[--this.size];
+			this.events[this.size] = null;
+			return event;
+		}
+
+		synchronized void push(SplunkEvent event) {
+			if (this.size < this.events.length) {
+				this.events[this.size++] = event;
+			}
+		}
+
+		synchronized int size() {
+			return this.size;
+		}
+
+	}
+
+}
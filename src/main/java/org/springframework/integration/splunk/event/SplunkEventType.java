@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares how {@link SplunkEventMapper} maps objects of the annotated class to
+ * events; the pairs come from the members annotated with {@link SplunkField}.
+ *
+ * @since 1.2
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface SplunkEventType {
+
+	/**
+	 * The event class the objects are mapped to, with a public no-arg constructor;
+	 * {@link SplunkEvent} by default.
+	 */
+	Class<? extends SplunkEvent> value() default SplunkEvent.class;
+
+	/**
+	 * The event name, rendered as the {@code name} pair ahead of the fields; none by
+	 * default.
+	 */
+	String name() default "";
+
+	/**
+	 * Whether to put quotes around values.
+	 */
+	boolean quoteValues() default true;
+
+	/**
+	 * Whether to add a date to the event.
+	 */
+	boolean useInternalDate() default true;
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field, or a getter without arguments, whose value {@link SplunkEventMapper}
+ * adds to the event as a pair. Null values are left out.
+ * <p>
+ * Pairs are added by ascending {@link #order()}; members of the same order follow
+ * those of their super classes and are sorted by key, so that the layout of an event
+ * does not depend on the order the JVM reports members in.
+ *
+ * @since 1.2
+ */
+@Target({ ElementType.FIELD, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SplunkField {
+
+	/**
+	 * The key of the pair; the name of the field, or the property name of the getter,
+	 * by default.
+	 */
+	String value() default "";
+
+	/**
+	 * The position of the pair in the event, relative to the other pairs; 0 by default.
+	 */
+	int order() default 0;
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.Assert;
+
+/**
+ * Caches the {@code stacktrace_elements} rendered by
+ * {@link SplunkEvent#addThrowable(Throwable)}, keyed by the type of the throwable and
+ * its frames, so that an exception logged over and over is rendered once.
+ * <p>
+ * Looking a stack trace up compares the frames but creates no strings. The cache holds
+ * at most {@link #setMaxSize(int) max size} stack traces and is emptied when full.
+ * <p>
+ * In {@link #setStackHash(boolean) stack hash} mode events get a
+ * {@code stacktrace_hash} fingerprint of the stack trace, and only the first event
+ * with a stack trace since it was cached gets the {@code stacktrace_elements} as well;
+ * the others can be correlated with it by the fingerprint.
+ * <p>
+ * All events use the {@link #getSharedInstance() shared instance}.
+ *
+ * @since 1.2
+ */
+public class StackTraceCache {
+
+	public static final int DEFAULT_MAX_SIZE = 256;
+
+	private static final StackTraceCache SHARED_INSTANCE = new StackTraceCache();
+
+	private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+
+	private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+	private volatile int depth = -1;
+
+	private volatile boolean stackHash;
+
+	/**
+	 * @return the cache used by all events
+	 */
+	public static StackTraceCache getSharedInstance() {
+		return SHARED_INSTANCE;
+	}
+
+	/**
+	 * @param maxSize the maximum number of stack traces kept, 256 by default; 0
+	 * disables caching
+	 */
+	public void setMaxSize(int maxSize) {
+		Assert.isTrue(maxSize >= 0, "maxSize cannot be negative");
+		this.maxSize = maxSize;
+		if (maxSize == 0) {
+			this.entries.clear();
+		}
+	}
+
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * @param depth the number of frames rendered by {@link SplunkEvent#addThrowable(Throwable)},
+	 * -1 (the default) for all
+	 */
+	public void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * @param stackHash whether to add a fingerprint of the stack trace and render the
+	 * frames for its first occurrence only, false by default
+	 */
+	public void setStackHash(boolean stackHash) {
+		this.stackHash = stackHash;
+	}
+
+	public boolean isStackHash() {
+		return this.stackHash;
+	}
+
+	/**
+	 * @return the number of stack traces cached
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	public void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Add the stack trace pairs of the throwable to the event.
+	 * @param depth the number of frames, -1 for all
+	 */
+	void addStackTrace(SplunkEvent event, Throwable throwable, int depth) {
+		StackTraceElement[] frames = throwable.getStackTrace();
+		int length = depth == -1 ? frames.length : Math.max(0, Math.min(depth, frames.length));
+		Key key = new Key(throwable.getClass(), frames, length);
+		Entry entry = this.maxSize == 0 ? null : this.entries.get(key);
+		boolean first = false;
+		if (entry == null) {
+			entry = new Entry(render(frames, length), fingerprint(key));
+			first = cache(key, entry);
+		}
+		if (this.stackHash) {
+			event.addPair(SplunkEvent.THROWABLE_STACKTRACE_HASH, entry.fingerprint);
+			if (first) {
+				event.addPair(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS, entry.rendered);
+			}
+		}
+		else {
+			event.addPair(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS, entry.rendered);
+		}
+	}
+
+	/**
+	 * @return whether the entry is the first for its key
+	 */
+	private boolean cache(Key key, Entry entry) {
+		if (this.maxSize == 0) {
+			return true;
+		}
+		if (this.entries.size() >= this.maxSize) {
+			this.entries.clear();
+		}
+		return this.entries.putIfAbsent(key, entry) == null;
+	}
+
+	private static String render(StackTraceElement[] frames, int length) {
+		StringBuilder rendered = new StringBuilder(length * 64);
+		for (int i = 0; i < length; i++) {
+			rendered.append(frames[i].toString()).append(",");
+		}
+		return rendered.toString();
+	}
+
+	/**
+	 * A 64 bit FNV-1a hash of the type and frames, in hex.
+	 */
+	private static String fingerprint(Key key) {
+		long hash = 0xcbf29ce484222325L;
+		hash = mix(hash, key.type.getName().hashCode());
+		for (int i = 0; i < key.length; i++) {
+			StackTraceElement frame = key.frames[i];
+			hash = mix(hash, frame.getClassName().hashCode());
+			hash = mix(hash, frame.getMethodName().hashCode());
+			hash = mix(hash, frame.getLineNumber());
+		}
+		return String.format("%016x", hash);
+	}
+
+	private static long mix(long hash, int value) {
+		for (int shift = 0; shift < 32; shift += 8) {
+			hash ^= (value >>> shift) & 0xFF;
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static final class Key {
+
+		private final Class<?> type;
+
+		private final StackTraceElement[] frames;
+
+		private final int length;
+
+		private final int hash;
+
+		Key(Class<?> type, StackTraceElement[] frames, int length) {
+			this.type = type;
+			this.frames = frames;
+			this.length = length;
+			int hash = type.hashCode() * 31 + length;
+			for (int i = 0; i < length; i++) {
+				hash = hash * 31 + frames[i].hashCode();
+			}
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			if (this.hash != other.hash || this.type != other.type || this.length != other.length) {
+				return false;
+			}
+			for (int i = 0; i < this.length; i++) {
+				if (!this.frames[i].equals(other.frames[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+	private static final class Entry {
+
+		private final String rendered;
+
+		private final String fingerprint;
+
+		Entry(String rendered, String fingerprint) {
+			this.rendered = rendered;
+			this.fingerprint = fingerprint;
+		}
+
+	}
+
+}
@@ -26,84 +26,84 @@ public class SystemCenterEvent extends SplunkEvent {
 	 * The running application or service on the system (the src field), such as
 	 * explorer.exe or sshd.
 	 */
-	public static String SYSTEM_CENTER_APP = "app";
+	public static final String SYSTEM_CENTER_APP = "app";
 	/**
 	 * The amount of disk space available per drive or mount (the mount field)
 	 * on the system (the src field).
 	 */
-	public static String SYSTEM_CENTER_FREEMBYTES = "FreeMBytes";
+	public static final String SYSTEM_CENTER_FREEMBYTES = "FreeMBytes";
 	/**
 	 * The version of operating system installed on the host (the src field),
 	 * such as 6.0.1.4 or 2.6.27.30-170.2.82.fc10.x86_64.
 	 */
-	public static String SYSTEM_CENTER_KERNEL_RELEASE = "kernel_release";
+	public static final String SYSTEM_CENTER_KERNEL_RELEASE = "kernel_release";
 	/**
 	 * Human-readable version of the SystemUptime value.
 	 */
-	public static String SYSTEM_CENTER_LABEL = "label";
+	public static final String SYSTEM_CENTER_LABEL = "label";
 	/**
 	 * The drive or mount reporting available disk space (the FreeMBytes field)
 	 * on the system (the src field).
 	 */
-	public static String SYSTEM_CENTER_MOUNT = "mount";
+	public static final String SYSTEM_CENTER_MOUNT = "mount";
 	/**
 	 * The name of the operating system installed on the host (the src), such as
 	 * Microsoft Windows Server 2003 or GNU/Linux).
 	 */
-	public static String SYSTEM_CENTER_OS = "os";
+	public static final String SYSTEM_CENTER_OS = "os";
 	/**
 	 * The percentage of processor utilization.
 	 */
-	public static String SYSTEM_CENTER_PERCENTPROCESSORTIME = "PercentProcessorTime";
+	public static final String SYSTEM_CENTER_PERCENTPROCESSORTIME = "PercentProcessorTime";
 	/**
 	 * The setlocaldefs setting from the SE Linux configuration.
 	 */
-	public static String SYSTEM_CENTER_SETLOCALDEFS = "setlocaldefs";
+	public static final String SYSTEM_CENTER_SETLOCALDEFS = "setlocaldefs";
 	/**
 	 * Values from the SE Linux configuration file.
 	 */
-	public static String SYSTEM_CENTER_SELINUX = "selinux";
+	public static final String SYSTEM_CENTER_SELINUX = "selinux";
 	/**
 	 * The SE Linux type (such as targeted).
 	 */
-	public static String SYSTEM_CENTER_SELINUXTYPE = "selinuxtype";
+	public static final String SYSTEM_CENTER_SELINUXTYPE = "selinuxtype";
 	/**
 	 * The shell provided to the User Account (the user field) upon logging into
 	 * the system (the src field).
 	 */
-	public static String SYSTEM_CENTER_SHELL = "shell";
+	public static final String SYSTEM_CENTER_SHELL = "shell";
 	/**
 	 * The TCP/UDP source port on the system (the src field).
 	 */
-	public static String SYSTEM_CENTER_SRC_PORT = "src_port";
+	public static final String SYSTEM_CENTER_SRC_PORT = "src_port";
 	/**
 	 * The sshd protocol version.
 	 */
-	public static String SYSTEM_CENTER_SSHD_PROTOCOL = "sshd_protocol";
+	public static final String SYSTEM_CENTER_SSHD_PROTOCOL = "sshd_protocol";
 	/**
 	 * The start mode of the given service.
 	 */
-	public static String SYSTEM_CENTER_STARTMODE = "Startmode";
+	public static final String SYSTEM_CENTER_STARTMODE = "Startmode";
 	/**
 	 * The number of seconds since the system (the src) has been "up."
 	 */
-	public static String SYSTEM_CENTER_SYSTEMUPTIME = "SystemUptime";
+	public static final String SYSTEM_CENTER_SYSTEMUPTIME = "SystemUptime";
 	/**
 	 * The total amount of available memory on the system (the src).
 	 */
-	public static String SYSTEM_CENTER_TOTALMBYTES = "TotalMBytes";
+	public static final String SYSTEM_CENTER_TOTALMBYTES = "TotalMBytes";
 	/**
 	 * The amount of used memory on the system (the src).
 	 */
-	public static String SYSTEM_CENTER_USEDMBYTES = "UsedMBytes";
+	public static final String SYSTEM_CENTER_USEDMBYTES = "UsedMBytes";
 	/**
 	 * The User Account present on the system (the src).
 	 */
-	public static String SYSTEM_CENTER_USER = "user";
+	public static final String SYSTEM_CENTER_USER = "user";
 	/**
 	 * The number of updates the system (the src) is missing.
 	 */
-	public static String SYSTEM_CENTER_UPDATES = "updates";
+	public static final String SYSTEM_CENTER_UPDATES = "updates";
 
 	public void setSystemCenterApp(String systemCenterApp) {
 		addPair(SYSTEM_CENTER_APP, systemCenterApp);
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import java.nio.charset.Charset;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTimeUtils.MillisProvider;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+
+/**
+ * The time stamp of the current millisecond in the {@link SplunkEvent#DATEFORMATPATTERN}
+ * format, encoded once and shared by all threads rendering events in the same
+ * millisecond. A thread finding the cached time stamp out of date formats and
+ * publishes a new one; there are no locks, at worst two threads format the same
+ * millisecond.
+ *
+ * @since 1.2
+ */
+final class TimestampCache {
+
+	/**
+	 * The length of a time stamp with a four digit year, e.g. {@code 2016-01-31\t23:59:59:999+0100}.
+	 */
+	static final int LENGTH = 28;
+
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+
+	private static final Chronology UTC = ISOChronology.getInstanceUTC();
+
+	private static final MillisProvider SYSTEM_CLOCK = new MillisProvider() {
+
+		@Override
+		public long getMillis() {
+			return System.currentTimeMillis();
+		}
+
+	};
+
+	private static volatile MillisProvider clock = SYSTEM_CLOCK;
+
+	private static volatile Timestamp current = new Timestamp(Long.MIN_VALUE, null, new byte[0]);
+
+	private TimestampCache() {
+	}
+
+	static void setClock(MillisProvider clock) {
+		TimestampCache.clock = clock != null ? clock : SYSTEM_CLOCK;
+	}
+
+	static long currentTimeMillis() {
+		return clock.getMillis();
+	}
+
+	static Timestamp get() {
+		return get(clock.getMillis());
+	}
+
+	static Timestamp get(long millis) {
+		Timestamp timestamp = current;
+		DateTimeZone zone = DateTimeZone.getDefault();
+		if (timestamp.millis != millis || timestamp.zone != zone) {
+			timestamp = new Timestamp(millis, zone, format(millis, zone));
+			current = timestamp;
+		}
+		return timestamp;
+	}
+
+	private static byte[] format(long millis, DateTimeZone zone) {
+		byte[] bytes = new byte[LENGTH];
+		int offset = zone.getOffset(millis);
+		long local = millis + offset;
+		putDigits(bytes, 0, UTC.year().get(local), 4);
+		bytes[4] = '-';
+		putDigits(bytes, 5, UTC.monthOfYear().get(local), 2);
+		bytes[7] = '-';
+		putDigits(bytes, 8, UTC.dayOfMonth().get(local), 2);
+		bytes[10] = '\t';
+		putDigits(bytes, 11, UTC.hourOfDay().get(local), 2);
+		bytes[13] = ':';
+		putDigits(bytes, 14, UTC.minuteOfHour().get(local), 2);
+		bytes[16] = ':';
+		putDigits(bytes, 17, UTC.secondOfMinute().get(local), 2);
+		bytes[19] = ':';
+		putDigits(bytes, 20, UTC.millisOfSecond().get(local), 3);
+		int offsetMinutes = offset / 60000;
+		if (offsetMinutes < 0) {
+			bytes[23] = '-';
+			offsetMinutes = -offsetMinutes;
+		}
+		else {
+			bytes[23] = '+';
+		}
+		putDigits(bytes, 24, offsetMinutes / 60, 2);
+		putDigits(bytes, 26, offsetMinutes % 60, 2);
+		return bytes;
+	}
+
+	private static void putDigits(byte[] bytes, int position, int value, int width) {
+		for (int i = position + width - 1; i >= position; i--) {
+			bytes[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	/**
+	 * A formatted millisecond.
+	 */
+	static final class Timestamp {
+
+		final long millis;
+
+		final DateTimeZone zone;
+
+		final byte[] bytes;
+
+		private String text;
+
+		Timestamp(long millis, DateTimeZone zone, byte[] bytes) {
+			this.millis = millis;
+			this.zone = zone;
+			this.bytes = bytes;
+		}
+
+		String text() {
+			String text = this.text;
+			if (text == null) {
+				// racy but idempotent
+				text = new String(this.bytes, ASCII);
+				this.text = text;
+			}
+			return text;
+		}
+
+	}
+
+}
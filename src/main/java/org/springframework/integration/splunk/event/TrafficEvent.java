@@ -28,18 +28,18 @@ public class TrafficEvent extends SplunkEvent {
 	 * dest_ip, dest_ipv6, or dest_nt_host you can alias it as dest to make it
 	 * CIM-compliant.
 	 */
-	public static String TRAFFIC_DEST = "dest";
+	public static final String TRAFFIC_DEST = "dest";
 	/**
 	 * The name of the packet filtering device. If your field is named dvc_host,
 	 * dvc_ip, or dvc_nt_host you can alias it as dvc to make it CIM-compliant.
 	 */
-	public static String TRAFFIC_DVC = "dvc";
+	public static final String TRAFFIC_DVC = "dvc";
 	/**
 	 * The source of the network traffic. If your field is named src_host,
 	 * src_ip, src_ipv6, or src_nt_host you can alias it as src to make it
 	 * CIM-compliant.
 	 */
-	public static String TRAFFIC_SRC = "src";
+	public static final String TRAFFIC_SRC = "src";
 
 	public void setTrafficDest(String trafficDest) {
 		addPair(TRAFFIC_DEST, trafficDest);
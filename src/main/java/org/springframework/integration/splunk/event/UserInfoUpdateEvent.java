@@ -26,59 +26,59 @@ public class UserInfoUpdateEvent extends SplunkEvent {
 	 * A user that has been affected by a change. For example, user fflanda
 	 * changed the name of user rhallen, so affected_user=rhallen.
 	 */
-	public static String USER_INFO_UPDATES_AFFECTED_USER = "affected_user";
+	public static final String USER_INFO_UPDATES_AFFECTED_USER = "affected_user";
 	/**
 	 * The user group affected by a change.
 	 */
-	public static String USER_INFO_UPDATES_AFFECTED_USER_GROUP = "affected_user_group";
+	public static final String USER_INFO_UPDATES_AFFECTED_USER_GROUP = "affected_user_group";
 	/**
 	 * The identifier of the user group affected by a change.
 	 */
-	public static String USER_INFO_UPDATES_AFFECTED_USER_GROUP_ID = "affected_user_group_id";
+	public static final String USER_INFO_UPDATES_AFFECTED_USER_GROUP_ID = "affected_user_group_id";
 	/**
 	 * The identifier of the user affected by a change.
 	 */
-	public static String USER_INFO_UPDATES_AFFECTED_USER_ID = "affected_user_id";
+	public static final String USER_INFO_UPDATES_AFFECTED_USER_ID = "affected_user_id";
 	/**
 	 * The security context associated with the user affected by a change.
 	 */
-	public static String USER_INFO_UPDATES_AFFECTED_USER_PRIVILEGE = "affected_user_privilege";
+	public static final String USER_INFO_UPDATES_AFFECTED_USER_PRIVILEGE = "affected_user_privilege";
 	/**
 	 * The name of the user affected by the recorded event.
 	 */
-	public static String USER_INFO_UPDATES_USER = "user";
+	public static final String USER_INFO_UPDATES_USER = "user";
 	/**
 	 * A user group that is the object of an event, expressed in human-readable
 	 * terms.
 	 */
-	public static String USER_INFO_UPDATES_USER_GROUP = "user_group";
+	public static final String USER_INFO_UPDATES_USER_GROUP = "user_group";
 	/**
 	 * The numeric identifier assigned to the user group event object.
 	 */
-	public static String USER_INFO_UPDATES_USER_GROUP_ID = "user_group_id";
+	public static final String USER_INFO_UPDATES_USER_GROUP_ID = "user_group_id";
 	/**
 	 * The system-assigned identifier for the user affected by an event.
 	 */
-	public static String USER_INFO_UPDATES_USER_ID = "user_id";
+	public static final String USER_INFO_UPDATES_USER_ID = "user_id";
 	/**
 	 * The security context associated with the object of an event (the affected
 	 * user).
 	 */
-	public static String USER_INFO_UPDATES_USER_PRIVILEGE = "user_privilege";
+	public static final String USER_INFO_UPDATES_USER_PRIVILEGE = "user_privilege";
 	/**
 	 * The name of the user that is the subject of an event--the user executing
 	 * the action, in other words.
 	 */
-	public static String USER_INFO_UPDATES_USER_SUBJECT = "user_subject";
+	public static final String USER_INFO_UPDATES_USER_SUBJECT = "user_subject";
 	/**
 	 * The ID number of the user that is the subject of an event.
 	 */
-	public static String USER_INFO_UPDATES_USER_SUBJECT_ID = "user_subject_id";
+	public static final String USER_INFO_UPDATES_USER_SUBJECT_ID = "user_subject_id";
 	/**
 	 * The security context associated with the subject of an event (the user
 	 * causing a change).
 	 */
-	public static String USER_INFO_UPDATES_USER_SUBJECT_PRIVILEGE = "user_subject_privilege";
+	public static final String USER_INFO_UPDATES_USER_SUBJECT_PRIVILEGE = "user_subject_privilege";
 	public void setUserInfoUpdatesAffectedUser(String userInfoUpdatesAffectedUser) {
 		addPair(USER_INFO_UPDATES_AFFECTED_USER, userInfoUpdatesAffectedUser);
 	}
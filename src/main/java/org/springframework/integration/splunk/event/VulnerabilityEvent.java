@@ -25,28 +25,28 @@ public class VulnerabilityEvent extends SplunkEvent {
 	/**
 	 * The category of the discovered vulnerability.
 	 */
-	public static String VULNERABILITY_CATEGORY = "category";
+	public static final String VULNERABILITY_CATEGORY = "category";
 	/**
 	 * The host with the discovered vulnerability. If your field is named
 	 * dest_host, dest_ip, dest_ipv6, or dest_nt_host you can alias it as dest
 	 * to make it CIM-compliant.
 	 */
-	public static String VULNERABILITY_DEST = "dest";
+	public static final String VULNERABILITY_DEST = "dest";
 	/**
 	 * The operating system of the host containing the vulnerability detected on
 	 * the client (the src field), such as SuSE Security Update, or cups
 	 * security update.
 	 */
-	public static String VULNERABILITY_OS = "os";
+	public static final String VULNERABILITY_OS = "os";
 	/**
 	 * The severity of the discovered vulnerability.
 	 */
-	public static String VULNERABILITY_SEVERITY = "severity";
+	public static final String VULNERABILITY_SEVERITY = "severity";
 	/**
 	 * The name of the vulnerability detected on the client (the src field),
 	 * such as SuSE Security Update, or cups security update.
 	 */
-	public static String VULNERABILITY_SIGNATURE = "signature";
+	public static final String VULNERABILITY_SIGNATURE = "signature";
 
 	public void setVulnerabilityCategory(String vulnerabilityCategory) {
 		addPair(VULNERABILITY_CATEGORY, vulnerabilityCategory);
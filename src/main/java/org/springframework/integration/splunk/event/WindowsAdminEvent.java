@@ -25,15 +25,15 @@ public class WindowsAdminEvent extends SplunkEvent {
 	/**
 	 * The object name (associated only with Windows).
 	 */
-	public static String WINDOWS_ADMIN_OBJECT_NAME = "object_name";
+	public static final String WINDOWS_ADMIN_OBJECT_NAME = "object_name";
 	/**
 	 * The object type (associated only with Windows).
 	 */
-	public static String WINDOWS_ADMIN_OBJECT_TYPE = "object_type";
+	public static final String WINDOWS_ADMIN_OBJECT_TYPE = "object_type";
 	/**
 	 * The object handle (associated only with Windows).
 	 */
-	public static String WINDOWS_ADMIN_OBJECT_HANDLE = "object_handle";
+	public static final String WINDOWS_ADMIN_OBJECT_HANDLE = "object_handle";
 
 	public void setWindowsAdminObjectName(String windowsAdminObjectName) {
 		addPair(WINDOWS_ADMIN_OBJECT_NAME, windowsAdminObjectName);
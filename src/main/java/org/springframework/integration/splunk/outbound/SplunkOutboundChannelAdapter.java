@@ -24,7 +24,9 @@ import org.springframework.util.Assert;
 
 
 /**
- * Handle message and write data into Splunk
+ * Handle message and write data into Splunk. The payload is either a
+ * {@code SplunkEvent} or a {@code Collection<SplunkEvent>}, e.g. the output of an
+ * aggregator, which is written in one operation.
  *
  * @author Jarred Li
  * @since 1.0
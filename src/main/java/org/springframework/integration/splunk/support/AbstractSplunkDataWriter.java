@@ -15,18 +15,42 @@
  */
 package org.springframework.integration.splunk.support;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
 import org.springframework.integration.splunk.core.DataWriter;
+import org.springframework.integration.splunk.core.MessageDataWriter;
 import org.springframework.integration.splunk.core.ServiceFactory;
 import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 
 import com.splunk.Args;
@@ -34,18 +58,67 @@ import com.splunk.Service;
 
 /**
  * Base class for {@link DataWriter}s to write data into Splunk.
+ * <p>
+ * By default every event is written and flushed on its own. When a
+ * {@link #setBatchSize(int) batch size} greater than 1 or a
+ * {@link #setBatchMaxBytes(int) byte limit} is configured, rendered events are
+ * collected and written in one go once either limit is reached, or once the
+ * {@link #setBatchLinger(long) linger} time has elapsed.
+ * <p>
+ * With a positive {@link #setQueueCapacity(int) queue capacity} the writer is
+ * asynchronous: callers only publish events into a bounded lock-free ring buffer
+ * and a single drain thread performs all the I/O. The
+ * {@link #setOverflowPolicy(OverflowPolicy) overflow policy} decides what happens
+ * when the queue is full. Events must not be modified once handed to an
+ * asynchronous writer.
+ * <p>
+ * Events written on their own go through the socket's output stream and are flushed
+ * according to the {@link #setFlushPolicy(FlushPolicy) flush policy}, after every
+ * event by default. Other policies put a buffer under the socket and flush it after
+ * a number of events, when it is full, once the writer is idle, or only every
+ * {@link #setFlushInterval(long) flush interval}; the interval flush also bounds the
+ * delay of the other policies. Batches are always flushed when written, so batching
+ * takes the place of a flush policy. Writers with a transport of their own, such as
+ * the HEC, UDP and NIO writers, ignore the flush policy.
+ * <p>
+ * When a {@link #setSpoolDirectory(File) spool directory} is configured, a failed
+ * write switches the writer to spooling: the failed events and all events written
+ * afterwards are appended to a {@link DiskSpool}. A background task reconnects every
+ * {@link #setSpoolRetryInterval(long) retry interval} and replays the spool in order;
+ * once it is empty, events are written directly again.
+ * <p>
+ * An {@link #setThrottle(AdaptiveThrottle) adaptive throttle} admits events before
+ * they are queued or written, and is told how long every write took and whether it
+ * failed.
+ * <p>
+ * By default {@link #start()} logs in and connects on the calling thread. With a
+ * {@link #setWarmUpExecutor(Executor) warm-up executor} it only hands the connection
+ * to the executor, so that many writers connect in parallel; with
+ * {@link #setLazyConnect(boolean) lazy connect} the first write connects. Writes
+ * wait for a pending connection, or make it themselves if the executor has not got
+ * to it yet.
+ * <p>
+ * Every writer keeps {@link #getMetrics() metrics} of the events and bytes it wrote,
+ * the write latencies, errors, reconnects and queue depths.
+ * <p>
+ * Events are {@link SplunkEvent#release() released} once they have been written,
+ * rendered into a batch or spooled, or dropped; events acquired from a
+ * {@link org.springframework.integration.splunk.event.SplunkEventPool} go back to it.
+ * Events of a failed write are left to the caller.
  *
  * @author Jarred Li
  * @author David Turanski
  * @since 1.0
  *
  */
-public abstract class AbstractSplunkDataWriter implements DataWriter, SmartLifecycle {
+public abstract class AbstractSplunkDataWriter implements MessageDataWriter, SmartLifecycle {
+
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	protected Socket socket;
-	
+
 	protected Service service;
 
 	protected Args args;
@@ -57,49 +130,1080 @@ public abstract class AbstractSplunkDataWriter implements DataWriter, SmartLifec
 	private boolean autoStartup = true;
 
 	private final ServiceFactory serviceFactory;
-	
 
-	 
+	private final Object batchMonitor = new Object();
+
+	private final BatchBuffer batchBuffer = new BatchBuffer();
+
+	private int batchSize = 1;
+
+	private int batchMaxBytes;
+
+	private long batchLinger = 5;
+
+	private int batchCount;
+
+	private ScheduledFuture<?> lingerTask;
+
+	private int queueCapacity;
+
+	private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private volatile MpscRingBuffer<SplunkEvent> queue;
+
+	private volatile Thread drainThread;
+
+	private volatile boolean draining;
+
+	/**
+	 * Number of callers publishing into the queue, waited for by stop()
+	 */
+	private final AtomicInteger enqueuing = new AtomicInteger();
+
+	private volatile boolean drainerParked;
+
+	private File spoolDirectory;
+
+	private int spoolSegmentSize = 64 * 1024 * 1024;
+
+	private long spoolMaxBytes = 1024L * 1024 * 1024;
+
+	private long spoolRetryInterval = 1000;
+
+	private final Object spoolMonitor = new Object();
+
+	private volatile DiskSpool spool;
+
+	private volatile boolean spooling;
+
+	private ScheduledFuture<?> spoolReplayTask;
+
+	private volatile boolean replaying;
+
+	private SplunkMetadataCache metadataCache = SplunkMetadataCache.getSharedInstance();
+
+	private AdaptiveThrottle throttle;
+
+	private final SplunkWriterMetrics metrics = new SplunkWriterMetrics(this);
+
+	private volatile boolean connected;
+
+	private boolean lazyConnect;
+
+	private Executor warmUpExecutor;
+
+	private final Object connectMonitor = new Object();
+
+	private final AtomicReference<FutureTask<Void>> pendingConnection = new AtomicReference<FutureTask<Void>>();
+
+	private int connectGeneration;
+
+	private FlushPolicy flushPolicy = FlushPolicy.EVERY_EVENT;
+
+	private int flushEvents = 100;
+
+	private int flushBytes = 8192;
+
+	private long flushInterval = 1000;
+
+	private final Object streamMonitor = new Object();
+
+	private Socket bufferedSocket;
+
+	private BufferedOutputStream bufferedStream;
+
+	private final AtomicInteger unflushedEvents = new AtomicInteger();
+
+	private final AtomicInteger activeWrites = new AtomicInteger();
+
+	private ScheduledFuture<?> flushTask;
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * The single thread schedulers started for the tasks of this writer when no
+	 * scheduler is set
+	 */
+	private final List<ScheduledExecutorService> ownSchedulers = new ArrayList<ScheduledExecutorService>();
+
+
 	protected AbstractSplunkDataWriter(ServiceFactory serviceFactory, Args args) {
 		Assert.notNull(serviceFactory,"service factory cannot be null");
 		this.serviceFactory = serviceFactory;
-		
+
 		Assert.notNull(args, "args cannot be null");
 		this.args = args;
 	}
 
 	public void write(SplunkEvent event) throws Exception {
+		if (admit(1, 0)) {
+			writeEvent(event);
+		}
+		else {
+			event.release();
+		}
+	}
+
+	/**
+	 * Write the event or events of the message; the message priority is used by a
+	 * {@link #setThrottle(AdaptiveThrottle) throttle} shedding by priority.
+	 * @since 1.2
+	 */
+	@SuppressWarnings("unchecked")
+	public void write(Message<?> message) throws Exception {
+		Integer priority = new IntegrationMessageHeaderAccessor(message).getPriority();
+		Object payload = message.getPayload();
+		if (payload instanceof SplunkEvent) {
+			if (admit(1, priority == null ? 0 : priority)) {
+				writeEvent((SplunkEvent) payload);
+			}
+			else {
+				((SplunkEvent) payload).release();
+			}
+		}
+		else {
+			admitAndWrite((Collection<SplunkEvent>) payload, priority == null ? 0 : priority);
+		}
+	}
+
+	/**
+	 * Let the throttle, if any, admit the events; events it sheds are counted as dropped.
+	 */
+	private boolean admit(int eventCount, int priority) throws InterruptedException {
+		AdaptiveThrottle throttle = this.throttle;
+		if (throttle == null || throttle.acquire(eventCount, priority)) {
+			return true;
+		}
+		this.droppedCount.addAndGet(eventCount);
+		return false;
+	}
+
+	private void writeEvent(SplunkEvent event) throws Exception {
 		if (logger.isDebugEnabled()) {
 			logger.debug("writing event to splunk:" + event);
 		}
-		 
-		doWrite(event, socket, service, args);
+
+		MpscRingBuffer<SplunkEvent> queue = this.queue;
+		if (queue != null) {
+			enqueue(queue, event);
+		}
+		else {
+			writeInternal(event);
+			event.release();
+		}
+	}
+
+	/**
+	 * Write the events in order. Unless batching is enabled, they are rendered into
+	 * a single buffer and written with one {@link #doWriteBatch} call.
+	 * @since 1.2
+	 */
+	public void write(Collection<SplunkEvent> events) throws Exception {
+		admitAndWrite(events, 0);
+	}
+
+	private void admitAndWrite(Collection<SplunkEvent> events, int priority) throws Exception {
+		if (events.isEmpty()) {
+			return;
+		}
+		if (admit(events.size(), priority)) {
+			writeEvents(events);
+		}
+		else {
+			release(events);
+		}
+	}
+
+	private void writeEvents(Collection<SplunkEvent> events) throws Exception {
+		if (logger.isDebugEnabled()) {
+			logger.debug("writing " + events.size() + " events to splunk");
+		}
+
+		MpscRingBuffer<SplunkEvent> queue = this.queue;
+		if (queue != null) {
+			for (SplunkEvent event : events) {
+				enqueue(queue, event);
+			}
+		}
+		else if (isBatching()) {
+			synchronized (this.batchMonitor) {
+				for (SplunkEvent event : events) {
+					addToBatch(event);
+				}
+			}
+			release(events);
+		}
+		else {
+			BatchBuffer buffer = new BatchBuffer();
+			for (SplunkEvent event : events) {
+				render(event, buffer);
+			}
+			writeRendered(buffer.buffer(), buffer.size(), events.size());
+			release(events);
+		}
+	}
+
+	private static void release(Collection<SplunkEvent> events) {
+		for (SplunkEvent event : events) {
+			event.release();
+		}
 	}
 
-   protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
-	 	OutputStream ostream = socket.getOutputStream();
-		Writer writer = new OutputStreamWriter(ostream, "UTF8");
-		writer.write(event.toString());
-		writer.flush();
-   }
+	private void writeInternal(SplunkEvent event) throws IOException {
+		if (isBatching()) {
+			addToBatch(event);
+		}
+		else if (awaitConnection() && (!this.spooling || !spoolIfSpooling(event))) {
+			try {
+				long start = System.nanoTime();
+				doWrite(event, socket, service, args);
+				this.metrics.eventWritten(written(start));
+			}
+			catch (IOException e) {
+				failed();
+				if (this.spool == null) {
+					throw e;
+				}
+				startSpooling(e);
+				spoolIfSpooling(event);
+			}
+		}
+	}
+
+	private long written(long start) {
+		long nanos = System.nanoTime() - start;
+		AdaptiveThrottle throttle = this.throttle;
+		if (throttle != null) {
+			throttle.onWrite(TimeUnit.NANOSECONDS.toMillis(nanos));
+		}
+		return nanos;
+	}
+
+	private void failed() {
+		this.metrics.writeFailed();
+		AdaptiveThrottle throttle = this.throttle;
+		if (throttle != null) {
+			throttle.onFailure();
+		}
+	}
+
+	protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+		OutputStream ostream = stream(socket);
+		this.activeWrites.incrementAndGet();
+		boolean idle;
+		try {
+			this.metrics.addBytesWritten(event.writeTo(ostream));
+		}
+		finally {
+			idle = this.activeWrites.decrementAndGet() == 0;
+		}
+		switch (this.flushPolicy) {
+		case EVERY_EVENT:
+			ostream.flush();
+			break;
+		case EVERY_N_EVENTS:
+			if (this.unflushedEvents.incrementAndGet() >= this.flushEvents) {
+				this.unflushedEvents.set(0);
+				ostream.flush();
+			}
+			break;
+		case ON_IDLE:
+			// the drain thread of an asynchronous writer flushes when the queue is empty
+			if (idle && this.queue == null) {
+				ostream.flush();
+			}
+			break;
+		default:
+			// flushed when the buffer is full or by the interval flush
+		}
+	}
+
+	/**
+	 * Write a batch of already rendered events in a single operation.
+	 * @param batch the buffer holding the UTF-8 encoded events
+	 * @param length the number of valid bytes in the buffer
+	 * @param socket the socket created by {@link #createSocket(Service)}
+	 * @param service the Splunk service
+	 * @param args the event args
+	 * @throws IOException if the batch could not be written
+	 * @since 1.2
+	 */
+	protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+			throws IOException {
+		// through the buffer, if any, so that events written before are sent first
+		OutputStream ostream = stream(socket);
+		ostream.write(batch, 0, length);
+		ostream.flush();
+	}
+
+	/**
+	 * @return the output stream of the socket, buffered unless every event is flushed
+	 */
+	private OutputStream stream(Socket socket) throws IOException {
+		if (this.flushPolicy == FlushPolicy.EVERY_EVENT) {
+			return socket.getOutputStream();
+		}
+		synchronized (this.streamMonitor) {
+			if (this.bufferedSocket != socket) {
+				int size = this.flushPolicy == FlushPolicy.EVERY_N_BYTES ? this.flushBytes : 8192;
+				this.bufferedStream = new BufferedOutputStream(socket.getOutputStream(), size);
+				this.bufferedSocket = socket;
+				this.unflushedEvents.set(0);
+			}
+			return this.bufferedStream;
+		}
+	}
+
+	/**
+	 * Flush the events collected in the buffer under the socket.
+	 */
+	private void flushStream() throws IOException {
+		BufferedOutputStream stream;
+		synchronized (this.streamMonitor) {
+			stream = this.bufferedStream;
+		}
+		if (stream != null) {
+			stream.flush();
+		}
+	}
+
+	private void flushStreamQuietly() {
+		try {
+			flushStream();
+		}
+		catch (IOException e) {
+			failed();
+			logger.error("failed to flush events to splunk, buffered events may be lost", e);
+		}
+	}
 
    protected abstract Socket createSocket(Service service) throws IOException;
 
- 
+
 	public Args getArgs() {
 		return args;
 	}
 
+	/**
+	 * Set the maximum number of events collected before a batch is written.
+	 * Defaults to 1, i.e. no batching.
+	 * @param batchSize the maximum number of events per batch
+	 * @since 1.2
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "batchSize must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the number of buffered bytes after which a batch is written.
+	 * Setting a positive value enables batching. Defaults to 0 (no byte limit).
+	 * @param batchMaxBytes the maximum number of bytes per batch
+	 * @since 1.2
+	 */
+	public void setBatchMaxBytes(int batchMaxBytes) {
+		Assert.isTrue(batchMaxBytes >= 0, "batchMaxBytes must not be negative");
+		this.batchMaxBytes = batchMaxBytes;
+	}
+
+	/**
+	 * Set the maximum time in milliseconds a partial batch may wait before it is
+	 * written. A value of 0 or less disables the timer, in which case partial
+	 * batches are only written when a limit is reached or the writer is stopped.
+	 * Defaults to 5 ms.
+	 * @param batchLinger the linger time in milliseconds
+	 * @since 1.2
+	 */
+	public void setBatchLinger(long batchLinger) {
+		this.batchLinger = batchLinger;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getBatchMaxBytes() {
+		return batchMaxBytes;
+	}
+
+	public long getBatchLinger() {
+		return batchLinger;
+	}
+
+	/**
+	 * Set the capacity of the queue between callers and the I/O thread. A positive
+	 * value makes the writer asynchronous. Defaults to 0 (synchronous writes).
+	 * @param queueCapacity the queue capacity, rounded up to a power of two
+	 * @since 1.2
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity >= 0, "queueCapacity must not be negative");
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Set what an asynchronous writer does when its queue is full.
+	 * Defaults to {@link OverflowPolicy#BLOCK}.
+	 * @param overflowPolicy the overflow policy
+	 * @since 1.2
+	 */
+	public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+		Assert.notNull(overflowPolicy, "overflowPolicy must not be null");
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * @return the number of events discarded by the overflow policy, shed by the
+	 * throttle or discarded because the drain thread failed to write them
+	 * @since 1.2
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * @return the number of events waiting in the queue of an asynchronous writer
+	 * @since 1.2
+	 */
+	public int getQueueSize() {
+		MpscRingBuffer<SplunkEvent> queue = this.queue;
+		return queue == null ? 0 : queue.size();
+	}
+
+	private void enqueue(MpscRingBuffer<SplunkEvent> queue, SplunkEvent event) throws InterruptedException {
+		this.enqueuing.incrementAndGet();
+		try {
+			// once stop() has detached the queue, it may already have been drained for the last time
+			if (this.queue != queue) {
+				throw new RejectedExecutionException("splunk writer is stopped");
+			}
+			offer(queue, event);
+		}
+		finally {
+			this.enqueuing.decrementAndGet();
+		}
+	}
+
+	private void offer(MpscRingBuffer<SplunkEvent> queue, SplunkEvent event) throws InterruptedException {
+		if (!queue.offer(event)) {
+			switch (this.overflowPolicy) {
+			case DROP_NEWEST:
+				this.droppedCount.incrementAndGet();
+				event.release();
+				return;
+			case DROP_OLDEST:
+				do {
+					SplunkEvent dropped = queue.poll();
+					if (dropped != null) {
+						this.droppedCount.incrementAndGet();
+						dropped.release();
+					}
+				}
+				while (!queue.offer(event));
+				break;
+			case FAIL_FAST:
+				throw new RejectedExecutionException("splunk writer queue is full");
+			default:
+				long parkNanos = 1000;
+				while (!queue.offer(event)) {
+					if (Thread.interrupted()) {
+						throw new InterruptedException();
+					}
+					if (this.queue != queue) {
+						throw new RejectedExecutionException("splunk writer was stopped while the queue was full");
+					}
+					LockSupport.parkNanos(this, parkNanos);
+					parkNanos = Math.min(parkNanos << 1, TimeUnit.MILLISECONDS.toNanos(1));
+				}
+			}
+		}
+		if (this.drainerParked) {
+			LockSupport.unpark(this.drainThread);
+		}
+	}
+
+	private void drain(MpscRingBuffer<SplunkEvent> queue) {
+		boolean unflushed = false;
+		while (true) {
+			SplunkEvent event = queue.poll();
+			if (event == null) {
+				if (unflushed && this.flushPolicy == FlushPolicy.ON_IDLE) {
+					flushStreamQuietly();
+				}
+				unflushed = false;
+				if (!this.draining) {
+					return;
+				}
+				this.drainerParked = true;
+				if (queue.isEmpty()) {
+					LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+				}
+				this.drainerParked = false;
+				continue;
+			}
+			try {
+				writeInternal(event);
+				unflushed = true;
+			}
+			catch (Exception e) {
+				this.droppedCount.incrementAndGet();
+				logger.error("failed to write event to splunk, event discarded", e);
+			}
+			event.release();
+		}
+	}
+
+	/**
+	 * Set the directory of the {@link DiskSpool} used while Splunk cannot be
+	 * reached. Each writer needs a directory of its own. Spooling is disabled if
+	 * not set.
+	 * @param spoolDirectory the spool directory
+	 * @since 1.2
+	 */
+	public void setSpoolDirectory(File spoolDirectory) {
+		this.spoolDirectory = spoolDirectory;
+	}
+
+	/**
+	 * @param spoolSegmentSize the size of a spool segment file in bytes, 64 MB by default
+	 * @since 1.2
+	 */
+	public void setSpoolSegmentSize(int spoolSegmentSize) {
+		this.spoolSegmentSize = spoolSegmentSize;
+	}
+
+	/**
+	 * @param spoolMaxBytes the maximum size of the spool in bytes, 1 GB by default;
+	 * events are discarded once the spool is full
+	 * @since 1.2
+	 */
+	public void setSpoolMaxBytes(long spoolMaxBytes) {
+		this.spoolMaxBytes = spoolMaxBytes;
+	}
+
+	/**
+	 * @param spoolRetryInterval the time in milliseconds between attempts to
+	 * reconnect and replay the spool, 1000 by default
+	 * @since 1.2
+	 */
+	public void setSpoolRetryInterval(long spoolRetryInterval) {
+		Assert.isTrue(spoolRetryInterval > 0, "spoolRetryInterval must be greater than 0");
+		this.spoolRetryInterval = spoolRetryInterval;
+	}
+
+	public File getSpoolDirectory() {
+		return spoolDirectory;
+	}
+
+	public int getSpoolSegmentSize() {
+		return spoolSegmentSize;
+	}
+
+	public long getSpoolMaxBytes() {
+		return spoolMaxBytes;
+	}
+
+	public long getSpoolRetryInterval() {
+		return spoolRetryInterval;
+	}
+
+	/**
+	 * @param metadataCache the cache of indexes and inputs, the
+	 * {@link SplunkMetadataCache#getSharedInstance() shared instance} by default
+	 * @since 1.2
+	 */
+	public void setMetadataCache(SplunkMetadataCache metadataCache) {
+		Assert.notNull(metadataCache, "metadataCache must not be null");
+		this.metadataCache = metadataCache;
+	}
+
+	public SplunkMetadataCache getMetadataCache() {
+		return metadataCache;
+	}
+
+	/**
+	 * Limit the rate of writes, adapting it to the write latency and failures.
+	 * @param throttle the throttle, possibly shared with other writers; none by default
+	 * @since 1.2
+	 */
+	public void setThrottle(AdaptiveThrottle throttle) {
+		this.throttle = throttle;
+	}
+
+	public AdaptiveThrottle getThrottle() {
+		return throttle;
+	}
+
+	/**
+	 * Connect on the first write rather than in {@link #start()}. A failed connection
+	 * fails that write and is retried by the next one. Defaults to false.
+	 * @param lazyConnect true to connect on the first write
+	 * @since 1.2
+	 */
+	public void setLazyConnect(boolean lazyConnect) {
+		this.lazyConnect = lazyConnect;
+	}
+
+	public boolean isLazyConnect() {
+		return lazyConnect;
+	}
+
+	/**
+	 * Connect on this executor so that {@link #start()} returns at once. Sharing a
+	 * bounded executor between writers connects them in parallel without opening
+	 * more connections at a time than it has threads. Ignored with
+	 * {@link #setLazyConnect(boolean) lazy connect}; none by default.
+	 * @param warmUpExecutor the executor
+	 * @since 1.2
+	 */
+	public void setWarmUpExecutor(Executor warmUpExecutor) {
+		this.warmUpExecutor = warmUpExecutor;
+	}
+
+	public Executor getWarmUpExecutor() {
+		return warmUpExecutor;
+	}
+
+	/**
+	 * Run the batch linger, stream flush and spool replay tasks on this scheduler
+	 * instead of a daemon thread per task, so that many writers share a few threads.
+	 * The scheduler is not shut down by the writer. Queued writers keep a drain
+	 * thread of their own.
+	 * @param scheduler the scheduler, possibly shared with other writers; none by default
+	 * @since 1.2
+	 */
+	public void setScheduler(ScheduledExecutorService scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	public ScheduledExecutorService getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * Set when events written on their own are flushed to the socket. Defaults to
+	 * {@link FlushPolicy#EVERY_EVENT}.
+	 * @param flushPolicy the flush policy
+	 * @since 1.2
+	 */
+	public void setFlushPolicy(FlushPolicy flushPolicy) {
+		Assert.notNull(flushPolicy, "flushPolicy must not be null");
+		this.flushPolicy = flushPolicy;
+	}
+
+	public FlushPolicy getFlushPolicy() {
+		return flushPolicy;
+	}
+
+	/**
+	 * @param flushEvents the number of events after which
+	 * {@link FlushPolicy#EVERY_N_EVENTS} flushes, 100 by default
+	 * @since 1.2
+	 */
+	public void setFlushEvents(int flushEvents) {
+		Assert.isTrue(flushEvents > 0, "flushEvents must be greater than 0");
+		this.flushEvents = flushEvents;
+	}
+
+	public int getFlushEvents() {
+		return flushEvents;
+	}
+
+	/**
+	 * @param flushBytes the size of the buffer {@link FlushPolicy#EVERY_N_BYTES}
+	 * flushes when full, 8192 by default
+	 * @since 1.2
+	 */
+	public void setFlushBytes(int flushBytes) {
+		Assert.isTrue(flushBytes > 0, "flushBytes must be greater than 0");
+		this.flushBytes = flushBytes;
+	}
+
+	public int getFlushBytes() {
+		return flushBytes;
+	}
+
+	/**
+	 * @param flushInterval the time in ms between flushes of the buffer under the
+	 * socket, for all policies but {@link FlushPolicy#EVERY_EVENT}; 1000 by default
+	 * @since 1.2
+	 */
+	public void setFlushInterval(long flushInterval) {
+		Assert.isTrue(flushInterval > 0, "flushInterval must be greater than 0");
+		this.flushInterval = flushInterval;
+	}
+
+	public long getFlushInterval() {
+		return flushInterval;
+	}
+
+	/**
+	 * @return the metrics of this writer; subclasses overriding {@link #doWrite}
+	 * report the bytes they write to it
+	 * @since 1.2
+	 */
+	public SplunkWriterMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Describe this writer in the tags of its {@link #getMetrics() metrics}: the
+	 * simple class name as {@code type} and the host of the Splunk server as
+	 * {@code host}. Subclasses writing to a particular index add it as {@code index}.
+	 * @param tags the tags to add to
+	 * @since 1.2
+	 */
+	protected void addMetricsTags(Map<String, String> tags) {
+		tags.put("type", getClass().getSimpleName());
+		if (this.service != null && this.service.getHost() != null) {
+			tags.put("host", this.service.getHost());
+		}
+	}
+
+	int getPendingBatchSize() {
+		return this.batchCount;
+	}
+
+	/**
+	 * Connect, or start spooling if the connection fails and a spool is configured.
+	 */
+	private void open() throws Exception {
+		try {
+			socket = connect();
+		}
+		catch (Exception e) {
+			if (this.spool == null) {
+				throw e;
+			}
+			startSpooling(e instanceof IOException ? (IOException) e : new IOException(e));
+		}
+	}
+
+	private FutureTask<Void> newConnection() {
+		final int generation = this.connectGeneration;
+		return new FutureTask<Void>(new Callable<Void>() {
+
+			public Void call() throws Exception {
+				synchronized (connectMonitor) {
+					// not if the writer was stopped in the meantime
+					if (generation == connectGeneration) {
+						open();
+					}
+				}
+				return null;
+			}
+
+		});
+	}
+
+	/**
+	 * Wait for a pending connection, making it on this thread if nobody else has
+	 * started it.
+	 * @return true, for use in conditions
+	 * @throws IOException if the connection failed; the next write tries again
+	 */
+	private boolean awaitConnection() throws IOException {
+		FutureTask<Void> connection = this.pendingConnection.get();
+		if (connection == null) {
+			return true;
+		}
+		connection.run();
+		try {
+			connection.get();
+			this.pendingConnection.compareAndSet(connection, null);
+			return true;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while connecting to splunk");
+		}
+		catch (ExecutionException e) {
+			synchronized (this.connectMonitor) {
+				if (this.pendingConnection.get() == connection) {
+					this.pendingConnection.set(newConnection());
+				}
+			}
+			Throwable cause = e.getCause();
+			throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+		}
+	}
+
+	private Socket connect() throws Exception {
+		if (isServiceRequired()) {
+			service = serviceFactory.getService();
+		}
+		Socket socket = createSocket(service);
+		if (this.connected) {
+			this.metrics.reconnected();
+		}
+		this.connected = true;
+		return socket;
+	}
+
+	/**
+	 * @return true while events are diverted to the spool
+	 * @since 1.2
+	 */
+	public boolean isSpooling() {
+		return this.spooling;
+	}
+
+	private void startSpooling(IOException cause) {
+		synchronized (this.spoolMonitor) {
+			if (!this.spooling) {
+				logger.warn("failed to write to splunk, spooling events to " + this.spoolDirectory, cause);
+				this.spooling = true;
+			}
+		}
+	}
+
+	private boolean spoolIfSpooling(SplunkEvent event) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		render(event, out);
+		return spoolIfSpooling(out.toByteArray(), out.size(), 1);
+	}
+
+	private boolean spoolIfSpooling(byte[] data, int length, int eventCount) throws IOException {
+		synchronized (this.spoolMonitor) {
+			if (!this.spooling) {
+				return false;
+			}
+			if (!this.spool.append(data, 0, length)) {
+				this.droppedCount.addAndGet(eventCount);
+				if (logger.isWarnEnabled()) {
+					logger.warn(String.format("spool %s is full, %d event(s) discarded", this.spoolDirectory,
+							eventCount));
+				}
+			}
+			return true;
+		}
+	}
+
+	private void replaySpool() {
+		if (!this.spooling) {
+			return;
+		}
+		this.replaying = true;
+		try {
+			if (socket != null) {
+				try {
+					socket.close();
+				}
+				catch (IOException e) {
+					// already broken
+				}
+			}
+			socket = connect();
+			while (true) {
+				byte[] record = this.spool.peek();
+				if (record == null) {
+					synchronized (this.spoolMonitor) {
+						if (this.spool.isEmpty()) {
+							this.spooling = false;
+							logger.info("spool replayed, writing to splunk directly");
+							return;
+						}
+					}
+					continue;
+				}
+				doWriteBatch(record, record.length, socket, service, args);
+				this.spool.commit();
+			}
+		}
+		catch (Exception e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("splunk still unavailable, " + this.spool.getPendingBytes() + " bytes spooled", e);
+			}
+		}
+		finally {
+			this.replaying = false;
+		}
+	}
+
+	protected boolean isBatching() {
+		return this.batchSize > 1 || this.batchMaxBytes > 0;
+	}
+
+	/**
+	 * Render a single event into the batch buffer. Subclasses may override to
+	 * change the wire format of batched events.
+	 * @param event the event
+	 * @param out the stream to render to
+	 * @throws IOException if the event could not be rendered
+	 * @since 1.2
+	 */
+	protected void render(SplunkEvent event, OutputStream out) throws IOException {
+		event.writeTo(out);
+	}
+
+	/**
+	 * Whether {@link #start()} needs to obtain a {@link Service} from the
+	 * {@link ServiceFactory}. Writers that do not talk to the management port
+	 * return {@code false} to avoid the login round trip.
+	 * @return true if a service is required
+	 * @since 1.2
+	 */
+	protected boolean isServiceRequired() {
+		return true;
+	}
+
+	private void addToBatch(SplunkEvent event) throws IOException {
+		synchronized (this.batchMonitor) {
+			render(event, this.batchBuffer);
+			this.batchCount++;
+			if (this.batchCount >= this.batchSize
+					|| (this.batchMaxBytes > 0 && this.batchBuffer.size() >= this.batchMaxBytes)) {
+				flushBatch();
+			}
+		}
+	}
+
+	/**
+	 * Write out any events collected so far, in the batch or in the buffer under the
+	 * socket.
+	 * @throws IOException if the events could not be written
+	 * @since 1.2
+	 */
+	public void flush() throws IOException {
+		synchronized (this.batchMonitor) {
+			flushBatch();
+		}
+		flushStream();
+	}
+
+	private void flushBatch() throws IOException {
+		if (this.batchCount == 0) {
+			return;
+		}
+		try {
+			writeRendered(this.batchBuffer.buffer(), this.batchBuffer.size(), this.batchCount);
+		}
+		finally {
+			this.batchBuffer.reset();
+			this.batchCount = 0;
+		}
+	}
+
+	private void writeRendered(byte[] data, int length, int eventCount) throws IOException {
+		if (awaitConnection() && (!this.spooling || !spoolIfSpooling(data, length, eventCount))) {
+			try {
+				long start = System.nanoTime();
+				doWriteBatch(data, length, socket, service, args);
+				this.metrics.batchWritten(eventCount, length, written(start));
+			}
+			catch (IOException e) {
+				failed();
+				if (this.spool == null) {
+					throw e;
+				}
+				startSpooling(e);
+				spoolIfSpooling(data, length, eventCount);
+			}
+		}
+	}
+
+	/**
+	 * Run the task every interval on the {@link #setScheduler scheduler}, or on a
+	 * daemon thread of its own.
+	 */
+	private ScheduledFuture<?> schedule(String threadNamePrefix, Runnable task, long interval) {
+		ScheduledExecutorService scheduler = this.scheduler;
+		if (scheduler == null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+			threadFactory.setDaemon(true);
+			scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+			this.ownSchedulers.add(scheduler);
+		}
+		return scheduler.scheduleWithFixedDelay(task, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
 	/* (non-Javadoc)
 	 * @see org.springframework.context.Lifecycle#start()
 	 */
 	public synchronized void start() {
-		try {
-			service = serviceFactory.getService();
-			socket = createSocket(service);
-		 
-		} catch (Exception e) {
-			throw new RuntimeException(e);
+		if (this.spoolDirectory != null) {
+			try {
+				this.spool = new DiskSpool(this.spoolDirectory, this.spoolSegmentSize, this.spoolMaxBytes);
+			}
+			catch (IOException e) {
+				throw new IllegalStateException("cannot open spool " + this.spoolDirectory, e);
+			}
+			this.spooling = !this.spool.isEmpty();
+			this.spoolReplayTask = schedule("splunk-spool-", new Runnable() {
+
+				public void run() {
+					replaySpool();
+				}
+
+			}, this.spoolRetryInterval);
+		}
+		if (!this.spooling) {
+			if (this.lazyConnect || this.warmUpExecutor != null) {
+				FutureTask<Void> connection;
+				synchronized (this.connectMonitor) {
+					connection = newConnection();
+					this.pendingConnection.set(connection);
+				}
+				if (!this.lazyConnect) {
+					this.warmUpExecutor.execute(connection);
+				}
+			}
+			else {
+				try {
+					open();
+				}
+				catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		if (isBatching() && this.batchLinger > 0) {
+			this.lingerTask = schedule("splunk-batch-", new Runnable() {
+
+				public void run() {
+					try {
+						flush();
+					}
+					catch (Exception e) {
+						logger.error("failed to write batch to splunk, events discarded", e);
+					}
+				}
+
+			}, this.batchLinger);
+		}
+		if (this.flushPolicy != FlushPolicy.EVERY_EVENT) {
+			this.flushTask = schedule("splunk-flush-", new Runnable() {
+
+				public void run() {
+					flushStreamQuietly();
+				}
+
+			}, this.flushInterval);
+		}
+		if (this.queueCapacity > 0) {
+			final MpscRingBuffer<SplunkEvent> queue = new MpscRingBuffer<SplunkEvent>(this.queueCapacity);
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("splunk-writer-");
+			threadFactory.setDaemon(true);
+			this.draining = true;
+			this.drainThread = threadFactory.newThread(new Runnable() {
+
+				public void run() {
+					drain(queue);
+				}
+
+			});
+			this.queue = queue;
+			this.drainThread.start();
 		}
 		this.running = true;
 	}
@@ -111,15 +1215,87 @@ public abstract class AbstractSplunkDataWriter implements DataWriter, SmartLifec
 		if (!running) {
 			return;
 		}
+		MpscRingBuffer<SplunkEvent> queue = this.queue;
+		if (queue != null) {
+			// stop accepting events and let the drain thread write out what is queued
+			this.queue = null;
+			this.draining = false;
+			LockSupport.unpark(this.drainThread);
+			try {
+				this.drainThread.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.drainThread = null;
+			// callers that saw the queue before it was detached either publish or are rejected
+			while (this.enqueuing.get() > 0) {
+				LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+			}
+			// pick up events published while the drain thread was finishing
+			drain(queue);
+		}
+		if (this.lingerTask != null) {
+			this.lingerTask.cancel(false);
+			this.lingerTask = null;
+		}
+		if (this.flushTask != null) {
+			this.flushTask.cancel(false);
+			this.flushTask = null;
+		}
+		if (this.spoolReplayTask != null) {
+			this.spoolReplayTask.cancel(false);
+			this.spoolReplayTask = null;
+			// give a replay in progress the retry interval to finish
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.spoolRetryInterval);
+			while (this.replaying && System.nanoTime() < deadline) {
+				LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+			}
+		}
+		for (ScheduledExecutorService ownScheduler : this.ownSchedulers) {
+			ownScheduler.shutdown();
+		}
+		this.ownSchedulers.clear();
+		Exception failure = null;
+		try {
+			flush();
+		}
+		catch (Exception e) {
+			failure = e;
+		}
+		synchronized (this.streamMonitor) {
+			this.bufferedStream = null;
+			this.bufferedSocket = null;
+		}
+		synchronized (this.connectMonitor) {
+			// waits for a connection in progress; one not started yet will not connect
+			this.connectGeneration++;
+			this.pendingConnection.set(null);
+		}
+		// release the connection and the spool even if the last batch could not be written
 		try {
 			if (socket != null) {
 				socket.close();
 			}
-		} catch (Exception e) {
-			throw new RuntimeException(e);
 		}
-		
+		catch (IOException e) {
+			failure = failure == null ? e : failure;
+		}
+		if (this.spool != null) {
+			try {
+				this.spool.close();
+			}
+			catch (IOException e) {
+				failure = failure == null ? e : failure;
+			}
+			this.spool = null;
+			this.spooling = false;
+		}
+
 		this.running = false;
+		if (failure != null) {
+			throw new RuntimeException(failure);
+		}
 	}
 
 	/* (non-Javadoc)
@@ -135,7 +1311,7 @@ public abstract class AbstractSplunkDataWriter implements DataWriter, SmartLifec
 	public int getPhase() {
 		return this.phase;
 	}
-	
+
 	public void setPhase(int phase) {
 		this.phase = phase;
 	}
@@ -146,9 +1322,9 @@ public abstract class AbstractSplunkDataWriter implements DataWriter, SmartLifec
 	public boolean isAutoStartup() {
 		return this.autoStartup;
 	}
-	
+
 	public void setAutoStartup(boolean autoStartup) {
-		this.autoStartup = autoStartup; 
+		this.autoStartup = autoStartup;
 	}
 
 	/* (non-Javadoc)
@@ -158,4 +1334,20 @@ public abstract class AbstractSplunkDataWriter implements DataWriter, SmartLifec
 		this.stop();
 		callback.run();
 	}
+
+	/**
+	 * A {@link ByteArrayOutputStream} exposing its internal buffer so that a batch
+	 * can be handed to the socket without copying.
+	 */
+	private static class BatchBuffer extends ByteArrayOutputStream {
+
+		BatchBuffer() {
+			super(8192);
+		}
+
+		byte[] buffer() {
+			return this.buf;
+		}
+
+	}
 }
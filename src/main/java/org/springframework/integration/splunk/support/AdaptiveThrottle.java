@@ -0,0 +1,306 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * Limits the rate at which events are written, adapting the rate to how fast Splunk
+ * takes them.
+ * <p>
+ * Events are admitted by a token bucket holding up to one second worth of tokens.
+ * Its rate follows an additive-increase/multiplicative-decrease scheme: a write
+ * slower than the {@link #setLatencyThreshold(long) latency threshold} or a failed
+ * write, such as an HEC request rejected with 503 while the indexer queues are full,
+ * cuts the rate by the {@link #setDecreaseFactor(double) decrease factor}; while
+ * writes are fast, the rate grows by the {@link #setAdditiveIncrease(double) additive
+ * increase} up to the {@link #setMaxRate(double) maximum rate}. The rate changes at
+ * most once per {@link #setAdjustInterval(long) adjust interval} in either direction.
+ * <p>
+ * The {@link ThrottlePolicy} decides what happens to events beyond the rate. A
+ * throttle can be shared by several writers, which then share its rate.
+ *
+ * @since 1.2
+ */
+public class AdaptiveThrottle {
+
+	public static final double DEFAULT_MAX_RATE = 10000;
+
+	public static final double DEFAULT_MIN_RATE = 10;
+
+	public static final double DEFAULT_ADDITIVE_INCREASE = 100;
+
+	public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+
+	public static final long DEFAULT_LATENCY_THRESHOLD = 500;
+
+	public static final long DEFAULT_ADJUST_INTERVAL = 1000;
+
+	public static final long DEFAULT_MAX_WAIT = 5000;
+
+	private static final Log logger = LogFactory.getLog(AdaptiveThrottle.class);
+
+	private final AtomicLong shedCount = new AtomicLong();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private ThrottlePolicy policy = ThrottlePolicy.SHAPE;
+
+	private double maxRate = DEFAULT_MAX_RATE;
+
+	private double minRate = DEFAULT_MIN_RATE;
+
+	private double additiveIncrease = DEFAULT_ADDITIVE_INCREASE;
+
+	private double decreaseFactor = DEFAULT_DECREASE_FACTOR;
+
+	private long latencyThreshold = DEFAULT_LATENCY_THRESHOLD;
+
+	private long adjustInterval = DEFAULT_ADJUST_INTERVAL;
+
+	private long maxWait = DEFAULT_MAX_WAIT;
+
+	private int priorityThreshold = 1;
+
+	/**
+	 * The current rate in events per second, guarded by this.
+	 */
+	private volatile double rate = DEFAULT_MAX_RATE;
+
+	private double tokens = DEFAULT_MAX_RATE;
+
+	private long refilledAt = System.nanoTime();
+
+	private long adjustedAt;
+
+	/**
+	 * Take tokens for events, applying the policy if there are not enough.
+	 * @param permits the number of events
+	 * @param priority the priority of the message carrying them
+	 * @return false if the events are to be discarded
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws RejectedExecutionException if the events are rejected, or could not be
+	 * admitted within the maximum wait
+	 */
+	public boolean acquire(int permits, int priority) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maxWait);
+		while (true) {
+			long waitNanos;
+			synchronized (this) {
+				refill(System.nanoTime());
+				// more events than the bucket holds go once it is full, leaving it in debt
+				double needed = Math.min(permits, capacity());
+				if (this.tokens >= needed) {
+					this.tokens -= permits;
+					return true;
+				}
+				if (this.policy == ThrottlePolicy.FAIL_FAST) {
+					this.rejectedCount.addAndGet(permits);
+					throw new RejectedExecutionException("splunk write rate of " + (long) this.rate
+							+ " events/s exceeded");
+				}
+				if (this.policy == ThrottlePolicy.SHED && priority < this.priorityThreshold) {
+					this.shedCount.addAndGet(permits);
+					return false;
+				}
+				waitNanos = (long) ((needed - this.tokens) / this.rate * TimeUnit.SECONDS.toNanos(1));
+			}
+			long now = System.nanoTime();
+			if (now - deadline >= 0) {
+				this.rejectedCount.addAndGet(permits);
+				throw new RejectedExecutionException("splunk write rate of " + (long) this.rate
+						+ " events/s exceeded for " + this.maxWait + " ms");
+			}
+			TimeUnit.NANOSECONDS.sleep(Math.max(Math.min(waitNanos, deadline - now), 1000));
+		}
+	}
+
+	private void refill(long now) {
+		double elapsed = (now - this.refilledAt) / (double) TimeUnit.SECONDS.toNanos(1);
+		this.tokens = Math.min(capacity(), this.tokens + elapsed * this.rate);
+		this.refilledAt = now;
+	}
+
+	private double capacity() {
+		return Math.max(1, this.rate);
+	}
+
+	/**
+	 * Report a completed write.
+	 * @param latency the time in ms the write took
+	 */
+	public void onWrite(long latency) {
+		if (latency > this.latencyThreshold) {
+			decrease("write took " + latency + " ms");
+		}
+		else if (this.rate < this.maxRate) {
+			increase();
+		}
+	}
+
+	/**
+	 * Report a failed write.
+	 */
+	public void onFailure() {
+		decrease("write failed");
+	}
+
+	private synchronized void decrease(String reason) {
+		long now = System.currentTimeMillis();
+		if (now - this.adjustedAt < this.adjustInterval || this.rate <= this.minRate) {
+			return;
+		}
+		refill(System.nanoTime());
+		this.rate = Math.max(this.minRate, this.rate * this.decreaseFactor);
+		this.tokens = Math.min(this.tokens, capacity());
+		this.adjustedAt = now;
+		if (logger.isInfoEnabled()) {
+			logger.info(String.format("%s, reducing the splunk write rate to %.0f events/s", reason, this.rate));
+		}
+	}
+
+	private synchronized void increase() {
+		long now = System.currentTimeMillis();
+		if (now - this.adjustedAt < this.adjustInterval || this.rate >= this.maxRate) {
+			return;
+		}
+		refill(System.nanoTime());
+		this.rate = Math.min(this.maxRate, this.rate + this.additiveIncrease);
+		this.adjustedAt = now;
+		if (logger.isDebugEnabled()) {
+			logger.debug(String.format("raising the splunk write rate to %.0f events/s", this.rate));
+		}
+	}
+
+	/**
+	 * @return the current rate in events per second
+	 */
+	public double getRate() {
+		return this.rate;
+	}
+
+	/**
+	 * @return the number of events discarded by the {@link ThrottlePolicy#SHED} policy
+	 */
+	public long getShedCount() {
+		return this.shedCount.get();
+	}
+
+	/**
+	 * @return the number of events rejected with an exception
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	/**
+	 * @param policy what to do with events beyond the rate, {@link ThrottlePolicy#SHAPE} by default
+	 */
+	public void setPolicy(ThrottlePolicy policy) {
+		Assert.notNull(policy, "policy must not be null");
+		this.policy = policy;
+	}
+
+	public ThrottlePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * @param maxRate the initial and highest rate in events per second,
+	 * {@value #DEFAULT_MAX_RATE} by default
+	 */
+	public synchronized void setMaxRate(double maxRate) {
+		Assert.isTrue(maxRate > 0, "maxRate must be greater than 0");
+		this.maxRate = maxRate;
+		this.rate = maxRate;
+		this.tokens = capacity();
+	}
+
+	public double getMaxRate() {
+		return maxRate;
+	}
+
+	/**
+	 * @param minRate the lowest rate in events per second, {@value #DEFAULT_MIN_RATE} by default
+	 */
+	public void setMinRate(double minRate) {
+		Assert.isTrue(minRate > 0, "minRate must be greater than 0");
+		this.minRate = minRate;
+	}
+
+	public double getMinRate() {
+		return minRate;
+	}
+
+	/**
+	 * @param additiveIncrease the events per second added to the rate after an adjust
+	 * interval of fast writes, {@value #DEFAULT_ADDITIVE_INCREASE} by default
+	 */
+	public void setAdditiveIncrease(double additiveIncrease) {
+		Assert.isTrue(additiveIncrease > 0, "additiveIncrease must be greater than 0");
+		this.additiveIncrease = additiveIncrease;
+	}
+
+	/**
+	 * @param decreaseFactor the factor the rate is multiplied with on congestion,
+	 * {@value #DEFAULT_DECREASE_FACTOR} by default
+	 */
+	public void setDecreaseFactor(double decreaseFactor) {
+		Assert.isTrue(decreaseFactor > 0 && decreaseFactor < 1, "decreaseFactor must be between 0 and 1");
+		this.decreaseFactor = decreaseFactor;
+	}
+
+	/**
+	 * @param latencyThreshold the time in ms above which a write counts as congestion,
+	 * {@value #DEFAULT_LATENCY_THRESHOLD} by default
+	 */
+	public void setLatencyThreshold(long latencyThreshold) {
+		this.latencyThreshold = latencyThreshold;
+	}
+
+	/**
+	 * @param adjustInterval the minimum time in ms between two rate changes,
+	 * {@value #DEFAULT_ADJUST_INTERVAL} by default
+	 */
+	public void setAdjustInterval(long adjustInterval) {
+		this.adjustInterval = adjustInterval;
+	}
+
+	/**
+	 * @param maxWait the time in ms {@link ThrottlePolicy#SHAPE} delays a caller at most
+	 * before rejecting its events, {@value #DEFAULT_MAX_WAIT} by default
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * @param priorityThreshold the lowest message priority {@link ThrottlePolicy#SHED}
+	 * does not discard, 1 by default; messages without a priority have priority 0
+	 */
+	public void setPriorityThreshold(int priorityThreshold) {
+		this.priorityThreshold = priorityThreshold;
+	}
+
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * A segmented, memory-mapped write-ahead log holding rendered events while Splunk
+ * cannot be reached.
+ * <p>
+ * Records are appended to fixed-size segment files as a 4 byte length followed by
+ * the payload. The payload is written before its length, so a record interrupted
+ * by a crash reads as the end of the log. The read position is kept in a separate
+ * mapped offset file and only advanced by {@link #commit()}, after the record has
+ * been delivered: after a crash, records are replayed at least once. Segments are
+ * deleted once they have been read completely.
+ * <p>
+ * Spooled data lives in the page cache, not on the heap. The total size of the
+ * segment files is capped; {@link #append(byte[], int, int)} refuses records once
+ * the cap is reached.
+ *
+ * @since 1.2
+ */
+public class DiskSpool implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(DiskSpool.class);
+
+	private static final String SEGMENT_SUFFIX = ".spool";
+
+	private static final String OFFSET_FILE = "spool.offset";
+
+	private static final int HEADER_LENGTH = 4;
+
+	private final File directory;
+
+	private final int segmentSize;
+
+	private final long maxBytes;
+
+	private final LinkedList<Segment> segments = new LinkedList<Segment>();
+
+	private final MappedByteBuffer offset;
+
+	private final RandomAccessFile offsetFile;
+
+	private long pendingBytes;
+
+	private long allocatedBytes;
+
+	private int peekedLength = -1;
+
+	/**
+	 * Open the spool in the given directory, recovering any records left over from
+	 * a previous run.
+	 * @param directory the directory holding the segment files
+	 * @param segmentSize the size of a segment file in bytes
+	 * @param maxBytes the maximum total size of all segment files
+	 * @throws IOException if the spool cannot be opened
+	 */
+	public DiskSpool(File directory, int segmentSize, long maxBytes) throws IOException {
+		Assert.notNull(directory, "directory must not be null");
+		Assert.isTrue(segmentSize > HEADER_LENGTH, "segmentSize is too small");
+		Assert.isTrue(maxBytes >= segmentSize, "maxBytes must not be smaller than segmentSize");
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("cannot create spool directory " + directory);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.maxBytes = maxBytes;
+		this.offsetFile = new RandomAccessFile(new File(directory, OFFSET_FILE), "rw");
+		this.offset = this.offsetFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 12);
+		recover();
+	}
+
+	private void recover() throws IOException {
+		File[] files = this.directory.listFiles(new FilenameFilter() {
+
+			public boolean accept(File dir, String name) {
+				return name.endsWith(SEGMENT_SUFFIX);
+			}
+
+		});
+		Arrays.sort(files);
+		long readSegment = this.offset.getLong(0);
+		int readPosition = this.offset.getInt(8);
+		for (File file : files) {
+			long id = Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length()));
+			if (id < readSegment) {
+				// fully delivered before a crash, but not yet deleted
+				deleteFile(file);
+				continue;
+			}
+			Segment segment = new Segment(id, file, (int) file.length());
+			segment.writePosition = segment.scan();
+			if (id == readSegment) {
+				segment.readPosition = Math.min(readPosition, segment.writePosition);
+			}
+			this.segments.add(segment);
+			this.allocatedBytes += segment.capacity;
+			this.pendingBytes += segment.writePosition - segment.readPosition;
+		}
+		if (!this.segments.isEmpty()) {
+			storeOffset(this.segments.getFirst());
+			if (logger.isInfoEnabled() && this.pendingBytes > 0) {
+				logger.info(String.format("recovered %d spooled bytes from %s", this.pendingBytes, this.directory));
+			}
+		}
+	}
+
+	/**
+	 * Append a record.
+	 * @param data the buffer holding the record
+	 * @param offset the start of the record in the buffer
+	 * @param length the length of the record
+	 * @return false if the spool is full
+	 * @throws IOException if a new segment cannot be created
+	 */
+	public synchronized boolean append(byte[] data, int offset, int length) throws IOException {
+		Assert.isTrue(length > 0, "cannot spool empty records");
+		Segment segment = this.segments.isEmpty() ? null : this.segments.getLast();
+		if (segment == null || segment.capacity - segment.writePosition < HEADER_LENGTH + length) {
+			segment = rollOver(HEADER_LENGTH + length);
+			if (segment == null) {
+				return false;
+			}
+		}
+		int position = segment.writePosition;
+		segment.buffer.position(position + HEADER_LENGTH);
+		segment.buffer.put(data, offset, length);
+		int next = position + HEADER_LENGTH + length;
+		if (segment.capacity - next >= HEADER_LENGTH) {
+			// terminate the log, so that leftovers of a torn record are never read
+			segment.buffer.putInt(next, 0);
+		}
+		// the length goes last: a record without length marks the end of the log
+		segment.buffer.putInt(position, length);
+		segment.writePosition = next;
+		this.pendingBytes += HEADER_LENGTH + length;
+		return true;
+	}
+
+	private Segment rollOver(int recordLength) throws IOException {
+		int capacity = Math.max(this.segmentSize, recordLength + HEADER_LENGTH);
+		if (this.allocatedBytes + capacity > this.maxBytes) {
+			return null;
+		}
+		if (!this.segments.isEmpty()) {
+			this.segments.getLast().buffer.force();
+		}
+		long id = this.segments.isEmpty() ? this.offset.getLong(0) + 1 : this.segments.getLast().id + 1;
+		File file = new File(this.directory, String.format("%020d%s", id, SEGMENT_SUFFIX));
+		Segment segment = new Segment(id, file, capacity);
+		this.segments.add(segment);
+		this.allocatedBytes += capacity;
+		if (this.segments.size() == 1) {
+			storeOffset(segment);
+		}
+		return segment;
+	}
+
+	/**
+	 * Return the oldest record without removing it; call {@link #commit()} once it
+	 * has been delivered.
+	 * @return a copy of the record, or null if the spool is empty
+	 */
+	public synchronized byte[] peek() {
+		Segment segment = firstReadableSegment();
+		if (segment == null) {
+			return null;
+		}
+		int length = segment.buffer.getInt(segment.readPosition);
+		byte[] record = new byte[length];
+		segment.buffer.position(segment.readPosition + HEADER_LENGTH);
+		segment.buffer.get(record);
+		this.peekedLength = length;
+		return record;
+	}
+
+	/**
+	 * Remove the record returned by the last {@link #peek()} and persist the new
+	 * read position.
+	 */
+	public synchronized void commit() {
+		Assert.state(this.peekedLength >= 0, "no record to commit");
+		Segment segment = firstReadableSegment();
+		segment.readPosition += HEADER_LENGTH + this.peekedLength;
+		this.pendingBytes -= HEADER_LENGTH + this.peekedLength;
+		this.peekedLength = -1;
+		storeOffset(segment);
+	}
+
+	private Segment firstReadableSegment() {
+		while (!this.segments.isEmpty()) {
+			Segment segment = this.segments.getFirst();
+			if (segment.readPosition < segment.writePosition) {
+				return segment;
+			}
+			if (this.segments.size() == 1) {
+				return null;
+			}
+			// fully read and no longer written to
+			this.segments.removeFirst();
+			this.allocatedBytes -= segment.capacity;
+			storeOffset(this.segments.getFirst());
+			deleteFile(segment.file);
+		}
+		return null;
+	}
+
+	private void storeOffset(Segment segment) {
+		this.offset.putLong(0, segment.id);
+		this.offset.putInt(8, segment.readPosition);
+	}
+
+	public synchronized boolean isEmpty() {
+		return this.pendingBytes == 0;
+	}
+
+	/**
+	 * @return the number of bytes, including record headers, waiting to be replayed
+	 */
+	public synchronized long getPendingBytes() {
+		return this.pendingBytes;
+	}
+
+	/**
+	 * Flush all mapped data to disk and release the files.
+	 */
+	public synchronized void close() throws IOException {
+		for (Segment segment : this.segments) {
+			segment.buffer.force();
+		}
+		this.offset.force();
+		this.offsetFile.close();
+		this.segments.clear();
+	}
+
+	private static void deleteFile(File file) {
+		if (!file.delete() && logger.isWarnEnabled()) {
+			logger.warn("could not delete spool segment " + file);
+		}
+	}
+
+	private static final class Segment {
+
+		private final long id;
+
+		private final File file;
+
+		private final int capacity;
+
+		private final MappedByteBuffer buffer;
+
+		private int readPosition;
+
+		private int writePosition;
+
+		Segment(long id, File file, int capacity) throws IOException {
+			this.id = id;
+			this.file = file;
+			this.capacity = capacity;
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+			try {
+				// the mapping stays valid after the file is closed
+				this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+			}
+			finally {
+				randomAccessFile.close();
+			}
+		}
+
+		/**
+		 * @return the position after the last complete record
+		 */
+		int scan() {
+			int position = 0;
+			while (this.capacity - position >= HEADER_LENGTH) {
+				int length = this.buffer.getInt(position);
+				if (length <= 0 || length > this.capacity - position - HEADER_LENGTH) {
+					break;
+				}
+				position += HEADER_LENGTH + length;
+			}
+			return position;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+/**
+ * When a stream writer flushes events written on their own to the socket. Except for
+ * {@link #EVERY_EVENT}, events are collected in a buffer under the socket, which is
+ * also flushed every flush interval.
+ *
+ * @since 1.2
+ */
+public enum FlushPolicy {
+
+	/**
+	 * Flush after every event.
+	 */
+	EVERY_EVENT,
+
+	/**
+	 * Flush after every flush events count of events.
+	 */
+	EVERY_N_EVENTS,
+
+	/**
+	 * Flush whenever the buffer of flush bytes size is full.
+	 */
+	EVERY_N_BYTES,
+
+	/**
+	 * Flush every flush interval only.
+	 */
+	INTERVAL,
+
+	/**
+	 * Flush once no other thread is writing, or once the queue of an asynchronous
+	 * writer is empty; events written while the socket is busy are flushed together.
+	 */
+	ON_IDLE
+
+}
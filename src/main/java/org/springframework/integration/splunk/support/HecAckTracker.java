@@ -0,0 +1,331 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Tracks the indexer acknowledgements of the batches a {@link SplunkHecWriter} posts.
+ * <p>
+ * At most {@code window} batches are unacknowledged at any time; a caller posting
+ * another batch waits for a slot. A background task queries the status of all
+ * pending ack ids in a single request, and re-posts batches that were not
+ * acknowledged within the timeout until the retries are exhausted. A batch whose
+ * ack id the server hands out again, as it does after a restart, is posted again as
+ * well. The outcome of every batch is sent to the ack channel, if any.
+ *
+ * @since 1.2
+ */
+final class HecAckTracker {
+
+	private static final Log logger = LogFactory.getLog(HecAckTracker.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final Pattern ACK_ID = Pattern.compile("\"ackId\"\\s*:\\s*(\\d+)");
+
+	private static final Pattern ACK_STATUS = Pattern.compile("\"(\\d+)\"\\s*:\\s*(true|false)");
+
+	private final SplunkHecWriter writer;
+
+	private final Semaphore window;
+
+	private final long timeout;
+
+	private final long pollInterval;
+
+	private final int maxRetries;
+
+	private final MessageChannel ackChannel;
+
+	private final ConcurrentMap<Long, Batch> pending = new ConcurrentHashMap<Long, Batch>();
+
+	/**
+	 * Batches without an ack id waiting to be posted again, because posting them again
+	 * failed or their ack id was reused.
+	 */
+	private final Queue<Batch> retries = new ConcurrentLinkedQueue<Batch>();
+
+	private ScheduledExecutorService poller;
+
+	private volatile boolean missingAckIdReported;
+
+	HecAckTracker(SplunkHecWriter writer, int window, long timeout, long pollInterval, int maxRetries,
+			MessageChannel ackChannel) {
+		this.writer = writer;
+		this.window = new Semaphore(window);
+		this.timeout = timeout;
+		this.pollInterval = pollInterval;
+		this.maxRetries = maxRetries;
+		this.ackChannel = ackChannel;
+	}
+
+	void start() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("splunk-hec-ack-");
+		threadFactory.setDaemon(true);
+		this.poller = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		this.poller.scheduleWithFixedDelay(new Runnable() {
+
+			public void run() {
+				try {
+					poll();
+				}
+				catch (Exception e) {
+					logger.error("failed to check HEC acknowledgements", e);
+				}
+			}
+
+		}, this.pollInterval, this.pollInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Wait up to the ack timeout for the pending batches to be acknowledged; the
+	 * remaining ones are reported as failed.
+	 */
+	void stop() {
+		this.poller.shutdown();
+		try {
+			this.poller.awaitTermination(this.timeout, TimeUnit.MILLISECONDS);
+			long deadline = System.currentTimeMillis() + this.timeout;
+			while (!this.pending.isEmpty() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(Math.min(this.pollInterval, 100));
+				poll();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (Long ackId : new ArrayList<Long>(this.pending.keySet())) {
+			complete(ackId, false);
+		}
+		Batch batch;
+		while ((batch = this.retries.poll()) != null) {
+			fail(batch);
+		}
+	}
+
+	/**
+	 * Post a batch once there is room in the window.
+	 */
+	void send(byte[] body, int length) throws IOException {
+		try {
+			this.window.acquire();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while waiting for HEC acknowledgements", e);
+		}
+		Batch batch = new Batch(Arrays.copyOf(body, length));
+		boolean sent = false;
+		try {
+			transmit(batch);
+			sent = true;
+		}
+		finally {
+			if (!sent) {
+				this.window.release();
+			}
+		}
+	}
+
+	int getPendingCount() {
+		return this.pending.size() + this.retries.size();
+	}
+
+	private void transmit(Batch batch) throws IOException {
+		batch.attempts++;
+		String response = this.writer.send(batch.body, batch.body.length);
+		Matcher matcher = ACK_ID.matcher(response);
+		if (!matcher.find()) {
+			if (!this.missingAckIdReported) {
+				this.missingAckIdReported = true;
+				logger.warn("HEC response carries no ackId, is indexer acknowledgement enabled for the token? "
+						+ "Treating batches as delivered");
+			}
+			this.window.release();
+			publish(batch, -1, true);
+			return;
+		}
+		batch.ackId = Long.parseLong(matcher.group(1));
+		batch.sentAt = System.currentTimeMillis();
+		Batch displaced = this.pending.put(batch.ackId, batch);
+		if (displaced != null) {
+			// the acknowledgement of the displaced batch can no longer be told apart
+			logger.warn("HEC ack id " + batch.ackId + " was handed out again, sending the batch it was given "
+					+ "to before again");
+			displaced.sentAt = 0;
+			this.retries.add(displaced);
+		}
+	}
+
+	void poll() {
+		if (this.pending.isEmpty()) {
+			retransmitExpired();
+			return;
+		}
+		List<Long> ackIds = new ArrayList<Long>(this.pending.keySet());
+		StringBuilder query = new StringBuilder("{\"acks\":[");
+		for (int i = 0; i < ackIds.size(); i++) {
+			if (i > 0) {
+				query.append(',');
+			}
+			query.append(ackIds.get(i));
+		}
+		query.append("]}");
+		try {
+			Matcher matcher = ACK_STATUS.matcher(this.writer.queryAcks(query.toString()));
+			while (matcher.find()) {
+				if (Boolean.parseBoolean(matcher.group(2))) {
+					complete(Long.parseLong(matcher.group(1)), true);
+				}
+			}
+		}
+		catch (IOException e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("failed to query HEC acknowledgements", e);
+			}
+		}
+		retransmitExpired();
+	}
+
+	private void retransmitExpired() {
+		long expiredBefore = System.currentTimeMillis() - this.timeout;
+		for (Batch batch : new ArrayList<Batch>(this.pending.values())) {
+			if (batch.sentAt >= expiredBefore) {
+				continue;
+			}
+			if (batch.attempts > this.maxRetries) {
+				complete(batch.ackId, false);
+				continue;
+			}
+			if (this.pending.remove(batch.ackId, batch)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("HEC batch " + batch.ackId + " not acknowledged in time, sending it again");
+				}
+				retransmit(batch);
+			}
+		}
+		for (int i = this.retries.size(); i > 0; i--) {
+			Batch batch = this.retries.poll();
+			if (batch == null) {
+				break;
+			}
+			if (batch.sentAt >= expiredBefore) {
+				this.retries.add(batch);
+			}
+			else if (batch.attempts > this.maxRetries) {
+				fail(batch);
+			}
+			else {
+				retransmit(batch);
+			}
+		}
+	}
+
+	private void retransmit(Batch batch) {
+		try {
+			transmit(batch);
+		}
+		catch (IOException e) {
+			// try again after the next timeout
+			batch.sentAt = System.currentTimeMillis();
+			this.retries.add(batch);
+		}
+	}
+
+	private void complete(long ackId, boolean acknowledged) {
+		Batch batch = this.pending.remove(ackId);
+		if (batch == null) {
+			return;
+		}
+		if (acknowledged) {
+			this.window.release();
+			publish(batch, ackId, true);
+		}
+		else {
+			fail(batch);
+		}
+	}
+
+	private void fail(Batch batch) {
+		this.window.release();
+		logger.error(String.format("HEC batch %d was not acknowledged after %d attempt(s)", batch.ackId,
+				batch.attempts));
+		publish(batch, batch.ackId, false);
+	}
+
+	private void publish(Batch batch, long ackId, boolean acknowledged) {
+		if (this.ackChannel == null) {
+			return;
+		}
+		int eventCount = 0;
+		for (byte b : batch.body) {
+			if (b == '\n') {
+				eventCount++;
+			}
+		}
+		try {
+			this.ackChannel.send(MessageBuilder.withPayload(new String(batch.body, UTF8))
+					.setHeader(SplunkHeaders.HEC_ACK_ID, ackId)
+					.setHeader(SplunkHeaders.HEC_ACKNOWLEDGED, acknowledged)
+					.setHeader(SplunkHeaders.HEC_EVENT_COUNT, eventCount)
+					.setHeader(SplunkHeaders.HEC_ATTEMPTS, batch.attempts)
+					.build());
+		}
+		catch (RuntimeException e) {
+			logger.error("failed to send HEC acknowledgement to the ack channel", e);
+		}
+	}
+
+	private static final class Batch {
+
+		private final byte[] body;
+
+		private volatile long ackId;
+
+		private volatile long sentAt;
+
+		private volatile int attempts;
+
+		Batch(byte[] body) {
+			this.body = body;
+		}
+
+	}
+
+}
@@ -0,0 +1,482 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.splunk.core.MessageDataWriter;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+/**
+ * {@link MessageDataWriter} spreading events over several Splunk servers, typically the
+ * indexers of a cluster.
+ * <p>
+ * Each server has a writer of its own, and so a connection of its own. Every event
+ * goes to one available server chosen by the {@link LoadBalancingStrategy}. When a
+ * write fails, the server is taken out of rotation and the event is written to the
+ * next available server. Messages are handed to the writer of the server as they
+ * are, so that its {@link AbstractSplunkDataWriter#setThrottle throttle} sees their
+ * priority. Once the {@link #setRetryInterval(long) retry interval} has
+ * elapsed, a background thread waits for the writes still in flight on the failed
+ * server, restarts its writer and puts the server back into rotation; producers
+ * never connect to a server themselves. A writer that is spooling is not used while
+ * other servers are available.
+ * <p>
+ * Failures can only be detected for synchronous writers; an asynchronous writer
+ * handles them on its own I/O thread.
+ *
+ * @since 1.2
+ */
+public class LoadBalancingSplunkDataWriter implements MessageDataWriter, SmartLifecycle {
+
+	public static final long DEFAULT_RETRY_INTERVAL = 5000;
+
+	private static final Log logger = LogFactory.getLog(LoadBalancingSplunkDataWriter.class);
+
+	/**
+	 * Delay in ms before checking again whether the writes in flight on a failed
+	 * server have completed.
+	 */
+	private static final long DRAIN_CHECK_INTERVAL = 10;
+
+	private final List<Node> nodes;
+
+	private final AtomicInteger nextIndex = new AtomicInteger();
+
+	/**
+	 * Guards the scores of the smooth weighted round robin; never held while connecting.
+	 */
+	private final Object weightMonitor = new Object();
+
+	private LoadBalancingStrategy strategy = LoadBalancingStrategy.ROUND_ROBIN;
+
+	private long retryInterval = DEFAULT_RETRY_INTERVAL;
+
+	private volatile boolean running;
+
+	private int phase;
+
+	private boolean autoStartup = true;
+
+	private volatile ScheduledExecutorService rejoinScheduler;
+
+	/**
+	 * @param servers the servers to balance over
+	 * @param writers the writers connected to the servers, in the same order
+	 */
+	public LoadBalancingSplunkDataWriter(List<SplunkServer> servers, List<AbstractSplunkDataWriter> writers) {
+		Assert.notEmpty(servers, "servers must not be empty");
+		Assert.isTrue(servers.size() == writers.size(), "a writer is required for each server");
+		List<Node> nodes = new ArrayList<Node>(servers.size());
+		for (int i = 0; i < servers.size(); i++) {
+			nodes.add(new Node(servers.get(i), writers.get(i)));
+		}
+		this.nodes = Collections.unmodifiableList(nodes);
+	}
+
+	public void write(SplunkEvent event) throws Exception {
+		write(event, 1);
+	}
+
+	/**
+	 * Write all events to the same server.
+	 */
+	public void write(Collection<SplunkEvent> events) throws Exception {
+		if (!events.isEmpty()) {
+			write(events, events.size());
+		}
+	}
+
+	/**
+	 * Write all events of the message to the same server.
+	 */
+	public void write(Message<?> message) throws Exception {
+		Object payload = message.getPayload();
+		int count = payload instanceof Collection ? ((Collection<?>) payload).size() : 1;
+		if (count > 0) {
+			write(message, count);
+		}
+	}
+
+	/**
+	 * @param events a {@link SplunkEvent}, a collection of them or a message
+	 * @param count the number of events
+	 */
+	private void write(Object events, int count) throws Exception {
+		Exception failure = null;
+		for (int attempt = 0; attempt < this.nodes.size(); attempt++) {
+			Node node = select();
+			if (node == null) {
+				break;
+			}
+			node.outstanding.addAndGet(count);
+			try {
+				writeTo(node.writer, events);
+				return;
+			}
+			catch (RejectedExecutionException e) {
+				// the writer is overloaded or throttled, not broken
+				throw e;
+			}
+			catch (Exception e) {
+				failure = e;
+				markDown(node, e);
+			}
+			finally {
+				node.outstanding.addAndGet(-count);
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		throw new IllegalStateException("no splunk server available");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void writeTo(AbstractSplunkDataWriter writer, Object events) throws Exception {
+		if (events instanceof SplunkEvent) {
+			writer.write((SplunkEvent) events);
+		}
+		else if (events instanceof Message) {
+			writer.write((Message<?>) events);
+		}
+		else {
+			writer.write((Collection<SplunkEvent>) events);
+		}
+	}
+
+	private Node select() {
+		List<Node> available = new ArrayList<Node>(this.nodes.size());
+		List<Node> spooling = null;
+		for (Node node : this.nodes) {
+			if (node.isUp()) {
+				if (!node.writer.isSpooling()) {
+					available.add(node);
+				}
+				else {
+					if (spooling == null) {
+						spooling = new ArrayList<Node>(1);
+					}
+					spooling.add(node);
+				}
+			}
+		}
+		if (available.isEmpty()) {
+			if (spooling == null) {
+				return null;
+			}
+			available = spooling;
+		}
+		switch (this.strategy) {
+		case LEAST_OUTSTANDING:
+			Node least = null;
+			long leastOutstanding = Long.MAX_VALUE;
+			for (Node node : available) {
+				long outstanding = node.outstanding.get() + node.writer.getQueueSize();
+				if (outstanding < leastOutstanding) {
+					least = node;
+					leastOutstanding = outstanding;
+				}
+			}
+			return least;
+		case WEIGHTED:
+			return selectWeighted(available);
+		default:
+			int index = this.nextIndex.getAndIncrement() & Integer.MAX_VALUE;
+			return available.get(index % available.size());
+		}
+	}
+
+	/**
+	 * Smooth weighted round robin: every candidate gains its weight, the one with the
+	 * highest score wins and pays back the total, which interleaves the servers
+	 * instead of sending bursts to the heaviest one.
+	 */
+	private Node selectWeighted(List<Node> available) {
+		synchronized (this.weightMonitor) {
+			Node best = null;
+			int total = 0;
+			for (Node node : available) {
+				int weight = node.server.getWeight();
+				node.currentWeight += weight;
+				total += weight;
+				if (best == null || node.currentWeight > best.currentWeight) {
+					best = node;
+				}
+			}
+			best.currentWeight -= total;
+			return best;
+		}
+	}
+
+	/**
+	 * Take a server out of rotation; its writer is left alone until the background
+	 * rejoin, since other producers may still be writing to it.
+	 */
+	private void markDown(Node node, Exception cause) {
+		if (node.down.compareAndSet(false, true)) {
+			logger.warn(String.format("failed to write to %s, removing it from rotation for %d ms", node.server,
+					this.retryInterval), cause);
+			scheduleRejoin(node, this.retryInterval);
+		}
+	}
+
+	private void scheduleRejoin(final Node node, long delay) {
+		ScheduledExecutorService scheduler = this.rejoinScheduler;
+		if (scheduler == null) {
+			return;
+		}
+		try {
+			scheduler.schedule(new Runnable() {
+
+				public void run() {
+					rejoin(node);
+				}
+
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+		catch (RejectedExecutionException e) {
+			// stopping
+		}
+	}
+
+	/**
+	 * Restart the writer of a server that was taken out of rotation, once the writes
+	 * still in flight on it have completed; runs on the rejoin thread. The lock only
+	 * keeps the rejoin apart from {@link #start()} and {@link #stop()}, producers never
+	 * take it.
+	 */
+	private synchronized void rejoin(Node node) {
+		if (!this.running) {
+			return;
+		}
+		if (node.outstanding.get() > 0) {
+			scheduleRejoin(node, DRAIN_CHECK_INTERVAL);
+			return;
+		}
+		try {
+			node.writer.stop();
+		}
+		catch (RuntimeException e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("failed to stop writer for " + node.server, e);
+			}
+		}
+		try {
+			node.writer.start();
+			node.down.set(false);
+			if (logger.isInfoEnabled()) {
+				logger.info(node.server + " is available again");
+			}
+		}
+		catch (RuntimeException e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(node.server + " is still unavailable", e);
+			}
+			scheduleRejoin(node, this.retryInterval);
+		}
+	}
+
+	/**
+	 * @param strategy how to pick the server for an event, {@link LoadBalancingStrategy#ROUND_ROBIN} by default
+	 */
+	public void setStrategy(LoadBalancingStrategy strategy) {
+		Assert.notNull(strategy, "strategy must not be null");
+		this.strategy = strategy;
+	}
+
+	public LoadBalancingStrategy getStrategy() {
+		return strategy;
+	}
+
+	/**
+	 * @param retryInterval the time in ms a failed server stays out of rotation,
+	 * {@value #DEFAULT_RETRY_INTERVAL} by default
+	 */
+	public void setRetryInterval(long retryInterval) {
+		this.retryInterval = retryInterval;
+	}
+
+	public long getRetryInterval() {
+		return retryInterval;
+	}
+
+	/**
+	 * @return the writers, in the order of the servers
+	 */
+	public List<AbstractSplunkDataWriter> getWriters() {
+		List<AbstractSplunkDataWriter> writers = new ArrayList<AbstractSplunkDataWriter>(this.nodes.size());
+		for (Node node : this.nodes) {
+			writers.add(node.writer);
+		}
+		return writers;
+	}
+
+	/**
+	 * @return the servers currently in rotation
+	 */
+	public List<SplunkServer> getAvailableServers() {
+		List<SplunkServer> servers = new ArrayList<SplunkServer>(this.nodes.size());
+		for (Node node : this.nodes) {
+			if (!node.down.get()) {
+				servers.add(node.server);
+			}
+		}
+		return servers;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.Lifecycle#start()
+	 */
+	public synchronized void start() {
+		if (this.running) {
+			return;
+		}
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("splunk-rejoin-");
+		threadFactory.setDaemon(true);
+		this.rejoinScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		RuntimeException failure = null;
+		for (Node node : this.nodes) {
+			try {
+				node.writer.start();
+				node.down.set(false);
+			}
+			catch (RuntimeException e) {
+				failure = e;
+				node.down.set(true);
+				logger.warn(String.format("could not connect to %s, retrying in %d ms", node.server,
+						this.retryInterval), e);
+			}
+		}
+		if (getAvailableServers().isEmpty()) {
+			this.rejoinScheduler.shutdownNow();
+			this.rejoinScheduler = null;
+			throw failure;
+		}
+		for (Node node : this.nodes) {
+			if (node.down.get()) {
+				scheduleRejoin(node, this.retryInterval);
+			}
+		}
+		this.running = true;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.Lifecycle#stop()
+	 */
+	public synchronized void stop() {
+		if (!this.running) {
+			return;
+		}
+		this.rejoinScheduler.shutdownNow();
+		this.rejoinScheduler = null;
+		RuntimeException failure = null;
+		for (Node node : this.nodes) {
+			try {
+				node.writer.stop();
+			}
+			catch (RuntimeException e) {
+				failure = e;
+			}
+		}
+		this.running = false;
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.Lifecycle#isRunning()
+	 */
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.Phased#getPhase()
+	 */
+	public int getPhase() {
+		return this.phase;
+	}
+
+	public void setPhase(int phase) {
+		this.phase = phase;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.SmartLifecycle#isAutoStartup()
+	 */
+	public boolean isAutoStartup() {
+		return this.autoStartup;
+	}
+
+	public void setAutoStartup(boolean autoStartup) {
+		this.autoStartup = autoStartup;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.SmartLifecycle#stop(java.lang.Runnable)
+	 */
+	public void stop(Runnable callback) {
+		this.stop();
+		callback.run();
+	}
+
+	private final class Node {
+
+		private final SplunkServer server;
+
+		private final AbstractSplunkDataWriter writer;
+
+		private final AtomicLong outstanding = new AtomicLong();
+
+		private final AtomicBoolean down = new AtomicBoolean();
+
+		/**
+		 * Score of the smooth weighted round robin, guarded by the weight monitor.
+		 */
+		private int currentWeight;
+
+		Node(SplunkServer server, AbstractSplunkDataWriter writer) {
+			this.server = server;
+			this.writer = writer;
+		}
+
+		boolean isUp() {
+			return !this.down.get();
+		}
+
+	}
+
+}
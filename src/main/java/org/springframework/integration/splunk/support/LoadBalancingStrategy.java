@@ -0,0 +1,41 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+/**
+ * How a {@link LoadBalancingSplunkDataWriter} picks the server for an event.
+ *
+ * @since 1.2
+ */
+public enum LoadBalancingStrategy {
+
+	/**
+	 * Use the available servers in turn.
+	 */
+	ROUND_ROBIN,
+
+	/**
+	 * Use the server with the fewest events being written or queued.
+	 */
+	LEAST_OUTSTANDING,
+
+	/**
+	 * Use the available servers in proportion to their {@link SplunkServer#getWeight() weight}.
+	 */
+	WEIGHTED
+
+}
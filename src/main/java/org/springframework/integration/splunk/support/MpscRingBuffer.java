@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * Bounded, lock-free ring buffer for many producers and a draining consumer.
+ * <p>
+ * Every slot carries a sequence number telling producers and consumers whether
+ * the slot is free for the lap they are in (D. Vyukov's bounded queue). Producers
+ * and consumers claim positions with a CAS on their respective cursor, so
+ * {@link #poll()} is also safe to call from producers, which is what the
+ * {@link OverflowPolicy#DROP_OLDEST} policy relies on.
+ *
+ * @param <E> the element type
+ * @since 1.2
+ */
+final class MpscRingBuffer<E> {
+
+	private final int mask;
+
+	private final AtomicReferenceArray<E> elements;
+
+	private final AtomicLongArray sequences;
+
+	private final AtomicLong head = new AtomicLong();
+
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * @param capacity the minimum capacity, rounded up to the next power of two
+	 */
+	MpscRingBuffer(int capacity) {
+		Assert.isTrue(capacity > 0 && capacity <= 1 << 30, "capacity must be between 1 and 2^30");
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.mask = size - 1;
+		this.elements = new AtomicReferenceArray<E>(size);
+		this.sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			this.sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Add an element if there is room.
+	 * @param element the element
+	 * @return false if the buffer is full
+	 */
+	boolean offer(E element) {
+		long position = this.tail.get();
+		int index;
+		while (true) {
+			index = (int) position & this.mask;
+			long difference = this.sequences.get(index) - position;
+			if (difference == 0) {
+				if (this.tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+				position = this.tail.get();
+			}
+			else if (difference < 0) {
+				return false;
+			}
+			else {
+				position = this.tail.get();
+			}
+		}
+		this.elements.lazySet(index, element);
+		// volatile write publishes the element to the consumer
+		this.sequences.set(index, position + 1);
+		return true;
+	}
+
+	/**
+	 * Remove the oldest element.
+	 * @return the element, or null if the buffer is empty
+	 */
+	E poll() {
+		long position = this.head.get();
+		int index;
+		while (true) {
+			index = (int) position & this.mask;
+			long difference = this.sequences.get(index) - (position + 1);
+			if (difference == 0) {
+				if (this.head.compareAndSet(position, position + 1)) {
+					break;
+				}
+				position = this.head.get();
+			}
+			else if (difference < 0) {
+				return null;
+			}
+			else {
+				position = this.head.get();
+			}
+		}
+		E element = this.elements.get(index);
+		this.elements.lazySet(index, null);
+		// hand the slot to the producer of the next lap
+		this.sequences.set(index, position + this.mask + 1);
+		return element;
+	}
+
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+	int size() {
+		long size = this.tail.get() - this.head.get();
+		return (int) Math.max(0, Math.min(size, capacity()));
+	}
+
+	int capacity() {
+		return this.mask + 1;
+	}
+
+}
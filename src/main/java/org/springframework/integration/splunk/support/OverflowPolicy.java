@@ -0,0 +1,47 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+/**
+ * What an asynchronous writer does when its queue is full.
+ *
+ * @since 1.2
+ */
+public enum OverflowPolicy {
+
+	/**
+	 * Wait until there is room in the queue; a caller still waiting when the writer
+	 * is stopped gets a {@link java.util.concurrent.RejectedExecutionException}.
+	 */
+	BLOCK,
+
+	/**
+	 * Discard the event being written.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * Discard the oldest queued event to make room for the event being written.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Reject the event being written with an exception.
+	 */
+	FAIL_FAST
+
+}
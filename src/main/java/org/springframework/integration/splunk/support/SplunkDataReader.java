@@ -26,11 +26,11 @@ import java.util.List;
 import java.util.Map;
 
 import com.splunk.Args;
+import com.splunk.HttpException;
 import com.splunk.Job;
 import com.splunk.ResultsReader;
 import com.splunk.ResultsReaderXml;
 import com.splunk.SavedSearch;
-import com.splunk.SavedSearchCollection;
 import com.splunk.Service;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -90,6 +90,8 @@ public class SplunkDataReader implements DataReader, InitializingBean {
 
 	private final ServiceFactory serviceFactory;
 
+	private SplunkMetadataCache metadataCache = SplunkMetadataCache.getSharedInstance();
+
 	public SplunkDataReader(ServiceFactory serviceFactory) {
 		this.serviceFactory = serviceFactory;
 	}
@@ -132,6 +134,16 @@ public class SplunkDataReader implements DataReader, InitializingBean {
 		this.app = app;
 	}
 
+	/**
+	 * @param metadataCache the cache of saved searches, the
+	 * {@link SplunkMetadataCache#getSharedInstance() shared instance} by default
+	 * @since 1.2
+	 */
+	public void setMetadataCache(SplunkMetadataCache metadataCache) {
+		Assert.notNull(metadataCache, "metadataCache must not be null");
+		this.metadataCache = metadataCache;
+	}
+
 	public void setInitEarliestTime(String initEarliestTime) {
 		Assert.notNull(initEarliestTime, "initial earliest time can not be null");
 		this.initEarliestTime = initEarliestTime;
@@ -177,6 +189,10 @@ public class SplunkDataReader implements DataReader, InitializingBean {
 		return this.app;
 	}
 
+	public SplunkMetadataCache getMetadataCache() {
+		return this.metadataCache;
+	}
+
 	public List<SplunkEvent> read() throws Exception {
 		logger.debug("mode:" + this.mode);
 		switch (this.mode) {
@@ -385,18 +401,19 @@ public class SplunkDataReader implements DataReader, InitializingBean {
 			String earliestTime = getEarliestTime(startTime, false);
 
 			Service service = this.serviceFactory.getService();
-			SavedSearchCollection savedSearches = service.getSavedSearches(queryArgs);
-			for (SavedSearch s : savedSearches.values()) {
-				if (s.getName().equals(this.savedSearch)) {
-					search = s;
-				}
-			}
+			search = this.metadataCache.getSavedSearch(service, this.savedSearch, queryArgs);
 			if (search != null) {
 				Map<String, String> args = new HashMap<String, String>();
 				args.put("force_dispatch", "true");
 				args.put("dispatch.earliest_time", earliestTime);
 				args.put("dispatch.latest_time", latestTime);
-				job = search.dispatch(args);
+				try {
+					job = search.dispatch(args);
+				}
+				catch (HttpException e) {
+					this.metadataCache.invalidateIfStale(service, e);
+					throw e;
+				}
 			}
 			while (!job.isDone()) {
 				Thread.sleep(2000);
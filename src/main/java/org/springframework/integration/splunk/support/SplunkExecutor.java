@@ -15,6 +15,7 @@
  */
 package org.springframework.integration.splunk.support;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
@@ -22,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.messaging.MessageHandlingException;
 import org.springframework.integration.splunk.core.DataReader;
 import org.springframework.integration.splunk.core.DataWriter;
+import org.springframework.integration.splunk.core.MessageDataWriter;
 import org.springframework.integration.splunk.event.SplunkEvent;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessagingException;
@@ -42,12 +44,35 @@ public class SplunkExecutor {
 	private DataWriter writer;
 
 	/**
-	 * Executes the outbound Splunk Operation.
+	 * Executes the outbound Splunk Operation. The payload is either a
+	 * {@link SplunkEvent} or a {@code Collection<SplunkEvent>}, which is written in
+	 * one operation.
 	 */
+	@SuppressWarnings("unchecked")
 	public Object write(final Message<?> message) {
+		Object payload = message.getPayload();
+		if (payload instanceof Collection) {
+			for (Object element : (Collection<?>) payload) {
+				if (!(element instanceof SplunkEvent)) {
+					throw new MessageHandlingException(message, "expected a collection of SplunkEvent, but found "
+							+ (element == null ? "null" : element.getClass().getName()));
+				}
+			}
+		}
+		else if (!(payload instanceof SplunkEvent)) {
+			throw new MessageHandlingException(message, "expected a SplunkEvent or a collection of SplunkEvent, but found "
+					+ payload.getClass().getName());
+		}
 		try {
-			SplunkEvent payload = (SplunkEvent) message.getPayload();
-			writer.write(payload);
+			if (writer instanceof MessageDataWriter) {
+				((MessageDataWriter) writer).write(message);
+			}
+			else if (payload instanceof SplunkEvent) {
+				writer.write((SplunkEvent) payload);
+			}
+			else {
+				writer.write((Collection<SplunkEvent>) payload);
+			}
 		} catch (Exception e) {
 			String errorMsg = "error in writing data into Splunk";
 			logger.warn(errorMsg, e);
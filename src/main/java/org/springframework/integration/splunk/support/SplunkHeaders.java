@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+/**
+ * Names of the message headers used by the Splunk components.
+ *
+ * @since 1.2
+ */
+public abstract class SplunkHeaders {
+
+	private static final String PREFIX = "splunk_";
+
+	/**
+	 * The ack id the HTTP Event Collector assigned to a batch.
+	 */
+	public static final String HEC_ACK_ID = PREFIX + "hecAckId";
+
+	/**
+	 * Whether a batch was acknowledged by the indexers ({@code Boolean}).
+	 */
+	public static final String HEC_ACKNOWLEDGED = PREFIX + "hecAcknowledged";
+
+	/**
+	 * The number of events in a batch.
+	 */
+	public static final String HEC_EVENT_COUNT = PREFIX + "hecEventCount";
+
+	/**
+	 * The number of times a batch was sent.
+	 */
+	public static final String HEC_ATTEMPTS = PREFIX + "hecAttempts";
+
+	/**
+	 * The index a {@link SplunkRoutingIndexWriter} writes the events to.
+	 */
+	public static final String INDEX = PREFIX + "index";
+
+	/**
+	 * The sourcetype a {@link SplunkRoutingIndexWriter} assigns to the events.
+	 */
+	public static final String SOURCE_TYPE = PREFIX + "sourceType";
+
+	/**
+	 * The source a {@link SplunkRoutingIndexWriter} assigns to the events.
+	 */
+	public static final String SOURCE = PREFIX + "source";
+
+	/**
+	 * The host a {@link SplunkRoutingIndexWriter} assigns to the events.
+	 */
+	public static final String HOST = PREFIX + "host";
+
+}
@@ -0,0 +1,466 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.util.Assert;
+
+/**
+ * DataWriter posting events to a Splunk HTTP Event Collector (HEC).
+ * <p>
+ * Each event is wrapped in a HEC JSON envelope carrying its time together with the
+ * host, source and sourcetype {@link Args} and the optional index. When batching is
+ * enabled, the envelopes of a batch are posted newline-delimited in a single request,
+ * optionally gzip-compressed. Requests go through {@link HttpURLConnection}, which
+ * keeps the underlying connection alive between requests.
+ * <p>
+ * This writer does not use the Splunk management port, so no {@link Service} is
+ * obtained on start.
+ * <p>
+ * With {@link #setAck(boolean) acknowledgements} enabled, requests carry a request
+ * channel and each batch is kept until the indexers acknowledge it: up to
+ * {@link #setAckWindow(int) ack window} batches are in flight, unacknowledged batches
+ * are posted again after the {@link #setAckTimeout(long) ack timeout}, and the
+ * outcome of each batch is sent to the {@link #setAckChannel(MessageChannel) ack
+ * channel} with the {@link SplunkHeaders} {@code HEC_*} headers. Delivery is
+ * at-least-once.
+ *
+ * @since 1.2
+ */
+public class SplunkHecWriter extends AbstractSplunkDataWriter {
+
+	public static final String DEFAULT_URL = "https://localhost:8088/services/collector/event";
+
+	public static final int DEFAULT_TIMEOUT = 30000;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private String url = DEFAULT_URL;
+
+	private String token;
+
+	private String index;
+
+	private boolean gzip;
+
+	private int timeout = DEFAULT_TIMEOUT;
+
+	private URL collectorUrl;
+
+	private boolean ack;
+
+	private int ackWindow = 64;
+
+	private long ackTimeout = 60000;
+
+	private long ackPollInterval = 1000;
+
+	private int ackMaxRetries = 3;
+
+	private MessageChannel ackChannel;
+
+	private String requestChannel;
+
+	private URL ackUrl;
+
+	private volatile HecAckTracker ackTracker;
+
+	public SplunkHecWriter(ServiceFactory serviceFactory, Args args) {
+		super(serviceFactory, args);
+	}
+
+	@Override
+	protected boolean isServiceRequired() {
+		return false;
+	}
+
+	@Override
+	protected Socket createSocket(Service service) throws IOException {
+		Assert.hasText(this.token, "a HEC token is required");
+		this.collectorUrl = new URL(this.url);
+		if (this.ack) {
+			this.ackUrl = new URL(this.collectorUrl, "/services/collector/ack?channel=" + this.requestChannel);
+		}
+		return null;
+	}
+
+	@Override
+	public synchronized void start() {
+		if (isRunning()) {
+			return;
+		}
+		if (this.ack) {
+			this.requestChannel = UUID.randomUUID().toString();
+			this.ackTracker = new HecAckTracker(this, this.ackWindow, this.ackTimeout, this.ackPollInterval,
+					this.ackMaxRetries, this.ackChannel);
+		}
+		super.start();
+		if (this.ackTracker != null) {
+			this.ackTracker.start();
+		}
+	}
+
+	/**
+	 * Stop the writer once the pending batches are acknowledged or the ack timeout
+	 * has elapsed.
+	 */
+	@Override
+	public synchronized void stop() {
+		try {
+			super.stop();
+		}
+		finally {
+			HecAckTracker ackTracker = this.ackTracker;
+			if (ackTracker != null) {
+				this.ackTracker = null;
+				ackTracker.stop();
+			}
+		}
+	}
+
+	@Override
+	protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		render(event, out);
+		post(out.toByteArray(), out.size());
+		getMetrics().addBytesWritten(out.size());
+	}
+
+	@Override
+	protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+			throws IOException {
+		post(batch, length);
+	}
+
+	/**
+	 * Render the event as a HEC JSON envelope followed by a newline.
+	 */
+	@Override
+	protected void render(SplunkEvent event, OutputStream out) throws IOException {
+		StringBuilder json = new StringBuilder(256);
+		long now = SplunkEvent.currentTimeMillis();
+		json.append("{\"time\":").append(now / 1000).append('.');
+		long millis = now % 1000;
+		if (millis < 100) {
+			json.append('0');
+		}
+		if (millis < 10) {
+			json.append('0');
+		}
+		json.append(millis);
+		appendField(json, "host", this.args.get("host"));
+		appendField(json, "source", this.args.get("source"));
+		appendField(json, "sourcetype", this.args.get("sourcetype"));
+		appendField(json, "index", this.index);
+		json.append(",\"event\":");
+		String data = event.toString();
+		appendString(json, data, data.endsWith("\n") ? data.length() - 1 : data.length());
+		json.append("}\n");
+		out.write(json.toString().getBytes(UTF8));
+	}
+
+	private void post(byte[] body, int length) throws IOException {
+		HecAckTracker ackTracker = this.ackTracker;
+		if (ackTracker != null) {
+			ackTracker.send(body, length);
+		}
+		else {
+			send(body, length);
+		}
+	}
+
+	/**
+	 * Post events to the collector.
+	 * @return the response body
+	 */
+	String send(byte[] body, int length) throws IOException {
+		return execute(this.collectorUrl, body, length, this.gzip);
+	}
+
+	/**
+	 * Query the status of ack ids.
+	 * @param query the JSON ack request
+	 * @return the response body
+	 */
+	String queryAcks(String query) throws IOException {
+		byte[] body = query.getBytes(UTF8);
+		return execute(this.ackUrl, body, body.length, false);
+	}
+
+	private String execute(URL target, byte[] body, int length, boolean gzip) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) target.openConnection();
+		try {
+			connection.setRequestMethod("POST");
+			connection.setDoOutput(true);
+			connection.setConnectTimeout(this.timeout);
+			connection.setReadTimeout(this.timeout);
+			connection.setRequestProperty("Authorization", "Splunk " + this.token);
+			connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+			if (this.requestChannel != null) {
+				connection.setRequestProperty("X-Splunk-Request-Channel", this.requestChannel);
+			}
+			if (gzip) {
+				ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+				GZIPOutputStream gzipStream = new GZIPOutputStream(compressed);
+				gzipStream.write(body, 0, length);
+				gzipStream.close();
+				connection.setRequestProperty("Content-Encoding", "gzip");
+				connection.setFixedLengthStreamingMode(compressed.size());
+				OutputStream ostream = connection.getOutputStream();
+				compressed.writeTo(ostream);
+				ostream.close();
+			}
+			else {
+				connection.setFixedLengthStreamingMode(length);
+				OutputStream ostream = connection.getOutputStream();
+				ostream.write(body, 0, length);
+				ostream.close();
+			}
+			int status = connection.getResponseCode();
+			if (status / 100 != 2) {
+				throw new IOException(String.format("HEC request to %s failed with status %d: %s",
+						target, status, readFully(connection.getErrorStream())));
+			}
+			return readFully(connection.getInputStream());
+		}
+		catch (IOException e) {
+			// drain the error stream so that the connection can be reused
+			readFully(connection.getErrorStream());
+			throw e;
+		}
+	}
+
+	/**
+	 * Consume and close the stream; HttpURLConnection only returns a connection to
+	 * the keep-alive cache once the response has been read completely.
+	 */
+	private static String readFully(InputStream stream) {
+		if (stream == null) {
+			return "";
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[512];
+		try {
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			stream.close();
+		}
+		catch (IOException e) {
+			// ignore, nothing more to read
+		}
+		return new String(out.toByteArray(), UTF8);
+	}
+
+	private static void appendField(StringBuilder json, String name, Object value) {
+		if (value != null) {
+			json.append(",\"").append(name).append("\":");
+			String string = value.toString();
+			appendString(json, string, string.length());
+		}
+	}
+
+	private static void appendString(StringBuilder json, String value, int length) {
+		json.append('"');
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+				}
+				else {
+					json.append(c);
+				}
+			}
+		}
+		json.append('"');
+	}
+
+	/**
+	 * @param url the HEC event endpoint, defaults to {@value #DEFAULT_URL}
+	 */
+	public void setUrl(String url) {
+		Assert.hasText(url, "url must not be empty");
+		this.url = url;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * @param token the HEC token used to authenticate requests
+	 */
+	public void setToken(String token) {
+		this.token = token;
+	}
+
+	/**
+	 * @param index the index to send events to; the token's default index is used if not set
+	 */
+	public void setIndex(String index) {
+		this.index = index;
+	}
+
+	public String getIndex() {
+		return index;
+	}
+
+	/**
+	 * Tag the metrics with the host of the collector URL rather than of a service.
+	 */
+	@Override
+	protected void addMetricsTags(Map<String, String> tags) {
+		super.addMetricsTags(tags);
+		URL collectorUrl = this.collectorUrl;
+		if (collectorUrl != null) {
+			tags.put("host", collectorUrl.getHost());
+		}
+		if (this.index != null) {
+			tags.put("index", this.index);
+		}
+	}
+
+	/**
+	 * @param gzip whether request bodies are gzip-compressed
+	 */
+	public void setGzip(boolean gzip) {
+		this.gzip = gzip;
+	}
+
+	public boolean isGzip() {
+		return gzip;
+	}
+
+	/**
+	 * @param timeout the connect and read timeout in ms, {@value #DEFAULT_TIMEOUT} by
+	 * default; 0 waits forever, so that an unresponsive collector blocks the writer
+	 */
+	public void setTimeout(int timeout) {
+		Assert.isTrue(timeout >= 0, "timeout must not be negative");
+		this.timeout = timeout;
+	}
+
+	public int getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * @param ack whether to track indexer acknowledgements; requires indexer
+	 * acknowledgement to be enabled for the token
+	 */
+	public void setAck(boolean ack) {
+		this.ack = ack;
+	}
+
+	public boolean isAck() {
+		return ack;
+	}
+
+	/**
+	 * @param ackWindow the maximum number of unacknowledged batches, 64 by default;
+	 * further writes wait for acknowledgements
+	 */
+	public void setAckWindow(int ackWindow) {
+		Assert.isTrue(ackWindow > 0, "ackWindow must be greater than 0");
+		this.ackWindow = ackWindow;
+	}
+
+	public int getAckWindow() {
+		return ackWindow;
+	}
+
+	/**
+	 * @param ackTimeout the time in ms after which an unacknowledged batch is posted
+	 * again, 60000 by default
+	 */
+	public void setAckTimeout(long ackTimeout) {
+		Assert.isTrue(ackTimeout > 0, "ackTimeout must be greater than 0");
+		this.ackTimeout = ackTimeout;
+	}
+
+	public long getAckTimeout() {
+		return ackTimeout;
+	}
+
+	/**
+	 * @param ackPollInterval the time in ms between ack status queries, 1000 by default
+	 */
+	public void setAckPollInterval(long ackPollInterval) {
+		Assert.isTrue(ackPollInterval > 0, "ackPollInterval must be greater than 0");
+		this.ackPollInterval = ackPollInterval;
+	}
+
+	/**
+	 * @param ackMaxRetries how often an unacknowledged batch is posted again before
+	 * it is reported as failed, 3 by default
+	 */
+	public void setAckMaxRetries(int ackMaxRetries) {
+		Assert.isTrue(ackMaxRetries >= 0, "ackMaxRetries must not be negative");
+		this.ackMaxRetries = ackMaxRetries;
+	}
+
+	/**
+	 * @param ackChannel the channel receiving a message per batch once it was
+	 * acknowledged or given up on; the payload is the posted body
+	 */
+	public void setAckChannel(MessageChannel ackChannel) {
+		this.ackChannel = ackChannel;
+	}
+
+	/**
+	 * @return the number of batches waiting for an acknowledgement
+	 */
+	public int getPendingAckCount() {
+		HecAckTracker ackTracker = this.ackTracker;
+		return ackTracker == null ? 0 : ackTracker.getPendingCount();
+	}
+
+}
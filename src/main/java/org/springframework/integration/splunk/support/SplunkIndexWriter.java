@@ -17,20 +17,30 @@
 package org.springframework.integration.splunk.support;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.util.Map;
 
 import com.splunk.Args;
+import com.splunk.HttpException;
 import com.splunk.Index;
 import com.splunk.Receiver;
 import com.splunk.Service;
 
 import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
 import org.springframework.util.Assert;
 
 /**
  *
  * DataWriter to stream data into Splunk using an optional index. If no index specified,
  * the main default index is used.
+ * <p>
+ * By default all threads write to a single stream. With more than one
+ * {@link #setStripes(int) stripe}, each thread writes to the stream of the stripe its
+ * id falls into, attached when first needed, so that threads on different stripes
+ * write in parallel. Streams unused for the {@link #setIdleTimeout(long) idle timeout}
+ * are closed.
  *
  * @author Jarred Li
  * @author David Turanski
@@ -39,22 +49,59 @@ import org.springframework.util.Assert;
  */
 public class SplunkIndexWriter extends AbstractSplunkDataWriter {
 
+	public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
 	private String index;
 
+	private int stripeCount = 1;
+
+	private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+	private volatile Stripe[] stripes;
+
+	private volatile long sweptAt = System.currentTimeMillis();
+
 	public SplunkIndexWriter(ServiceFactory serviceFactory, Args args) {
 		super(serviceFactory, args);
 	}
 
+	/**
+	 * Attach the stream, or with stripes only check the index and let every stripe
+	 * attach its own stream.
+	 */
 	@Override
 	protected Socket createSocket(Service service) throws IOException {
+		if (this.stripeCount > 1) {
+			closeStripes();
+			if (index != null) {
+				Assert.notNull(getMetadataCache().getIndex(service, index),
+						String.format("cannot find index [%s]", index));
+			}
+			Stripe[] stripes = new Stripe[this.stripeCount];
+			for (int i = 0; i < stripes.length; i++) {
+				stripes[i] = new Stripe();
+			}
+			this.stripes = stripes;
+			return null;
+		}
+		return attach(service);
+	}
+
+	private Socket attach(Service service) throws IOException {
 		Index indexObject = null;
 		Receiver receiver = null;
 		Socket socket = null;
 
 		if (index != null) {
-			indexObject = service.getIndexes().get(index);
+			indexObject = getMetadataCache().getIndex(service, index);
 			Assert.notNull(indexObject, String.format("cannot find index [%s]", index));
-			socket = indexObject.attach(args);
+			try {
+				socket = indexObject.attach(args);
+			}
+			catch (HttpException e) {
+				getMetadataCache().invalidateIfStale(service, e);
+				throw e;
+			}
 
 		}
 		else {
@@ -67,6 +114,145 @@ public class SplunkIndexWriter extends AbstractSplunkDataWriter {
 		return socket;
 	}
 
+	@Override
+	protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+		Stripe[] stripes = this.stripes;
+		if (stripes == null) {
+			super.doWrite(event, socket, service, args);
+			return;
+		}
+		Stripe stripe = stripe(stripes);
+		synchronized (stripe) {
+			OutputStream ostream = stripe.open(service);
+			try {
+				getMetrics().addBytesWritten(event.writeTo(ostream));
+				ostream.flush();
+			}
+			catch (IOException e) {
+				stripe.close();
+				throw e;
+			}
+		}
+		sweep(stripes);
+	}
+
+	@Override
+	protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+			throws IOException {
+		Stripe[] stripes = this.stripes;
+		if (stripes == null) {
+			super.doWriteBatch(batch, length, socket, service, args);
+			return;
+		}
+		Stripe stripe = stripe(stripes);
+		synchronized (stripe) {
+			OutputStream ostream = stripe.open(service);
+			try {
+				ostream.write(batch, 0, length);
+				ostream.flush();
+			}
+			catch (IOException e) {
+				stripe.close();
+				throw e;
+			}
+		}
+		sweep(stripes);
+	}
+
+	private static Stripe stripe(Stripe[] stripes) {
+		return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+	}
+
+	/**
+	 * Close the streams unused for the idle timeout, at most once per idle timeout.
+	 */
+	private void sweep(Stripe[] stripes) {
+		long now = System.currentTimeMillis();
+		if (now - this.sweptAt < this.idleTimeout) {
+			return;
+		}
+		this.sweptAt = now;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				if (stripe.socket != null && now - stripe.usedAt >= this.idleTimeout) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("closing idle stream " + stripe.socket.getLocalSocketAddress());
+					}
+					stripe.close();
+				}
+			}
+		}
+	}
+
+	private void closeStripes() {
+		Stripe[] stripes = this.stripes;
+		if (stripes != null) {
+			this.stripes = null;
+			for (Stripe stripe : stripes) {
+				synchronized (stripe) {
+					stripe.close();
+					stripe.retired = true;
+				}
+			}
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		try {
+			super.stop();
+		}
+		finally {
+			closeStripes();
+		}
+	}
+
+	/**
+	 * @return the number of stripes with an open stream
+	 * @since 1.2
+	 */
+	public int getOpenStripes() {
+		Stripe[] stripes = this.stripes;
+		int open = 0;
+		if (stripes != null) {
+			for (Stripe stripe : stripes) {
+				if (stripe.socket != null) {
+					open++;
+				}
+			}
+		}
+		return open;
+	}
+
+	/**
+	 * Set the number of streams threads are spread over. Defaults to 1, a single
+	 * stream shared by all threads; the number of cores is a good start for many
+	 * producing threads.
+	 * @param stripes the number of stripes
+	 * @since 1.2
+	 */
+	public void setStripes(int stripes) {
+		Assert.isTrue(stripes > 0, "stripes must be greater than 0");
+		this.stripeCount = stripes;
+	}
+
+	public int getStripes() {
+		return stripeCount;
+	}
+
+	/**
+	 * @param idleTimeout the time in ms after which the unused stream of a stripe is
+	 * closed, {@value #DEFAULT_IDLE_TIMEOUT} by default
+	 * @since 1.2
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
 
 	public String getIndex() {
 		return index;
@@ -76,4 +262,48 @@ public class SplunkIndexWriter extends AbstractSplunkDataWriter {
 		this.index = index;
 	}
 
+	@Override
+	protected void addMetricsTags(Map<String, String> tags) {
+		super.addMetricsTags(tags);
+		if (index != null) {
+			tags.put("index", index);
+		}
+	}
+
+	/**
+	 * A stream and the threads writing to it.
+	 */
+	private final class Stripe {
+
+		private Socket socket;
+
+		private long usedAt;
+
+		private boolean retired;
+
+		OutputStream open(Service service) throws IOException {
+			if (this.retired) {
+				throw new IOException("stream closed, the writer was stopped or reconnected");
+			}
+			if (this.socket == null) {
+				this.socket = attach(service);
+			}
+			this.usedAt = System.currentTimeMillis();
+			return this.socket.getOutputStream();
+		}
+
+		void close() {
+			if (this.socket != null) {
+				try {
+					this.socket.close();
+				}
+				catch (IOException e) {
+					// already broken
+				}
+				this.socket = null;
+			}
+		}
+
+	}
+
 }
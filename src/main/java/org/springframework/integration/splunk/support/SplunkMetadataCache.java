@@ -0,0 +1,266 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.splunk.Application;
+import com.splunk.Args;
+import com.splunk.HttpException;
+import com.splunk.Index;
+import com.splunk.Input;
+import com.splunk.SavedSearch;
+import com.splunk.Service;
+
+import org.springframework.util.Assert;
+
+/**
+ * Caches the indexes, inputs, saved searches and apps looked up on Splunk servers, so
+ * that readers and writers do not fetch a whole collection from the REST API for
+ * every event or poll.
+ * <p>
+ * Entries are kept per {@link Service} instance for the {@link #setTimeToLive(long)
+ * time to live}, since the entities are bound to the session, credentials and
+ * namespace of the service that looked them up; two services connected to the same
+ * server as different users never see each other's entries. Lookups that found
+ * nothing are cached as well. A service's entries are discarded as soon as a request
+ * on one of its entities fails with a 401 or a 404, see
+ * {@link #invalidateIfStale(Service, Exception)}, and once none of them has been
+ * used for the time to live.
+ * <p>
+ * All readers and writers share the {@link #getSharedInstance() shared instance}
+ * unless configured with a cache of their own.
+ *
+ * @since 1.2
+ */
+public class SplunkMetadataCache {
+
+	public static final long DEFAULT_TIME_TO_LIVE = 60000;
+
+	private static final SplunkMetadataCache SHARED_INSTANCE = new SplunkMetadataCache();
+
+	private static final Object NOT_FOUND = new Object();
+
+	private final ConcurrentMap<ServiceKey, Entries> services = new ConcurrentHashMap<ServiceKey, Entries>();
+
+	private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+	/**
+	 * @return the cache used by readers and writers that were not given one
+	 */
+	public static SplunkMetadataCache getSharedInstance() {
+		return SHARED_INSTANCE;
+	}
+
+	/**
+	 * @return the index, or null if the service sees none of that name
+	 */
+	public Index getIndex(final Service service, final String name) {
+		return lookup(service, "index:" + name, new Loader<Index>() {
+
+			public Index load() {
+				return service.getIndexes().get(name);
+			}
+
+		});
+	}
+
+	/**
+	 * @return the input, or null if the service sees none of that name
+	 */
+	public Input getInput(final Service service, final String name) {
+		return lookup(service, "input:" + name, new Loader<Input>() {
+
+			public Input load() {
+				return service.getInputs().get(name);
+			}
+
+		});
+	}
+
+	/**
+	 * @param namespace the {@code app} and {@code owner} arguments of the lookup
+	 * @return the saved search, or null if the namespace has none of that name
+	 */
+	public SavedSearch getSavedSearch(final Service service, final String name, final Args namespace) {
+		return lookup(service, "savedsearch:" + namespace.get("app") + "/" + namespace.get("owner") + ":" + name,
+				new Loader<SavedSearch>() {
+
+					public SavedSearch load() {
+						return service.getSavedSearches(namespace).get(name);
+					}
+
+				});
+	}
+
+	/**
+	 * @return the app, or null if the service sees none of that name
+	 */
+	public Application getApplication(final Service service, final String name) {
+		return lookup(service, "app:" + name, new Loader<Application>() {
+
+			public Application load() {
+				return service.getApplications().get(name);
+			}
+
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T lookup(Service service, String key, Loader<T> loader) {
+		long now = System.currentTimeMillis();
+		Entries entries = entries(service, now);
+		Entry entry = entries.get(key);
+		if (entry == null || entry.expiresAt <= now) {
+			T value;
+			try {
+				value = loader.load();
+			}
+			catch (HttpException e) {
+				invalidateIfStale(service, e);
+				throw e;
+			}
+			entry = new Entry(value == null ? NOT_FOUND : value, now + this.timeToLive);
+			entries.put(key, entry);
+			purge(now);
+		}
+		return entry.value == NOT_FOUND ? null : (T) entry.value;
+	}
+
+	private Entries entries(Service service, long now) {
+		ServiceKey key = new ServiceKey(service);
+		Entries entries = this.services.get(key);
+		if (entries == null) {
+			entries = new Entries();
+			Entries existing = this.services.putIfAbsent(key, entries);
+			if (existing != null) {
+				entries = existing;
+			}
+		}
+		entries.lastUsed = now;
+		return entries;
+	}
+
+	/**
+	 * Drop the entries of services that have not been used for the time to live, so
+	 * that services replaced by their factory do not linger.
+	 */
+	private void purge(long now) {
+		for (Iterator<Entries> iterator = this.services.values().iterator(); iterator.hasNext();) {
+			if (iterator.next().lastUsed + this.timeToLive < now) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Discard the entries of the service if the exception is an HTTP 404, as one of
+	 * them refers to an entity that no longer exists, or an HTTP 401, as the session
+	 * they were looked up with has expired or lost its rights.
+	 * @return true if the entries were discarded
+	 */
+	public boolean invalidateIfStale(Service service, Exception e) {
+		if (e instanceof HttpException) {
+			int status = ((HttpException) e).getStatus();
+			if (status == 401 || status == 404) {
+				invalidate(service);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Discard all entries of the service.
+	 */
+	public void invalidate(Service service) {
+		this.services.remove(new ServiceKey(service));
+	}
+
+	/**
+	 * Discard all entries.
+	 */
+	public void invalidateAll() {
+		this.services.clear();
+	}
+
+	/**
+	 * @param timeToLive the time in ms an entry is used before it is looked up again,
+	 * {@value #DEFAULT_TIME_TO_LIVE} by default
+	 */
+	public void setTimeToLive(long timeToLive) {
+		Assert.isTrue(timeToLive >= 0, "timeToLive must not be negative");
+		this.timeToLive = timeToLive;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	private interface Loader<T> {
+
+		T load();
+
+	}
+
+	/**
+	 * Identity of a service: services do not define equality, and two of them
+	 * connected to the same server may be logged in as different users.
+	 */
+	private static final class ServiceKey {
+
+		private final Service service;
+
+		ServiceKey(Service service) {
+			this.service = service;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof ServiceKey && ((ServiceKey) other).service == this.service;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.service);
+		}
+
+	}
+
+	@SuppressWarnings("serial")
+	private static final class Entries extends ConcurrentHashMap<String, Entry> {
+
+		private volatile long lastUsed;
+
+	}
+
+	private static final class Entry {
+
+		private final Object value;
+
+		private final long expiresAt;
+
+		Entry(Object value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
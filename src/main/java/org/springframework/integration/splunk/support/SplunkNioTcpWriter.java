@@ -0,0 +1,219 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link SplunkTcpWriter} writing through a {@link SocketChannel}.
+ * <p>
+ * Events are rendered straight into a set of reused direct {@link ByteBuffer}s, which
+ * are handed to the channel in a single gathering write. Events larger than a buffer
+ * are encoded across several. The buffers are not allocated per event, and the
+ * channel does not need to copy heap data into a temporary direct buffer.
+ *
+ * @since 1.2
+ */
+public class SplunkNioTcpWriter extends SplunkTcpWriter {
+
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Buffers kept for reuse after a write; larger writes allocate temporary ones.
+	 */
+	private static final int MAX_POOLED_BUFFERS = 16;
+
+	private final Object writeMonitor = new Object();
+
+	private final CharsetEncoder encoder = UTF8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private ByteBuffer[] buffers = new ByteBuffer[0];
+
+	private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+	private int sendBufferSize;
+
+	private boolean tcpNoDelay;
+
+	private boolean keepAlive;
+
+	public SplunkNioTcpWriter(ServiceFactory serviceFactory, Args args) {
+		super(serviceFactory, args);
+	}
+
+	@Override
+	protected Socket createSocket(Service service) throws IOException {
+		checkInput(service);
+		SocketChannel channel = SocketChannel.open();
+		try {
+			if (this.sendBufferSize > 0) {
+				channel.setOption(StandardSocketOptions.SO_SNDBUF, this.sendBufferSize);
+			}
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, this.tcpNoDelay);
+			channel.setOption(StandardSocketOptions.SO_KEEPALIVE, this.keepAlive);
+			channel.connect(new InetSocketAddress(service.getHost(), getPort()));
+		}
+		catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel.socket();
+	}
+
+	@Override
+	protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+		synchronized (this.writeMonitor) {
+			ByteBuffer buffer = buffer(0);
+			try {
+				event.writeTo(buffer);
+				getMetrics().addBytesWritten(write(socket.getChannel(), 1));
+				return;
+			}
+			catch (BufferOverflowException e) {
+				// larger than a buffer, encode it across several
+			}
+			CharBuffer chars = CharBuffer.wrap(event.toString());
+			this.encoder.reset();
+			int used = 1;
+			CoderResult result;
+			while ((result = this.encoder.encode(chars, buffer, true)).isOverflow()) {
+				buffer = buffer(used++);
+			}
+			if (result.isError()) {
+				result.throwException();
+			}
+			while (this.encoder.flush(buffer).isOverflow()) {
+				buffer = buffer(used++);
+			}
+			getMetrics().addBytesWritten(write(socket.getChannel(), used));
+		}
+	}
+
+	@Override
+	protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+			throws IOException {
+		synchronized (this.writeMonitor) {
+			int used = 0;
+			int offset = 0;
+			while (offset < length) {
+				ByteBuffer buffer = buffer(used++);
+				int chunk = Math.min(buffer.remaining(), length - offset);
+				buffer.put(batch, offset, chunk);
+				offset += chunk;
+			}
+			write(socket.getChannel(), used);
+		}
+	}
+
+	/**
+	 * @return the cleared buffer at the index, allocating it if necessary
+	 */
+	private ByteBuffer buffer(int index) {
+		if (index == this.buffers.length) {
+			this.buffers = Arrays.copyOf(this.buffers, index + 1);
+			this.buffers[index] = ByteBuffer.allocateDirect(this.bufferSize);
+		}
+		ByteBuffer buffer = this.buffers[index];
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * @return the number of bytes written
+	 */
+	private long write(SocketChannel channel, int used) throws IOException {
+		Assert.state(channel != null, "not connected through a socket channel");
+		long remaining = 0;
+		for (int i = 0; i < used; i++) {
+			remaining += this.buffers[i].flip().remaining();
+		}
+		long length = remaining;
+		while (remaining > 0) {
+			remaining -= channel.write(this.buffers, 0, used);
+		}
+		if (this.buffers.length > MAX_POOLED_BUFFERS) {
+			this.buffers = Arrays.copyOf(this.buffers, MAX_POOLED_BUFFERS);
+		}
+		return length;
+	}
+
+	/**
+	 * @param bufferSize the size of each pooled direct buffer, {@value #DEFAULT_BUFFER_SIZE} by default
+	 */
+	public void setBufferSize(int bufferSize) {
+		Assert.isTrue(bufferSize > 0, "bufferSize must be greater than 0");
+		this.bufferSize = bufferSize;
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @param sendBufferSize the SO_SNDBUF size, 0 for the system default
+	 */
+	public void setSendBufferSize(int sendBufferSize) {
+		this.sendBufferSize = sendBufferSize;
+	}
+
+	public int getSendBufferSize() {
+		return sendBufferSize;
+	}
+
+	/**
+	 * @param tcpNoDelay whether to disable Nagle's algorithm (TCP_NODELAY)
+	 */
+	public void setTcpNoDelay(boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+	}
+
+	public boolean isTcpNoDelay() {
+		return tcpNoDelay;
+	}
+
+	/**
+	 * @param keepAlive whether to enable SO_KEEPALIVE
+	 */
+	public void setKeepAlive(boolean keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+
+}
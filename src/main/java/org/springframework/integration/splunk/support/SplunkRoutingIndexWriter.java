@@ -0,0 +1,627 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import com.splunk.Args;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.integration.expression.ExpressionUtils;
+import org.springframework.integration.splunk.core.MessageDataWriter;
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link MessageDataWriter} streaming every message to an index chosen per message,
+ * so that a single adapter can feed many indexes.
+ * <p>
+ * The index, and optionally the sourcetype, source and host, are evaluated against
+ * the message; by default they are taken from the {@link SplunkHeaders#INDEX},
+ * {@link SplunkHeaders#SOURCE_TYPE}, {@link SplunkHeaders#SOURCE} and
+ * {@link SplunkHeaders#HOST} headers. A null result falls back to the default index
+ * and the configured {@link Args} respectively.
+ * <p>
+ * Each distinct combination gets a {@link SplunkIndexWriter} of its own, created on
+ * first use with the configuration of the {@link #getWriterTemplate() writer
+ * template}, so routed events are batched, queued, spooled, throttled and measured
+ * like those of any other writer. A spool directory gets a sub directory per
+ * combination. At most {@link #setMaxStreams(int) max streams} writers are kept;
+ * beyond that the least recently used one is stopped, as is any writer that has been
+ * idle for longer than the {@link #setIdleTimeout(long) idle timeout}. Writers are
+ * started and stopped by the writing threads outside of any shared lock, and never
+ * while another thread is writing to them.
+ * <p>
+ * The batch linger, stream flush and spool replay tasks of all routed writers run on
+ * one scheduler of {@link #setSchedulerPoolSize(int) scheduler pool size} threads,
+ * unless the template is given a {@link AbstractSplunkDataWriter#setScheduler
+ * scheduler} of its own. With a queue capacity every routed writer keeps its drain
+ * thread, so that up to max streams such threads are running.
+ *
+ * @since 1.2
+ */
+public class SplunkRoutingIndexWriter implements MessageDataWriter, SmartLifecycle, BeanFactoryAware {
+
+	public static final int DEFAULT_MAX_STREAMS = 64;
+
+	public static final long DEFAULT_IDLE_TIMEOUT = 60000;
+
+	public static final int DEFAULT_SCHEDULER_POOL_SIZE = 2;
+
+	private static final Log logger = LogFactory.getLog(SplunkRoutingIndexWriter.class);
+
+	private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+	private final ServiceFactory serviceFactory;
+
+	private final Args args;
+
+	private final SplunkIndexWriter writerTemplate;
+
+	/**
+	 * The writers in access order, least recently used first.
+	 */
+	private final LinkedHashMap<Route, RoutedWriter> writers = new LinkedHashMap<Route, RoutedWriter>(16, 0.75f,
+			true);
+
+	private Expression indexExpression = header(SplunkHeaders.INDEX);
+
+	private Expression sourceTypeExpression = header(SplunkHeaders.SOURCE_TYPE);
+
+	private Expression sourceExpression = header(SplunkHeaders.SOURCE);
+
+	private Expression hostExpression = header(SplunkHeaders.HOST);
+
+	private int maxStreams = DEFAULT_MAX_STREAMS;
+
+	private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+	private int schedulerPoolSize = DEFAULT_SCHEDULER_POOL_SIZE;
+
+	/**
+	 * The scheduler shared by the routed writers while running, guarded by the map of
+	 * writers; null if the template has a scheduler
+	 */
+	private ScheduledExecutorService scheduler;
+
+	private EvaluationContext evaluationContext = ExpressionUtils.createStandardEvaluationContext();
+
+	private volatile boolean running;
+
+	private int phase;
+
+	private boolean autoStartup = true;
+
+	/**
+	 * @param serviceFactory the factory of the service the streams are attached through
+	 * @param args the arguments of all streams, overridden by the evaluated sourcetype,
+	 * source and host
+	 */
+	public SplunkRoutingIndexWriter(ServiceFactory serviceFactory, Args args) {
+		Assert.notNull(serviceFactory, "service factory cannot be null");
+		this.serviceFactory = serviceFactory;
+		this.args = args == null ? new Args() : args;
+		this.writerTemplate = new SplunkIndexWriter(serviceFactory, this.args);
+		this.writerTemplate.setAutoStartup(false);
+	}
+
+	private static Expression header(String name) {
+		return PARSER.parseExpression("headers['" + name + "']");
+	}
+
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		this.evaluationContext = ExpressionUtils.createStandardEvaluationContext(beanFactory);
+	}
+
+	public void write(SplunkEvent event) throws Exception {
+		write(new GenericMessage<SplunkEvent>(event));
+	}
+
+	public void write(Collection<SplunkEvent> events) throws Exception {
+		write(new GenericMessage<Collection<SplunkEvent>>(events));
+	}
+
+	public void write(Message<?> message) throws Exception {
+		Route route = new Route(evaluate(this.indexExpression, message),
+				evaluate(this.sourceTypeExpression, message), evaluate(this.sourceExpression, message),
+				evaluate(this.hostExpression, message));
+		RoutedWriter routed = acquire(route);
+		try {
+			routed.start();
+			routed.writer.write(message);
+		}
+		finally {
+			release(routed);
+		}
+	}
+
+	private String evaluate(Expression expression, Message<?> message) {
+		return expression == null ? null : expression.getValue(this.evaluationContext, message, String.class);
+	}
+
+	/**
+	 * Look up or create the writer of the route and retire the idle and least recently
+	 * used ones; the retired writers that are not in use are stopped on the way out.
+	 */
+	private RoutedWriter acquire(Route route) {
+		List<RoutedWriter> retired = new ArrayList<RoutedWriter>();
+		RoutedWriter routed;
+		synchronized (this.writers) {
+			if (!this.running) {
+				throw new IllegalStateException("the routing writer is not running");
+			}
+			long now = System.currentTimeMillis();
+			long idleBefore = now - this.idleTimeout;
+			boolean full = !this.writers.containsKey(route) && this.writers.size() >= this.maxStreams;
+			Iterator<RoutedWriter> iterator = this.writers.values().iterator();
+			while (iterator.hasNext()) {
+				RoutedWriter eldest = iterator.next();
+				if (eldest.route.equals(route)) {
+					continue;
+				}
+				if (eldest.lastUsed >= idleBefore && !full) {
+					break;
+				}
+				iterator.remove();
+				if (retire(eldest)) {
+					retired.add(eldest);
+				}
+				full = false;
+			}
+			routed = this.writers.get(route);
+			if (routed == null) {
+				routed = new RoutedWriter(route, createWriter(route));
+				this.writers.put(route, routed);
+			}
+			routed.users++;
+			routed.lastUsed = now;
+		}
+		stop(retired);
+		return routed;
+	}
+
+	private void release(RoutedWriter routed) {
+		boolean stop;
+		synchronized (this.writers) {
+			routed.users--;
+			stop = routed.retired && routed.users == 0;
+		}
+		if (stop) {
+			routed.stop();
+		}
+	}
+
+	/**
+	 * Mark a writer removed from the map as retired, guarded by the map.
+	 * @return true if no thread is writing to it, so that it can be stopped right away
+	 */
+	private static boolean retire(RoutedWriter routed) {
+		routed.retired = true;
+		return routed.users == 0;
+	}
+
+	private static void stop(List<RoutedWriter> retired) {
+		for (RoutedWriter routed : retired) {
+			routed.stop();
+		}
+	}
+
+	/**
+	 * Create the writer of a route with the configuration of the
+	 * {@link #getWriterTemplate() template}.
+	 */
+	protected SplunkIndexWriter createWriter(Route route) {
+		Args args = new Args();
+		args.putAll(this.args);
+		if (route.sourceType != null) {
+			args.put("sourcetype", route.sourceType);
+		}
+		if (route.source != null) {
+			args.put("source", route.source);
+		}
+		if (route.host != null) {
+			args.put("host", route.host);
+		}
+		SplunkIndexWriter template = this.writerTemplate;
+		SplunkIndexWriter writer = new SplunkIndexWriter(this.serviceFactory, args);
+		writer.setIndex(route.index);
+		writer.setStripes(template.getStripes());
+		writer.setIdleTimeout(template.getIdleTimeout());
+		writer.setBatchSize(template.getBatchSize());
+		writer.setBatchMaxBytes(template.getBatchMaxBytes());
+		writer.setBatchLinger(template.getBatchLinger());
+		writer.setQueueCapacity(template.getQueueCapacity());
+		writer.setOverflowPolicy(template.getOverflowPolicy());
+		writer.setFlushPolicy(template.getFlushPolicy());
+		writer.setFlushEvents(template.getFlushEvents());
+		writer.setFlushBytes(template.getFlushBytes());
+		writer.setFlushInterval(template.getFlushInterval());
+		if (template.getSpoolDirectory() != null) {
+			writer.setSpoolDirectory(new File(template.getSpoolDirectory(), route.getDirectoryName()));
+		}
+		writer.setSpoolSegmentSize(template.getSpoolSegmentSize());
+		writer.setSpoolMaxBytes(template.getSpoolMaxBytes());
+		writer.setSpoolRetryInterval(template.getSpoolRetryInterval());
+		writer.setMetadataCache(template.getMetadataCache());
+		writer.setThrottle(template.getThrottle());
+		writer.setLazyConnect(template.isLazyConnect());
+		writer.setWarmUpExecutor(template.getWarmUpExecutor());
+		writer.setScheduler(template.getScheduler() != null ? template.getScheduler() : this.scheduler);
+		writer.setAutoStartup(false);
+		return writer;
+	}
+
+	/**
+	 * @return the writer whose configuration, such as batching, queueing, spooling and
+	 * throttling, every routed writer is created with; it is never started itself
+	 */
+	public SplunkIndexWriter getWriterTemplate() {
+		return writerTemplate;
+	}
+
+	/**
+	 * @return the writers currently open, least recently used first
+	 */
+	public List<SplunkIndexWriter> getWriters() {
+		synchronized (this.writers) {
+			List<SplunkIndexWriter> writers = new ArrayList<SplunkIndexWriter>(this.writers.size());
+			for (RoutedWriter routed : this.writers.values()) {
+				writers.add(routed.writer);
+			}
+			return writers;
+		}
+	}
+
+	/**
+	 * @param indexExpression evaluates the index of a message, null for the default index;
+	 * the {@link SplunkHeaders#INDEX} header by default
+	 */
+	public void setIndexExpression(Expression indexExpression) {
+		this.indexExpression = indexExpression;
+	}
+
+	/**
+	 * @param sourceTypeExpression evaluates the sourcetype of a message, null for the
+	 * configured one; the {@link SplunkHeaders#SOURCE_TYPE} header by default
+	 */
+	public void setSourceTypeExpression(Expression sourceTypeExpression) {
+		this.sourceTypeExpression = sourceTypeExpression;
+	}
+
+	/**
+	 * @param sourceExpression evaluates the source of a message, null for the configured
+	 * one; the {@link SplunkHeaders#SOURCE} header by default
+	 */
+	public void setSourceExpression(Expression sourceExpression) {
+		this.sourceExpression = sourceExpression;
+	}
+
+	/**
+	 * @param hostExpression evaluates the host of a message, null for the configured one;
+	 * the {@link SplunkHeaders#HOST} header by default
+	 */
+	public void setHostExpression(Expression hostExpression) {
+		this.hostExpression = hostExpression;
+	}
+
+	/**
+	 * @param maxStreams the maximum number of routed writers, {@value #DEFAULT_MAX_STREAMS} by default
+	 */
+	public void setMaxStreams(int maxStreams) {
+		Assert.isTrue(maxStreams > 0, "maxStreams must be greater than 0");
+		this.maxStreams = maxStreams;
+	}
+
+	public int getMaxStreams() {
+		return maxStreams;
+	}
+
+	/**
+	 * @param idleTimeout the time in ms after which an unused writer is stopped,
+	 * {@value #DEFAULT_IDLE_TIMEOUT} by default
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		Assert.isTrue(idleTimeout > 0, "idleTimeout must be greater than 0");
+		this.idleTimeout = idleTimeout;
+	}
+
+	public long getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	/**
+	 * @param schedulerPoolSize the number of threads running the periodic tasks of all
+	 * routed writers, {@value #DEFAULT_SCHEDULER_POOL_SIZE} by default
+	 */
+	public void setSchedulerPoolSize(int schedulerPoolSize) {
+		Assert.isTrue(schedulerPoolSize > 0, "schedulerPoolSize must be greater than 0");
+		this.schedulerPoolSize = schedulerPoolSize;
+	}
+
+	public int getSchedulerPoolSize() {
+		return schedulerPoolSize;
+	}
+
+	/**
+	 * @param metadataCache the cache of indexes, the
+	 * {@link SplunkMetadataCache#getSharedInstance() shared instance} by default
+	 */
+	public void setMetadataCache(SplunkMetadataCache metadataCache) {
+		this.writerTemplate.setMetadataCache(metadataCache);
+	}
+
+	/**
+	 * @return the number of routed writers
+	 */
+	public int getStreamCount() {
+		synchronized (this.writers) {
+			return this.writers.size();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.Lifecycle#start()
+	 */
+	public void start() {
+		synchronized (this.writers) {
+			if (this.running) {
+				return;
+			}
+			if (this.writerTemplate.getScheduler() == null) {
+				CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("splunk-routing-");
+				threadFactory.setDaemon(true);
+				ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(this.schedulerPoolSize,
+						threadFactory);
+				scheduler.setRemoveOnCancelPolicy(true);
+				this.scheduler = scheduler;
+			}
+			this.running = true;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.Lifecycle#stop()
+	 */
+	public void stop() {
+		List<RoutedWriter> retired = new ArrayList<RoutedWriter>();
+		List<RoutedWriter> busy = new ArrayList<RoutedWriter>();
+		ScheduledExecutorService scheduler;
+		synchronized (this.writers) {
+			this.running = false;
+			for (RoutedWriter routed : this.writers.values()) {
+				if (retire(routed)) {
+					retired.add(routed);
+				}
+				else {
+					busy.add(routed);
+				}
+			}
+			this.writers.clear();
+			scheduler = this.scheduler;
+			this.scheduler = null;
+		}
+		stop(retired);
+		for (RoutedWriter routed : busy) {
+			routed.close();
+		}
+		if (scheduler != null) {
+			// the writers still in use are stopped by their last user and write out
+			// their batches then; their periodic tasks are cancelled right away
+			scheduler.shutdown();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.Lifecycle#isRunning()
+	 */
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.Phased#getPhase()
+	 */
+	public int getPhase() {
+		return this.phase;
+	}
+
+	public void setPhase(int phase) {
+		this.phase = phase;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.SmartLifecycle#isAutoStartup()
+	 */
+	public boolean isAutoStartup() {
+		return this.autoStartup;
+	}
+
+	public void setAutoStartup(boolean autoStartup) {
+		this.autoStartup = autoStartup;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.springframework.context.SmartLifecycle#stop(java.lang.Runnable)
+	 */
+	public void stop(Runnable callback) {
+		this.stop();
+		callback.run();
+	}
+
+	/**
+	 * The index, sourcetype, source and host events are written with; null stands for
+	 * the default.
+	 */
+	protected static final class Route {
+
+		private final String index;
+
+		private final String sourceType;
+
+		private final String source;
+
+		private final String host;
+
+		Route(String index, String sourceType, String source, String host) {
+			this.index = index;
+			this.sourceType = sourceType;
+			this.source = source;
+			this.host = host;
+		}
+
+		public String getIndex() {
+			return index;
+		}
+
+		public String getSourceType() {
+			return sourceType;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		public String getHost() {
+			return host;
+		}
+
+		/**
+		 * @return a file name made of the route, stable across restarts so that a
+		 * spool is replayed by the writer of the same route
+		 */
+		String getDirectoryName() {
+			StringBuilder name = new StringBuilder(this.index == null ? "default" : this.index);
+			for (String part : new String[] { this.sourceType, this.source, this.host }) {
+				if (part != null) {
+					name.append('-').append(part);
+				}
+			}
+			return name.toString().replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(hashCode());
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Route)) {
+				return false;
+			}
+			Route that = (Route) o;
+			return ObjectUtils.nullSafeEquals(this.index, that.index)
+					&& ObjectUtils.nullSafeEquals(this.sourceType, that.sourceType)
+					&& ObjectUtils.nullSafeEquals(this.source, that.source)
+					&& ObjectUtils.nullSafeEquals(this.host, that.host);
+		}
+
+		@Override
+		public int hashCode() {
+			int result = ObjectUtils.nullSafeHashCode(this.index);
+			result = 31 * result + ObjectUtils.nullSafeHashCode(this.sourceType);
+			result = 31 * result + ObjectUtils.nullSafeHashCode(this.source);
+			result = 31 * result + ObjectUtils.nullSafeHashCode(this.host);
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return "Route{index='" + this.index + "', sourceType='" + this.sourceType + "', source='" + this.source
+					+ "', host='" + this.host + "'}";
+		}
+
+	}
+
+	/**
+	 * The writer of a route and the threads using it, guarded by the map of writers;
+	 * the writer is started by the first thread using it unless it has been closed.
+	 */
+	private static final class RoutedWriter {
+
+		private final Route route;
+
+		private final SplunkIndexWriter writer;
+
+		private int users;
+
+		private long lastUsed;
+
+		private boolean retired;
+
+		private boolean started;
+
+		private boolean closed;
+
+		RoutedWriter(Route route, SplunkIndexWriter writer) {
+			this.route = route;
+			this.writer = writer;
+		}
+
+		synchronized void start() {
+			if (this.closed) {
+				throw new IllegalStateException("the routing writer is not running");
+			}
+			if (!this.started) {
+				this.writer.start();
+				this.started = true;
+				if (logger.isDebugEnabled()) {
+					logger.debug("started a writer for " + this.route);
+				}
+			}
+		}
+
+		/**
+		 * Keep the writer from being started once the routing writer has stopped.
+		 */
+		synchronized void close() {
+			this.closed = true;
+		}
+
+		synchronized void stop() {
+			if (this.started) {
+				try {
+					this.writer.stop();
+				}
+				catch (RuntimeException e) {
+					logger.warn("failed to stop the writer for " + this.route, e);
+				}
+				this.started = false;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.Map;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+
+/**
+ * A {@code org.springframework.integration.splunk.core.DataWriter} forwarding cooked
+ * events to a receiving port of the Splunk server (a {@code splunktcp} input, 9997 by
+ * convention) in the Splunk-to-Splunk protocol of the universal forwarder.
+ * <p>
+ * After the cooked mode signature every event is sent as a frame of key/value pairs:
+ * the raw event, its time, the index and the host, source and sourcetype metadata
+ * taken from the adapter, and the markers telling the indexer that the event is
+ * already line broken. The indexer does not need to break lines, extract timestamps
+ * or assign metadata. The metadata part of the frames is encoded once when the writer
+ * is started.
+ *
+ * @since 1.2
+ */
+public class SplunkS2sWriter extends SplunkTcpWriter {
+
+	public static final String SIGNATURE = "--splunk-cooked-mode-v2--";
+
+	static final int SIGNATURE_LENGTH = 128;
+
+	static final int SERVER_NAME_LENGTH = 256;
+
+	static final int MANAGEMENT_PORT_LENGTH = 16;
+
+	private static final byte[] RAW_KEY = key("_raw");
+
+	private static final byte[] TIME_KEY = key("_time");
+
+	private final Object writeMonitor = new Object();
+
+	private final FrameBuffer raw = new FrameBuffer(256);
+
+	private final FrameBuffer frame = new FrameBuffer(512);
+
+	private String index;
+
+	private String serverName;
+
+	private String managementPort = "8089";
+
+	private volatile byte[] metadata;
+
+	private int metadataPairs;
+
+	private OutputStream out;
+
+	public SplunkS2sWriter(ServiceFactory serviceFactory, Args args) {
+		super(serviceFactory, args);
+	}
+
+	@Override
+	public synchronized void start() {
+		encodeMetadata();
+		super.start();
+	}
+
+	/**
+	 * Connect and send the cooked mode signature.
+	 */
+	@Override
+	protected Socket createSocket(Service service) throws IOException {
+		Socket socket = super.createSocket(service);
+		synchronized (this.writeMonitor) {
+			OutputStream out = socket.getOutputStream();
+			try {
+				out.write(signature());
+				out.flush();
+			}
+			catch (IOException e) {
+				socket.close();
+				throw e;
+			}
+			this.out = out;
+		}
+		return socket;
+	}
+
+	private byte[] signature() throws UnknownHostException {
+		String serverName = this.serverName != null ? this.serverName : InetAddress.getLocalHost().getHostName();
+		byte[] signature = new byte[SIGNATURE_LENGTH + SERVER_NAME_LENGTH + MANAGEMENT_PORT_LENGTH];
+		put(signature, 0, SIGNATURE_LENGTH, SIGNATURE);
+		put(signature, SIGNATURE_LENGTH, SERVER_NAME_LENGTH, serverName);
+		put(signature, SIGNATURE_LENGTH + SERVER_NAME_LENGTH, MANAGEMENT_PORT_LENGTH, this.managementPort);
+		return signature;
+	}
+
+	private static void put(byte[] signature, int offset, int length, String value) {
+		byte[] bytes = value.getBytes(UTF8);
+		// leave room for the terminating zero
+		System.arraycopy(bytes, 0, signature, offset, Math.min(bytes.length, length - 1));
+	}
+
+	@Override
+	protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+		synchronized (this.writeMonitor) {
+			this.frame.reset();
+			render(event, this.frame);
+			this.out.write(this.frame.buffer(), 0, this.frame.size());
+			this.out.flush();
+			getMetrics().addBytesWritten(this.frame.size());
+		}
+	}
+
+	@Override
+	protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+			throws IOException {
+		synchronized (this.writeMonitor) {
+			this.out.write(batch, 0, length);
+			this.out.flush();
+		}
+	}
+
+	/**
+	 * Render the event as a cooked frame: its size, the number of key/value pairs,
+	 * the pairs, and a trailer.
+	 */
+	@Override
+	protected void render(SplunkEvent event, OutputStream out) throws IOException {
+		byte[] metadata = this.metadata;
+		if (metadata == null) {
+			metadata = encodeMetadata();
+		}
+		synchronized (this.raw) {
+			this.raw.reset();
+			int rawLength = event.writeTo(this.raw);
+			if (rawLength > 0 && this.raw.buffer()[rawLength - 1] == '\n') {
+				rawLength--;
+			}
+			byte[] time = String.valueOf(SplunkEvent.currentTimeMillis() / 1000).getBytes(UTF8);
+			int size = 4 + pairLength(RAW_KEY, rawLength) + pairLength(TIME_KEY, time.length)
+					+ metadata.length + 4 + RAW_KEY.length;
+			writeInt(out, size);
+			writeInt(out, this.metadataPairs + 2);
+			writePair(out, RAW_KEY, this.raw.buffer(), rawLength);
+			writePair(out, TIME_KEY, time, time.length);
+			out.write(metadata);
+			// trailer
+			writeInt(out, 0);
+			out.write(RAW_KEY);
+		}
+	}
+
+	/**
+	 * Encode the pairs shared by all frames.
+	 */
+	private synchronized byte[] encodeMetadata() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		int pairs = 0;
+		try {
+			if (this.index != null) {
+				pairs += writePair(out, "_MetaData:Index", this.index);
+			}
+			pairs += writePair(out, "MetaData:Host", prefixed("host::", this.args.get("host")));
+			pairs += writePair(out, "MetaData:Source", prefixed("source::", this.args.get("source")));
+			pairs += writePair(out, "MetaData:Sourcetype", prefixed("sourcetype::", this.args.get("sourcetype")));
+			pairs += writePair(out, "_linebreaker", "_linebreaker");
+			pairs += writePair(out, "_done", "_done");
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		this.metadataPairs = pairs;
+		this.metadata = out.toByteArray();
+		return this.metadata;
+	}
+
+	private static String prefixed(String prefix, Object value) {
+		return value == null ? null : prefix + value;
+	}
+
+	private static int writePair(OutputStream out, String key, String value) throws IOException {
+		if (value == null) {
+			return 0;
+		}
+		byte[] bytes = value.getBytes(UTF8);
+		writePair(out, key(key), bytes, bytes.length);
+		return 1;
+	}
+
+	private static void writePair(OutputStream out, byte[] key, byte[] value, int length) throws IOException {
+		out.write(key);
+		writeInt(out, length + 1);
+		out.write(value, 0, length);
+		out.write(0);
+	}
+
+	private static int pairLength(byte[] key, int valueLength) {
+		return key.length + 4 + valueLength + 1;
+	}
+
+	/**
+	 * @return the length prefixed, zero terminated key
+	 */
+	private static byte[] key(String key) {
+		byte[] bytes = key.getBytes(UTF8);
+		byte[] encoded = new byte[4 + bytes.length + 1];
+		int length = bytes.length + 1;
+		encoded[0] = (byte) (length >>> 24);
+		encoded[1] = (byte) (length >>> 16);
+		encoded[2] = (byte) (length >>> 8);
+		encoded[3] = (byte) length;
+		System.arraycopy(bytes, 0, encoded, 4, bytes.length);
+		return encoded;
+	}
+
+	private static void writeInt(OutputStream out, int value) throws IOException {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+
+	@Override
+	protected void addMetricsTags(Map<String, String> tags) {
+		super.addMetricsTags(tags);
+		if (this.index != null) {
+			tags.put("index", this.index);
+		}
+	}
+
+	/**
+	 * @param index the index the events are assigned to; the default index of the
+	 * receiving input if not set
+	 */
+	public void setIndex(String index) {
+		this.index = index;
+	}
+
+	public String getIndex() {
+		return index;
+	}
+
+	/**
+	 * @param serverName the forwarder name sent in the signature, the local host name
+	 * by default
+	 */
+	public void setServerName(String serverName) {
+		this.serverName = serverName;
+	}
+
+	public String getServerName() {
+		return serverName;
+	}
+
+	/**
+	 * @param managementPort the management port sent in the signature, 8089 by default
+	 */
+	public void setManagementPort(String managementPort) {
+		this.managementPort = managementPort;
+	}
+
+	/**
+	 * A {@link ByteArrayOutputStream} exposing its internal buffer.
+	 */
+	private static class FrameBuffer extends ByteArrayOutputStream {
+
+		FrameBuffer(int size) {
+			super(size);
+		}
+
+		byte[] buffer() {
+			return this.buf;
+		}
+
+	}
+
+}
@@ -18,6 +18,8 @@ package org.springframework.integration.splunk.support;
 
 import com.splunk.Service;
 
+import org.springframework.util.Assert;
+
 /**
  * Splunk server entity
  *
@@ -49,6 +51,8 @@ public class SplunkServer {
 	 */
 	private boolean checkServiceOnBorrow = false;
 
+	private int weight = 1;
+
 	/**
 	 * @return the host
 	 */
@@ -184,6 +188,24 @@ public class SplunkServer {
 		this.checkServiceOnBorrow = checkServiceOnBorrow;
 	}
 
+	/**
+	 * @return the relative share of events this server receives from a weighted
+	 * {@link LoadBalancingSplunkDataWriter}
+	 * @since 1.2
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * @param weight the relative share of events, 1 by default
+	 * @since 1.2
+	 */
+	public void setWeight(int weight) {
+		Assert.isTrue(weight > 0, "weight must be greater than 0");
+		this.weight = weight;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
@@ -15,11 +15,13 @@ package org.springframework.integration.splunk.support;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.util.Map;
 
 import org.springframework.integration.splunk.core.ServiceFactory;
 import org.springframework.integration.splunk.event.SplunkEvent;
 
 import com.splunk.Args;
+import com.splunk.HttpException;
 import com.splunk.Index;
 import com.splunk.Receiver;
 import com.splunk.Service;
@@ -52,12 +54,34 @@ public class SplunkSubmitWriter extends AbstractSplunkDataWriter {
 	protected void doWrite(SplunkEvent event, Socket socket, Service service,
 			Args args) throws IOException {
 
-		Index index = getIndex();
+		String data = event.toString();
+		submit(data, service, args);
+		getMetrics().addBytesWritten(data.getBytes(UTF8).length);
+	}
+
+	/**
+	 * Submit a whole batch of events in a single REST call.
+	 */
+	@Override
+	protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+			throws IOException {
+
+		submit(new String(batch, 0, length, UTF8), service, args);
+	}
+
+	private void submit(String data, Service service, Args args) {
+		Index index = getIndex(service);
 		if (index != null) {
-			index.submit(args, event.toString());
+			try {
+				index.submit(args, data);
+			}
+			catch (HttpException e) {
+				getMetadataCache().invalidateIfStale(service, e);
+				throw e;
+			}
 		} else {
 			Receiver receiver = service.getReceiver();
-			receiver.submit(args, event.toString());
+			receiver.submit(args, data);
 		}
 	}
 
@@ -77,8 +101,20 @@ public class SplunkSubmitWriter extends AbstractSplunkDataWriter {
 		this.index = index;
 	}
 
-	private Index getIndex() {
-		return (index == null) ? null : service.getIndexes().get(index);
+	public String getIndex() {
+		return index;
+	}
+
+	@Override
+	protected void addMetricsTags(Map<String, String> tags) {
+		super.addMetricsTags(tags);
+		if (index != null) {
+			tags.put("index", index);
+		}
+	}
+
+	private Index getIndex(Service service) {
+		return (index == null) ? null : getMetadataCache().getIndex(service, index);
 	}
 
 }
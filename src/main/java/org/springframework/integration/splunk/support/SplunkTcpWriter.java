@@ -39,11 +39,19 @@ public class SplunkTcpWriter extends AbstractSplunkDataWriter {
 
 	@Override
 	protected Socket createSocket(Service service) throws IOException {
+		checkInput(service);
+		return service.open(port);
+	}
 
-		Input input = service.getInputs().get(String.valueOf(port));
+	/**
+	 * Verify that an enabled tcp input exists for the port.
+	 * @param service the Splunk service
+	 * @since 1.2
+	 */
+	protected void checkInput(Service service) {
+		Input input = getMetadataCache().getInput(service, String.valueOf(port));
 		Assert.notNull(input, "no input defined for port " + port);
 		Assert.isTrue(!input.isDisabled(),String.format("input on port %d is disabled",port));
-		return service.open(port);
 	}
 
 	/**
@@ -53,5 +61,9 @@ public class SplunkTcpWriter extends AbstractSplunkDataWriter {
 		this.port = port;
 	}
 
+	public int getPort() {
+		return port;
+	}
+
 
 }
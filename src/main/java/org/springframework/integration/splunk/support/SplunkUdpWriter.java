@@ -0,0 +1,252 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.splunk.Args;
+import com.splunk.Input;
+import com.splunk.Service;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.util.Assert;
+
+/**
+ * A {@code org.springframework.integration.splunk.core.DataWriter} sending events
+ * to a UDP input of the Splunk server.
+ * <p>
+ * Delivery is fire-and-forget: the non-blocking {@link DatagramChannel} never makes a
+ * caller wait, and datagrams the socket cannot take are dropped and counted. Without
+ * batching every event is sent in a datagram of its own; with batching the events of
+ * a batch are packed into as few datagrams of at most
+ * {@link #setMaxDatagramSize(int) max datagram size} bytes as possible, never
+ * splitting an event. Events are rendered into a reused direct buffer.
+ *
+ * @since 1.2
+ */
+public class SplunkUdpWriter extends AbstractSplunkDataWriter {
+
+	/**
+	 * An Ethernet MTU of 1500 bytes less the IPv4 and UDP headers.
+	 */
+	public static final int DEFAULT_MAX_DATAGRAM_SIZE = 1472;
+
+	private final Object sendMonitor = new Object();
+
+	private final AtomicLong droppedDatagrams = new AtomicLong();
+
+	private int port;
+
+	private int maxDatagramSize = DEFAULT_MAX_DATAGRAM_SIZE;
+
+	private int sendBufferSize;
+
+	private DatagramChannel channel;
+
+	private ByteBuffer datagram;
+
+	public SplunkUdpWriter(ServiceFactory serviceFactory, Args args) {
+		super(serviceFactory, args);
+	}
+
+	/**
+	 * Open the datagram channel; no socket is used.
+	 */
+	@Override
+	protected Socket createSocket(Service service) throws IOException {
+		Input input = getMetadataCache().getInput(service, String.valueOf(this.port));
+		Assert.notNull(input, "no input defined for port " + this.port);
+		Assert.isTrue(!input.isDisabled(), String.format("input on port %d is disabled", this.port));
+		synchronized (this.sendMonitor) {
+			closeChannel();
+			DatagramChannel channel = DatagramChannel.open();
+			try {
+				channel.configureBlocking(false);
+				if (this.sendBufferSize > 0) {
+					channel.setOption(StandardSocketOptions.SO_SNDBUF, this.sendBufferSize);
+				}
+				channel.connect(new InetSocketAddress(service.getHost(), this.port));
+			}
+			catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+			this.channel = channel;
+			if (this.datagram == null || this.datagram.capacity() != this.maxDatagramSize) {
+				this.datagram = ByteBuffer.allocateDirect(this.maxDatagramSize);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+		synchronized (this.sendMonitor) {
+			ByteBuffer datagram = this.datagram;
+			datagram.clear();
+			try {
+				event.writeTo(datagram);
+			}
+			catch (BufferOverflowException e) {
+				// larger than a datagram should be, send it anyway and let IP fragment it
+				byte[] data = event.toString().getBytes(UTF8);
+				send(ByteBuffer.wrap(data));
+				getMetrics().addBytesWritten(data.length);
+				return;
+			}
+			datagram.flip();
+			int length = datagram.remaining();
+			send(datagram);
+			getMetrics().addBytesWritten(length);
+		}
+	}
+
+	/**
+	 * Pack the events of the batch into datagrams, cutting after the last line break
+	 * that fits.
+	 */
+	@Override
+	protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+			throws IOException {
+		synchronized (this.sendMonitor) {
+			int offset = 0;
+			while (offset < length) {
+				int end = Math.min(offset + this.maxDatagramSize, length);
+				if (end < length) {
+					int cut = end;
+					while (cut > offset && batch[cut - 1] != '\n') {
+						cut--;
+					}
+					if (cut > offset) {
+						end = cut;
+					}
+					else {
+						// a single event larger than a datagram, send it whole
+						end = offset + this.maxDatagramSize;
+						while (end < length && batch[end - 1] != '\n') {
+							end++;
+						}
+					}
+				}
+				int chunk = end - offset;
+				if (chunk <= this.datagram.capacity()) {
+					this.datagram.clear();
+					this.datagram.put(batch, offset, chunk).flip();
+					send(this.datagram);
+				}
+				else {
+					send(ByteBuffer.wrap(batch, offset, chunk));
+				}
+				offset = end;
+			}
+		}
+	}
+
+	private void send(ByteBuffer datagram) throws IOException {
+		Assert.state(this.channel != null, "the writer is not started");
+		int sent;
+		try {
+			sent = this.channel.write(datagram);
+		}
+		catch (PortUnreachableException e) {
+			// an earlier datagram was refused, nobody is listening right now
+			sent = 0;
+		}
+		if (sent == 0) {
+			this.droppedDatagrams.incrementAndGet();
+		}
+	}
+
+	@Override
+	public synchronized void stop() {
+		try {
+			super.stop();
+		}
+		finally {
+			synchronized (this.sendMonitor) {
+				closeChannel();
+			}
+		}
+	}
+
+	private void closeChannel() {
+		if (this.channel != null) {
+			try {
+				this.channel.close();
+			}
+			catch (IOException e) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("failed to close the datagram channel", e);
+				}
+			}
+			this.channel = null;
+		}
+	}
+
+	/**
+	 * @return the number of datagrams dropped because the socket could not take them
+	 */
+	public long getDroppedDatagrams() {
+		return this.droppedDatagrams.get();
+	}
+
+	/**
+	 * @param port the port of the UDP input
+	 */
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * @param maxDatagramSize the maximum payload of a datagram events are packed into,
+	 * {@value #DEFAULT_MAX_DATAGRAM_SIZE} by default
+	 */
+	public void setMaxDatagramSize(int maxDatagramSize) {
+		Assert.isTrue(maxDatagramSize > 0 && maxDatagramSize <= 65507,
+				"maxDatagramSize must be between 1 and 65507");
+		this.maxDatagramSize = maxDatagramSize;
+	}
+
+	public int getMaxDatagramSize() {
+		return maxDatagramSize;
+	}
+
+	/**
+	 * @param sendBufferSize the SO_SNDBUF size, 0 for the system default
+	 */
+	public void setSendBufferSize(int sendBufferSize) {
+		this.sendBufferSize = sendBufferSize;
+	}
+
+	public int getSendBufferSize() {
+		return sendBufferSize;
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import java.util.Collections;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.springframework.integration.support.management.ExponentialMovingAverage;
+import org.springframework.integration.support.management.Statistics;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedMetric;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.jmx.export.naming.SelfNaming;
+import org.springframework.jmx.support.MetricType;
+import org.springframework.jmx.support.ObjectNameManager;
+
+/**
+ * Counters, latencies and queue depths of an {@link AbstractSplunkDataWriter}.
+ * <p>
+ * Metrics are tagged with the writer type, the target index, if any, and the host of
+ * the Splunk server. Latencies are kept as exponential moving averages, like the
+ * Spring Integration handler metrics, and as a histogram over fixed buckets. The
+ * metrics are an MBean of their own: an
+ * {@link org.springframework.jmx.export.annotation.AnnotationMBeanExporter} registers
+ * them with {@code registerManagedResource(writer.getMetrics())} under a name made
+ * of the writer type and an id unique within the JVM, both fixed when the writer is
+ * created; the tags, some of which are only known once the writer is started, are
+ * an attribute.
+ *
+ * @since 1.2
+ */
+@ManagedResource
+public class SplunkWriterMetrics implements SelfNaming {
+
+	public static final String DOMAIN = "org.springframework.integration.splunk";
+
+	/**
+	 * Upper bounds in ms of the latency histogram buckets; a last bucket takes slower
+	 * writes.
+	 */
+	private static final long[] LATENCY_BUCKETS = { 1, 5, 10, 50, 100, 500, 1000, 5000 };
+
+	private static final int MOVING_AVERAGE_WINDOW = 100;
+
+	private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+
+	private final AbstractSplunkDataWriter writer;
+
+	private final long id = ID_SEQUENCE.incrementAndGet();
+
+	private final AtomicLong eventsWritten = new AtomicLong();
+
+	private final AtomicLong bytesWritten = new AtomicLong();
+
+	private final AtomicLong errors = new AtomicLong();
+
+	private final AtomicLong reconnects = new AtomicLong();
+
+	private final ExponentialMovingAverage writeDuration = new ExponentialMovingAverage(MOVING_AVERAGE_WINDOW);
+
+	private final ExponentialMovingAverage batchWriteDuration = new ExponentialMovingAverage(MOVING_AVERAGE_WINDOW);
+
+	private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKETS.length + 1);
+
+	SplunkWriterMetrics(AbstractSplunkDataWriter writer) {
+		this.writer = writer;
+	}
+
+	/**
+	 * Record a single event written on its own.
+	 */
+	void eventWritten(long nanos) {
+		this.eventsWritten.incrementAndGet();
+		record(this.writeDuration, nanos);
+	}
+
+	/**
+	 * Record a batch of events written in one operation.
+	 */
+	void batchWritten(int eventCount, int length, long nanos) {
+		this.eventsWritten.addAndGet(eventCount);
+		this.bytesWritten.addAndGet(length);
+		record(this.batchWriteDuration, nanos);
+	}
+
+	private void record(ExponentialMovingAverage duration, long nanos) {
+		double millis = nanos / 1000000.0;
+		duration.append(millis);
+		int bucket = 0;
+		while (bucket < LATENCY_BUCKETS.length && millis > LATENCY_BUCKETS[bucket]) {
+			bucket++;
+		}
+		this.latencyHistogram.incrementAndGet(bucket);
+	}
+
+	/**
+	 * Count the bytes of an event written on its own; writers overriding
+	 * {@link AbstractSplunkDataWriter#doWrite} report them.
+	 * @param bytes the number of bytes sent
+	 */
+	public void addBytesWritten(long bytes) {
+		this.bytesWritten.addAndGet(bytes);
+	}
+
+	void writeFailed() {
+		this.errors.incrementAndGet();
+	}
+
+	void reconnected() {
+		this.reconnects.incrementAndGet();
+	}
+
+	/**
+	 * @return the writer type, index and host the metrics are tagged with
+	 */
+	@ManagedAttribute(description = "Writer type, index and Splunk server host")
+	public Map<String, String> getTags() {
+		Map<String, String> tags = new LinkedHashMap<String, String>();
+		this.writer.addMetricsTags(tags);
+		return Collections.unmodifiableMap(tags);
+	}
+
+	@ManagedMetric(metricType = MetricType.COUNTER, description = "Events written")
+	public long getEventsWritten() {
+		return this.eventsWritten.get();
+	}
+
+	@ManagedMetric(metricType = MetricType.COUNTER, description = "Bytes written")
+	public long getBytesWritten() {
+		return this.bytesWritten.get();
+	}
+
+	@ManagedMetric(metricType = MetricType.COUNTER, description = "Failed writes")
+	public long getErrors() {
+		return this.errors.get();
+	}
+
+	@ManagedMetric(metricType = MetricType.COUNTER, description = "Connections re-established after the first one")
+	public long getReconnects() {
+		return this.reconnects.get();
+	}
+
+	@ManagedMetric(metricType = MetricType.COUNTER, description = "Events dropped because the queue was full, shed by the throttle or failed to be written")
+	public long getDropped() {
+		return this.writer.getDroppedCount();
+	}
+
+	@ManagedMetric(description = "Events waiting in the queue of an asynchronous writer")
+	public int getQueueSize() {
+		return this.writer.getQueueSize();
+	}
+
+	@ManagedMetric(description = "Events collected for the next batch")
+	public int getPendingBatchSize() {
+		return this.writer.getPendingBatchSize();
+	}
+
+	/**
+	 * @return the durations in ms of single event writes
+	 */
+	public Statistics getWriteDuration() {
+		return this.writeDuration.getStatistics();
+	}
+
+	/**
+	 * @return the durations in ms of batch writes
+	 */
+	public Statistics getBatchWriteDuration() {
+		return this.batchWriteDuration.getStatistics();
+	}
+
+	@ManagedMetric(description = "Mean single event write duration in ms")
+	public double getMeanWriteDuration() {
+		return this.writeDuration.getMean();
+	}
+
+	@ManagedMetric(description = "Maximum single event write duration in ms")
+	public double getMaxWriteDuration() {
+		return this.writeDuration.getMax();
+	}
+
+	@ManagedMetric(description = "Mean batch write duration in ms")
+	public double getMeanBatchWriteDuration() {
+		return this.batchWriteDuration.getMean();
+	}
+
+	@ManagedMetric(description = "Maximum batch write duration in ms")
+	public double getMaxBatchWriteDuration() {
+		return this.batchWriteDuration.getMax();
+	}
+
+	/**
+	 * @return the number of writes per latency bucket, keyed by the bucket's upper
+	 * bound in ms, e.g. {@code le_10}, and {@code le_inf} for the slowest
+	 */
+	@ManagedAttribute(description = "Number of writes per latency bucket")
+	public Map<String, Long> getLatencyHistogram() {
+		Map<String, Long> histogram = new LinkedHashMap<String, Long>();
+		for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+			histogram.put("le_" + LATENCY_BUCKETS[i], this.latencyHistogram.get(i));
+		}
+		histogram.put("le_inf", this.latencyHistogram.get(LATENCY_BUCKETS.length));
+		return histogram;
+	}
+
+	/**
+	 * @return the name made of the writer type and the id of the metrics, which does
+	 * not change over the life of the writer
+	 */
+	public ObjectName getObjectName() throws MalformedObjectNameException {
+		Hashtable<String, String> properties = new Hashtable<String, String>();
+		properties.put("type", this.writer.getClass().getSimpleName());
+		properties.put("id", String.valueOf(this.id));
+		return ObjectNameManager.getInstance(DOMAIN, properties);
+	}
+
+	@Override
+	public String toString() {
+		return "SplunkWriterMetrics" + getTags() + "{eventsWritten=" + getEventsWritten() + ", bytesWritten="
+				+ getBytesWritten() + ", errors=" + getErrors() + ", reconnects=" + getReconnects() + "}";
+	}
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+/**
+ * What an {@link AdaptiveThrottle} does with events written faster than its rate.
+ *
+ * @since 1.2
+ */
+public enum ThrottlePolicy {
+
+	/**
+	 * Delay the caller until the rate allows the events, up to the maximum wait.
+	 */
+	SHAPE,
+
+	/**
+	 * Discard events of messages below the priority threshold; delay the others
+	 * like {@link #SHAPE}.
+	 */
+	SHED,
+
+	/**
+	 * Reject the events with an exception.
+	 */
+	FAIL_FAST
+
+}
@@ -18,13 +18,32 @@ package org.springframework.integration.splunk.config.xml;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.util.List;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.parsing.BeanDefinitionParsingException;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.GenericXmlApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.expression.Expression;
 import org.springframework.integration.splunk.support.AbstractSplunkDataWriter;
+import org.springframework.integration.splunk.support.FlushPolicy;
+import org.springframework.integration.splunk.support.LoadBalancingSplunkDataWriter;
+import org.springframework.integration.splunk.support.LoadBalancingStrategy;
+import org.springframework.integration.splunk.support.OverflowPolicy;
+import org.springframework.integration.splunk.support.SplunkHecWriter;
 import org.springframework.integration.splunk.support.SplunkIndexWriter;
+import org.springframework.integration.splunk.support.SplunkNioTcpWriter;
+import org.springframework.integration.splunk.support.SplunkRoutingIndexWriter;
+import org.springframework.integration.splunk.support.SplunkS2sWriter;
+import org.springframework.integration.splunk.support.SplunkServer;
+import org.springframework.integration.splunk.support.SplunkTcpWriter;
+import org.springframework.integration.splunk.support.SplunkUdpWriter;
+import org.springframework.integration.test.util.TestUtils;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
@@ -51,6 +70,139 @@ public class SplunkOutboundChannelAdapterParserStreamTests {
 		assertNotNull(writer);
 		assertTrue(writer instanceof SplunkIndexWriter);
 		assertEquals("foo", ((SplunkIndexWriter) writer).getIndex());
+		assertEquals(8, ((SplunkIndexWriter) writer).getStripes());
+		assertEquals(30000, ((SplunkIndexWriter) writer).getIdleTimeout());
+		assertEquals(1, writer.getBatchSize());
+	}
+
+	@Test
+	public void testBatchingAttributes() {
+		AbstractSplunkDataWriter writer = appContext.getBean("splunkBatchingOutboundChannelAdapter.splunkExecutor.writer",
+				AbstractSplunkDataWriter.class);
+		assertTrue(writer instanceof SplunkTcpWriter);
+		assertEquals(100, writer.getBatchSize());
+		assertEquals(65536, writer.getBatchMaxBytes());
+		assertEquals(10, writer.getBatchLinger());
+		assertEquals(1024, writer.getQueueCapacity());
+		assertEquals(OverflowPolicy.DROP_OLDEST, writer.getOverflowPolicy());
+		assertSame(appContext.getBean("throttle"), writer.getThrottle());
+		assertEquals(FlushPolicy.ON_IDLE, writer.getFlushPolicy());
+		assertEquals(50, writer.getFlushInterval());
+	}
+
+	@Test
+	public void testNioTcpWriter() {
+		SplunkNioTcpWriter writer = appContext.getBean("splunkNioOutboundChannelAdapter.splunkExecutor.writer",
+				SplunkNioTcpWriter.class);
+		assertEquals(9999, writer.getPort());
+		assertEquals(16384, writer.getBufferSize());
+		assertEquals(262144, writer.getSendBufferSize());
+		assertTrue(writer.isTcpNoDelay());
+		assertTrue(writer.isKeepAlive());
+		assertEquals(100, writer.getBatchSize());
+		assertTrue(writer.isLazyConnect());
+	}
+
+	@Test
+	public void testLoadBalancing() {
+		LoadBalancingSplunkDataWriter writer = appContext.getBean(
+				"splunkLoadBalancingOutboundChannelAdapter.splunkExecutor.writer", LoadBalancingSplunkDataWriter.class);
+		assertEquals(LoadBalancingStrategy.WEIGHTED, writer.getStrategy());
+		List<AbstractSplunkDataWriter> writers = writer.getWriters();
+		assertEquals(2, writers.size());
+		assertNotSame(writers.get(0), writers.get(1));
+		assertTrue(writers.get(0) instanceof SplunkTcpWriter);
+		assertEquals(new File("/tmp/splunk-spool/splunkServer"), writers.get(0).getSpoolDirectory());
+		assertEquals(new File("/tmp/splunk-spool/splunkIndexer2"), writers.get(1).getSpoolDirectory());
+		assertEquals(3, appContext.getBean("splunkIndexer2", SplunkServer.class).getWeight());
+	}
+
+	@Test
+	public void testHecWriter() {
+		SplunkHecWriter writer = appContext.getBean("splunkHecOutboundChannelAdapter.splunkExecutor.writer",
+				SplunkHecWriter.class);
+		assertEquals("https://splunk.example.com:8088/services/collector/event", writer.getUrl());
+		assertEquals("foo", writer.getIndex());
+		assertTrue(writer.isGzip());
+		assertEquals(SplunkHecWriter.DEFAULT_TIMEOUT, writer.getTimeout());
+		assertEquals(500, writer.getBatchSize());
+		assertEquals(new File("/tmp/splunk-spool"), writer.getSpoolDirectory());
+		assertTrue(writer.isAck());
+		assertEquals(16, writer.getAckWindow());
+		assertEquals(30000, writer.getAckTimeout());
+	}
+
+	@Test
+	public void testRoutingIndexWriter() {
+		SplunkRoutingIndexWriter writer = appContext.getBean(
+				"splunkRoutingOutboundChannelAdapter.splunkExecutor.writer", SplunkRoutingIndexWriter.class);
+		assertEquals(32, writer.getMaxStreams());
+		assertEquals(30000, writer.getIdleTimeout());
+		assertEquals("headers['tenant'] + '_events'",
+				TestUtils.getPropertyValue(writer, "indexExpression", Expression.class).getExpressionString());
+		assertEquals("payload.class.simpleName",
+				TestUtils.getPropertyValue(writer, "sourceTypeExpression", Expression.class).getExpressionString());
+		assertEquals("headers['splunk_host']",
+				TestUtils.getPropertyValue(writer, "hostExpression", Expression.class).getExpressionString());
+		assertEquals(1024, writer.getWriterTemplate().getQueueCapacity());
+		assertEquals(100, writer.getWriterTemplate().getBatchSize());
+		assertEquals("/tmp/splunk-spool", writer.getWriterTemplate().getSpoolDirectory().getPath());
+	}
+
+	@Test
+	public void testUdpWriter() {
+		SplunkUdpWriter writer = appContext.getBean("splunkUdpOutboundChannelAdapter.splunkExecutor.writer",
+				SplunkUdpWriter.class);
+		assertEquals(5514, writer.getPort());
+		assertEquals(8192, writer.getMaxDatagramSize());
+		assertEquals(1048576, writer.getSendBufferSize());
+		assertEquals(50, writer.getBatchSize());
+		assertEquals(4096, writer.getQueueCapacity());
+		assertEquals(OverflowPolicy.DROP_NEWEST, writer.getOverflowPolicy());
+		assertSame(appContext.getBean("warmUpExecutor"), writer.getWarmUpExecutor());
+	}
+
+	@Test
+	public void testS2sWriter() {
+		SplunkS2sWriter writer = appContext.getBean("splunkS2sOutboundChannelAdapter.splunkExecutor.writer",
+				SplunkS2sWriter.class);
+		assertEquals(9997, writer.getPort());
+		assertEquals("main", writer.getIndex());
+		assertEquals("forwarder01", writer.getServerName());
+		assertEquals(100, writer.getBatchSize());
+	}
+
+	@Test
+	public void testLoadBalancingRejectsRoutingAndHecWriters() throws Exception {
+		assertLoadBalancingRejected("<int-splunk:routing-index-writer/>", "routing-index-writer");
+		assertLoadBalancingRejected("<int-splunk:hec-writer url=\"https://splunk.example.com:8088\" token=\"secret\"/>",
+				"hec-writer");
+	}
+
+	private static void assertLoadBalancingRejected(String writer, String writerType) throws Exception {
+		String xml = "<beans xmlns=\"http://www.springframework.org/schema/beans\""
+				+ " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+				+ " xmlns:int-splunk=\"http://www.springframework.org/schema/integration/splunk\""
+				+ " xsi:schemaLocation=\"http://www.springframework.org/schema/beans"
+				+ " https://www.springframework.org/schema/beans/spring-beans.xsd"
+				+ " http://www.springframework.org/schema/integration/splunk"
+				+ " https://www.springframework.org/schema/integration/splunk/spring-integration-splunk.xsd\">"
+				+ "<int-splunk:server id=\"s1\" username=\"admin\" password=\"password\"/>"
+				+ "<int-splunk:server id=\"s2\" username=\"admin\" password=\"password\"/>"
+				+ "<int-splunk:outbound-channel-adapter id=\"adapter\" channel=\"out\" splunk-server-ref=\"s1;s2\""
+				+ " load-balancing=\"ROUND_ROBIN\">" + writer + "</int-splunk:outbound-channel-adapter>"
+				+ "</beans>";
+		GenericXmlApplicationContext context = new GenericXmlApplicationContext();
+		try {
+			context.load(new ByteArrayResource(xml.getBytes("UTF-8")));
+			fail("BeanDefinitionParsingException expected");
+		}
+		catch (BeanDefinitionParsingException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("'load-balancing' cannot be combined with a " + writerType));
+		}
+		finally {
+			context.close();
+		}
 	}
 
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.junit.Test;
+
+/**
+ * @since 1.2
+ */
+public class SplunkEventCodecTests {
+
+	private final SplunkEventCodec codec = new SplunkEventCodec();
+
+	@Test
+	public void testCodecRoundTrip() throws Exception {
+		AuthEvent event = new AuthEvent();
+		event.setAuthUser("j\u00fcrgen");
+		event.setAuthApp("ssh\ud83d\udd11");
+		event.addPair("empty", "");
+		AuthEvent decoded = codec.decode(codec.encode(event), AuthEvent.class);
+		assertEquals(withoutDate(event), withoutDate(decoded));
+		assertEquals(event.getEventData(), decoded.getEventData());
+	}
+
+	@Test
+	public void testFlags() throws Exception {
+		SplunkEvent event = new SplunkEvent("spring", "1", false, false);
+		SplunkEvent decoded = codec.decode(codec.encode(event), SplunkEvent.class);
+		assertFalse(decoded.quoteValues);
+		assertFalse(decoded.useInternalDate);
+		assertEquals("name=spring event_id=1\n", decoded.toString());
+	}
+
+	@Test
+	public void testLongEvent() throws Exception {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			value.append('x');
+		}
+		SplunkEvent event = new SplunkEvent("spring", "1", false, true);
+		event.addPair("long", value.toString());
+		byte[] bytes = codec.encode(event);
+		// version, flags, count, then the lengths and pairs with three bytes for the length of the long value
+		assertEquals(3 + (1 + 4) + (1 + 6) + (1 + 8) + (1 + 1) + (1 + 4) + (3 + 20000), bytes.length);
+		assertEquals(event.toString(), codec.decode(bytes, SplunkEvent.class).toString());
+	}
+
+	@Test
+	public void testUnknownVersion() throws Exception {
+		byte[] bytes = codec.encode(new SplunkEvent("spring", "1"));
+		bytes[0] = (byte) (SplunkEvent.BINARY_VERSION + 1);
+		try {
+			codec.decode(bytes, SplunkEvent.class);
+			fail("expected InvalidObjectException");
+		}
+		catch (InvalidObjectException e) {
+			assertTrue(e.getMessage().contains("version"));
+		}
+	}
+
+	@Test
+	public void testCorruptLengthsRejected() throws Exception {
+		// version, flags, a pair count beyond the bound
+		assertRejected(new byte[] { SplunkEvent.BINARY_VERSION, 0, (byte) 0xFF, (byte) 0xFF, 0x7F });
+		// a count beyond the input
+		assertRejected(new byte[] { SplunkEvent.BINARY_VERSION, 0, (byte) 0xFF, (byte) 0xFF, 0x03, 1, 1 });
+		// a string longer than the bound
+		assertRejected(new byte[] { SplunkEvent.BINARY_VERSION, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+				(byte) 0xFF, 0x07 });
+		// a string longer than the input
+		assertRejected(new byte[] { SplunkEvent.BINARY_VERSION, 0, 1, (byte) 0xFF, (byte) 0xFF, 0x1F, 'a' });
+		// a negative length
+		assertRejected(new byte[] { SplunkEvent.BINARY_VERSION, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+				(byte) 0xFF, 0x0F });
+	}
+
+	private void assertRejected(byte[] bytes) throws Exception {
+		try {
+			codec.decode(bytes, SplunkEvent.class);
+			fail("expected IOException");
+		}
+		catch (IOException e) {
+			// InvalidObjectException or EOFException
+		}
+	}
+
+	@Test
+	public void testJavaSerialization() throws Exception {
+		SplunkEvent event = new SplunkEvent("spring", "1", false, true);
+		event.setCommonDesc("gr\u00fc\u00dfe");
+		SplunkEvent deserialized = (SplunkEvent) deserialize(serialize(event));
+		assertEquals(event.toString(), deserialized.toString());
+	}
+
+	/**
+	 * Compares the size of the binary forms with the default serialization of the
+	 * fields events had before they were externalizable.
+	 */
+	@Test
+	public void testSerializedSizes() throws Exception {
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		event.setCommonCategory("order");
+		event.setCommonDesc("an order was placed");
+		event.setCommonDvcHost("app01.example.com");
+		event.setCommonDuration(42);
+		event.setCommonTransactionId("4b1e0c3a-5d0e-4f5c-9a53-0c1c0c2d2b6e");
+		int legacySize = serialize(new LegacyEvent(event)).length;
+		int externalizedSize = serialize(event).length;
+		int codecSize = codec.encode(event).length;
+		assertTrue(externalizedSize < legacySize);
+		assertTrue(codecSize < externalizedSize);
+	}
+
+	private static String withoutDate(SplunkEvent event) {
+		String message = event.toString();
+		return message.substring(message.indexOf(' ') + 1);
+	}
+
+	private static byte[] serialize(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(object);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws Exception {
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return in.readObject();
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * The fields of an event in their previous, default serialized form.
+	 */
+	@SuppressWarnings("serial")
+	private static class LegacyEvent implements Serializable {
+
+		private final StringBuffer eventMessage;
+
+		private final boolean quoteValues;
+
+		private final boolean useInternalDate;
+
+		LegacyEvent(SplunkEvent event) {
+			this.eventMessage = new StringBuffer(withoutDate(event));
+			this.quoteValues = event.quoteValues;
+			this.useInternalDate = event.useInternalDate;
+		}
+
+	}
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+
+import org.joda.time.DateTimeUtils.MillisProvider;
+import org.junit.Test;
+
+/**
+ * @since 1.2
+ */
+public class SplunkEventMapperTests {
+
+	private final SplunkEventMapper mapper = new SplunkEventMapper();
+
+	@Test
+	public void testToEvent() {
+		Login login = new Login("spring", "10.0.0.1", 3);
+		SplunkEvent event = mapper.toEvent(login);
+		assertTrue(event instanceof AuthEvent);
+		assertFalse(event.useInternalDate);
+		assertEquals("name=\"login\" app=\"ssh\" user=\"spring\" src=\"10.0.0.1\" attempts=\"3\" success=\"false\"\n",
+				event.toString());
+		assertTrue(event.hasField(AuthEvent.AUTH_USER));
+	}
+
+	@Test
+	public void testNullsLeftOut() {
+		SplunkEvent event = mapper.toEvent(new Login(null, "10.0.0.1", 1));
+		assertFalse(event.hasField(AuthEvent.AUTH_USER));
+		assertEquals("name=\"login\" app=\"ssh\" src=\"10.0.0.1\" attempts=\"1\" success=\"false\"\n",
+				event.toString());
+	}
+
+	@Test
+	public void testWriteToMatchesEvent() throws Exception {
+		SplunkEvent.setClock(new MillisProvider() {
+
+			@Override
+			public long getMillis() {
+				return 1454284800000L;
+			}
+
+		});
+		try {
+			Order order = new Order();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			int length = mapper.writeTo(order, out);
+			assertEquals(out.size(), length);
+			assertEquals(mapper.toEvent(order).toString(), out.toString("UTF-8"));
+			// without an order the pairs are sorted by key
+			assertTrue(out.toString("UTF-8").endsWith(" customer=j\u00fcrgen id=4711 total=9.99\n"));
+
+			out.reset();
+			mapper.writeTo(new Login("spring", "10.0.0.1", 3), out);
+			assertEquals(mapper.toEvent(new Login("spring", "10.0.0.1", 3)).toString(), out.toString("UTF-8"));
+		}
+		finally {
+			SplunkEvent.setClock(null);
+		}
+	}
+
+	@Test
+	public void testConverter() {
+		SplunkEvent event = mapper.convert(new Order());
+		assertEquals("4711", event.getField("id"));
+	}
+
+	@Test
+	public void testUnmappedClass() {
+		try {
+			mapper.toEvent("not annotated");
+			fail("expected IllegalArgumentException");
+		}
+		catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("@SplunkField"));
+		}
+	}
+
+	public static class Attempt {
+
+		@SplunkField("app")
+		private final String application = "ssh";
+
+	}
+
+	@SplunkEventType(value = AuthEvent.class, name = "login", useInternalDate = false)
+	public static class Login extends Attempt {
+
+		@SplunkField(value = AuthEvent.AUTH_USER, order = 1)
+		private final String user;
+
+		@SplunkField(value = AuthEvent.AUTH_SRC, order = 2)
+		private final String source;
+
+		private final int attempts;
+
+		Login(String user, String source, int attempts) {
+			this.user = user;
+			this.source = source;
+			this.attempts = attempts;
+		}
+
+		@SplunkField(order = 3)
+		public int getAttempts() {
+			return this.attempts;
+		}
+
+		@SplunkField(order = 4)
+		boolean isSuccess() {
+			return false;
+		}
+
+	}
+
+	@SplunkEventType(quoteValues = false)
+	private static class Order {
+
+		@SplunkField
+		private long id = 4711;
+
+		@SplunkField
+		private double total = 9.99;
+
+		@SplunkField
+		private String customer = "j\u00fcrgen";
+
+		@SplunkField
+		private String comment;
+
+	}
+
+}
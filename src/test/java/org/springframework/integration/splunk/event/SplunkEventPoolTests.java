@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * @since 1.2
+ */
+public class SplunkEventPoolTests {
+
+	@Test
+	public void testRecycle() {
+		SplunkEventPool<AuthEvent> pool = new SplunkEventPool<AuthEvent>(AuthEvent.class, 4, 1);
+		AuthEvent event = pool.acquire("login", "1");
+		event.setAuthUser("spring");
+		event.useInternalDate = false;
+		event.release();
+		assertEquals(1, pool.getPooledCount());
+
+		AuthEvent reused = pool.acquire();
+		assertSame(event, reused);
+		assertEquals(0, pool.getPooledCount());
+		assertTrue(reused.getEventData().isEmpty());
+		assertFalse(reused.hasField(AuthEvent.AUTH_USER));
+		assertTrue(reused.useInternalDate);
+		reused.addPair("name", "logout");
+		assertEquals("name=\"logout\"\n", reused.toString().substring(29));
+	}
+
+	@Test
+	public void testCapacity() {
+		SplunkEventPool<SplunkEvent> pool = new SplunkEventPool<SplunkEvent>(SplunkEvent.class, 2, 2);
+		SplunkEvent first = pool.acquire();
+		SplunkEvent second = pool.acquire();
+		assertNotSame(first, second);
+		first.release();
+		second.release();
+		// a single thread fills a single stripe of one event
+		assertEquals(1, pool.getPooledCount());
+		second.release();
+		assertEquals(1, pool.getPooledCount());
+	}
+
+	@Test
+	public void testStealFromOtherStripe() throws Exception {
+		final SplunkEventPool<SplunkEvent> pool = new SplunkEventPool<SplunkEvent>(SplunkEvent.class, 16, 4);
+		final SplunkEvent event = pool.acquire();
+		Thread releaser = new Thread() {
+
+			@Override
+			public void run() {
+				event.release();
+			}
+
+		};
+		releaser.start();
+		releaser.join();
+		assertSame(event, pool.acquire());
+	}
+
+	@Test
+	public void testUnpooledEventIgnoresRelease() {
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		event.release();
+		event.addPair("more", "pairs");
+		assertEquals("pairs", event.getField("more"));
+	}
+
+	@Test
+	public void testDebugGuard() {
+		SplunkEventPool<SplunkEvent> pool = new SplunkEventPool<SplunkEvent>(SplunkEvent.class);
+		pool.setDebug(true);
+		SplunkEvent event = pool.acquire("spring", "1");
+		event.release();
+		assertEquals(0, pool.getPooledCount());
+		assertNotSame(event, pool.acquire());
+		try {
+			event.addPair("late", "pair");
+			fail("expected IllegalStateException");
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("released"));
+		}
+		try {
+			event.toString();
+			fail("expected IllegalStateException");
+		}
+		catch (IllegalStateException e) {
+		}
+		try {
+			event.release();
+			fail("expected IllegalStateException");
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("twice"));
+		}
+	}
+
+}
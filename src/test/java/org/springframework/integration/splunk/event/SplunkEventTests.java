@@ -12,11 +12,23 @@
  */
 package org.springframework.integration.splunk.event;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.joda.time.DateTimeUtils.MillisProvider;
+import org.joda.time.DateTimeZone;
 import org.junit.Test;
 
 /**
@@ -65,4 +77,184 @@ public class SplunkEventTests {
 			assertEquals(eventData.get(key),event2Data.get(key));
 		}
 	}
+
+	@Test
+	public void testGetEventDataWithSpacesAndQuotes() {
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		event.setCommonDesc("a=b \"c\"");
+		event.addPair("empty", "");
+		event.addPair("none", (String) null);
+		Map<String, String> eventData = event.getEventData();
+		assertEquals("a=b \"c\"", eventData.get(SplunkEvent.COMMON_DESC));
+		assertEquals("", eventData.get("empty"));
+		assertTrue(eventData.containsKey("none"));
+		assertNull(eventData.get("none"));
+		assertArrayEquals(new Object[] { "name", "event_id", SplunkEvent.COMMON_DESC, "empty", "none" },
+				eventData.keySet().toArray());
+	}
+
+	@Test
+	public void testEventDataIsCopy() {
+		SplunkEvent event = new SplunkEvent("spring", "1", false, false);
+		Map<String, String> eventData = event.getEventData();
+		eventData.put("count", "4");
+		assertNull(event.getField("count"));
+		assertEquals("name=spring event_id=1\n", event.toString());
+	}
+
+	@Test
+	public void testFieldsSnapshot() {
+		SplunkEvent event = new SplunkEvent("spring", "1", false, false);
+		Map<String, String> fields = event.getFields();
+		assertSame(fields, event.getFields());
+		event.addPair("event_id", 2);
+		event.addPair("count", 3);
+		assertEquals("2", event.getField("event_id"));
+		assertEquals("3", event.getFields().get("count"));
+		// a snapshot taken before is left untouched
+		assertEquals("1", fields.get("event_id"));
+		assertNull(fields.get("count"));
+		assertEquals("name=spring event_id=1 event_id=2 count=3\n", event.toString());
+		try {
+			event.getFields().put("count", "4");
+			fail("UnsupportedOperationException expected");
+		}
+		catch (UnsupportedOperationException e) {
+		}
+	}
+
+	@Test
+	public void testCopyIsIndependent() {
+		SplunkEvent event = new SplunkEvent("spring", "1", false, false);
+		SplunkEvent copy = new SplunkEvent(event);
+		copy.addPair("count", 3);
+		assertNull(event.getField("count"));
+		assertEquals("name=spring event_id=1\n", event.toString());
+	}
+
+	@Test
+	public void testWriteToMatchesToString() throws Exception {
+		SplunkEvent event = new SplunkEvent("spring", "1", false, true);
+		event.setCommonDesc("gr\u00fc\u00dfe \u4f60\u597d \ud83d\ude00");
+		event.addPair("count", 42);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		event.writeTo(out);
+		assertArrayEquals(event.toString().getBytes("UTF-8"), out.toByteArray());
+
+		ByteBuffer buffer = ByteBuffer.allocate(256);
+		event.writeTo(buffer);
+		buffer.flip();
+		assertEquals(event.toString(), new String(buffer.array(), 0, buffer.limit(), "UTF-8"));
+	}
+
+	@Test
+	public void testWriteToWithInternalDate() throws Exception {
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		event.writeTo(out);
+		String rendered = out.toString("UTF-8");
+		assertTrue(rendered, rendered.matches(
+				"\\d{4}-\\d{2}-\\d{2}\t\\d{2}:\\d{2}:\\d{2}:\\d{3}[+-]\\d{4} name=\"spring\" event_id=\"1\"\n"));
+	}
+
+	@Test
+	public void testTimestampMatchesDateFormatter() {
+		DateTimeZone defaultZone = DateTimeZone.getDefault();
+		try {
+			for (String zone : new String[] { "UTC", "Europe/Berlin", "America/St_Johns", "Asia/Kolkata" }) {
+				DateTimeZone.setDefault(DateTimeZone.forID(zone));
+				for (long millis : new long[] { 0L, 1454284799999L, 1467331200123L, 951782400007L }) {
+					RenderBuffer buffer = RenderBuffer.get();
+					buffer.appendTimestamp(millis);
+					assertEquals(zone, SplunkEvent.DATE_FORMATTER.print(millis),
+							new String(buffer.bytes, 0, buffer.length));
+				}
+			}
+		}
+		finally {
+			DateTimeZone.setDefault(defaultZone);
+		}
+	}
+
+	@Test
+	public void testSchemaKeys() throws Exception {
+		NetworkTrafficGenericEvent event = new NetworkTrafficGenericEvent();
+		event.setCommonDesc("blocked");
+		event.setNetworkTrafficGenericDestPort(443);
+		event.addPair("custom", "\u4f60\u597d");
+		event.setNetworkTrafficGenericSrcIp("10.0.0.1");
+		assertTrue(event.hasField(NetworkTrafficGenericEvent.NETWORK_TRAFFIC_GENERIC_DEST_PORT));
+		assertTrue(event.hasField("custom"));
+		assertFalse(event.hasField(NetworkTrafficGenericEvent.NETWORK_TRAFFIC_GENERIC_DEST_HOST));
+		assertFalse(event.hasField("other"));
+		event.useInternalDate = false;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		event.writeTo(out);
+		assertEquals("desc=\"blocked\" dest_port=\"443\" custom=\"\u4f60\u597d\" src_ip=\"10.0.0.1\"\n",
+				out.toString("UTF-8"));
+		assertEquals(event.toString(), out.toString("UTF-8"));
+
+		EventEncoder encoder = EventEncoder.forClass(NetworkTrafficGenericEvent.class);
+		assertSame(encoder, EventEncoder.forClass(NetworkTrafficGenericEvent.class));
+		assertEquals(0, encoder.id(SplunkEvent.PREFIX_NAME));
+		assertEquals(EventEncoder.forClass(SplunkEvent.class).id(SplunkEvent.COMMON_DESC),
+				encoder.id(SplunkEvent.COMMON_DESC));
+		assertTrue(encoder.id(NetworkTrafficGenericEvent.NETWORK_TRAFFIC_GENERIC_DEST_PORT) >= 0);
+		assertEquals(-1, EventEncoder.forClass(SplunkEvent.class)
+				.id(NetworkTrafficGenericEvent.NETWORK_TRAFFIC_GENERIC_DEST_PORT));
+	}
+
+	@Test
+	public void testCopyToOtherSchema() {
+		AuthEvent event = new AuthEvent();
+		event.setAuthUser("spring");
+		SplunkEvent copy = new SplunkEvent(event);
+		assertTrue(copy.hasField(AuthEvent.AUTH_USER));
+		assertEquals("user=\"spring\"\n", copy.toString().substring(29));
+	}
+
+	@Test
+	public void testClock() throws Exception {
+		DateTimeZone defaultZone = DateTimeZone.getDefault();
+		final AtomicLong now = new AtomicLong(1454284799998L);
+		SplunkEvent.setClock(new MillisProvider() {
+
+			@Override
+			public long getMillis() {
+				return now.get();
+			}
+
+		});
+		try {
+			DateTimeZone.setDefault(DateTimeZone.forID("Europe/Berlin"));
+			SplunkEvent event = new SplunkEvent("spring", "1");
+			assertEquals("2016-02-01\t00:59:59:998+0100 name=\"spring\" event_id=\"1\"\n", event.toString());
+			now.incrementAndGet();
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			event.writeTo(out);
+			assertEquals(event.toString(), out.toString("UTF-8"));
+			assertTrue(event.toString().startsWith("2016-02-01\t00:59:59:999+0100"));
+			assertSame(TimestampCache.get(), TimestampCache.get());
+			assertEquals(now.get(), SplunkEvent.currentTimeMillis());
+		}
+		finally {
+			SplunkEvent.setClock(null);
+			DateTimeZone.setDefault(defaultZone);
+		}
+		assertTrue(Math.abs(System.currentTimeMillis() - SplunkEvent.currentTimeMillis()) < 1000);
+	}
+
+	@Test
+	public void testWriteToFullBufferLeavesItUnchanged() {
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		try {
+			event.writeTo(buffer);
+			fail("BufferOverflowException expected");
+		}
+		catch (BufferOverflowException e) {
+			assertEquals(0, buffer.position());
+		}
+	}
+
 }
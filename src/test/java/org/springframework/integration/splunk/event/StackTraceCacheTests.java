@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since 1.2
+ */
+public class StackTraceCacheTests {
+
+	private final StackTraceCache cache = StackTraceCache.getSharedInstance();
+
+	@Before
+	@After
+	public void reset() {
+		cache.clear();
+		cache.setMaxSize(StackTraceCache.DEFAULT_MAX_SIZE);
+		cache.setDepth(-1);
+		cache.setStackHash(false);
+	}
+
+	@Test
+	public void testRenderedOnce() {
+		String first = null;
+		for (int i = 0; i < 3; i++) {
+			SplunkEvent event = new SplunkEvent();
+			event.addThrowable(fail("boom " + i));
+			assertEquals("boom " + i, event.getField(SplunkEvent.THROWABLE_MESSAGE));
+			String rendered = event.getField(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS);
+			assertTrue(rendered, rendered.startsWith(getClass().getName() + ".fail(StackTraceCacheTests.java:"));
+			if (first == null) {
+				first = rendered;
+			}
+			assertSame(first, rendered);
+		}
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testKeyedByTypeAndFrames() {
+		SplunkEvent event = new SplunkEvent();
+		event.addThrowable(fail("boom"));
+		event.addThrowable(new IllegalArgumentException("boom"));
+		event.addThrowable(fail("boom"), 1);
+		assertEquals(3, cache.size());
+		assertEquals(1, event.getField(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS).split(",").length);
+	}
+
+	@Test
+	public void testDepth() {
+		cache.setDepth(2);
+		SplunkEvent event = new SplunkEvent();
+		event.addThrowable(fail("boom"));
+		assertEquals(2, event.getField(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS).split(",").length);
+		event.addThrowable(fail("boom"), 0);
+		assertEquals("", event.getField(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS));
+	}
+
+	@Test
+	public void testStackHash() {
+		cache.setStackHash(true);
+		SplunkEvent[] events = new SplunkEvent[2];
+		for (int i = 0; i < events.length; i++) {
+			events[i] = new SplunkEvent();
+			events[i].addThrowable(fail("boom"));
+		}
+		SplunkEvent first = events[0];
+		SplunkEvent second = events[1];
+		String hash = first.getField(SplunkEvent.THROWABLE_STACKTRACE_HASH);
+		assertEquals(16, hash.length());
+		assertEquals(hash, second.getField(SplunkEvent.THROWABLE_STACKTRACE_HASH));
+		assertTrue(first.hasField(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS));
+		assertFalse(second.hasField(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS));
+
+		SplunkEvent other = new SplunkEvent();
+		other.addThrowable(new IllegalArgumentException("boom"));
+		assertNotEquals(hash, other.getField(SplunkEvent.THROWABLE_STACKTRACE_HASH));
+		assertTrue(other.hasField(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS));
+	}
+
+	@Test
+	public void testBounded() {
+		cache.setMaxSize(2);
+		SplunkEvent event = new SplunkEvent();
+		event.addThrowable(fail("boom"), 1);
+		event.addThrowable(fail("boom"), 2);
+		assertEquals(2, cache.size());
+		event.addThrowable(fail("boom"), 3);
+		assertEquals(1, cache.size());
+
+		cache.setMaxSize(0);
+		event.addThrowable(fail("boom"));
+		assertEquals(0, cache.size());
+		assertNull(new SplunkEvent().getField(SplunkEvent.THROWABLE_STACKTRACE_ELEMENTS));
+	}
+
+	private static IllegalStateException fail(String message) {
+		return new IllegalStateException(message);
+	}
+
+}
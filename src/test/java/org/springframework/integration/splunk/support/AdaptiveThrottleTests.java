@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.integration.splunk.event.SplunkEventPool;
+import org.springframework.integration.support.MessageBuilder;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class AdaptiveThrottleTests {
+
+	private final AdaptiveThrottle throttle = new AdaptiveThrottle();
+
+	@Test
+	public void testFailFastBeyondBurst() throws Exception {
+		throttle.setMaxRate(10);
+		throttle.setPolicy(ThrottlePolicy.FAIL_FAST);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(throttle.acquire(1, 0));
+		}
+		try {
+			throttle.acquire(1, 0);
+			fail("expected RejectedExecutionException");
+		}
+		catch (RejectedExecutionException e) {
+			assertEquals(1, throttle.getRejectedCount());
+		}
+	}
+
+	@Test
+	public void testShapeWaitsForTokens() throws Exception {
+		throttle.setMaxRate(100);
+		assertTrue(throttle.acquire(100, 0));
+		long start = System.nanoTime();
+		assertTrue(throttle.acquire(5, 0));
+		assertTrue((System.nanoTime() - start) / 1000000 >= 40);
+	}
+
+	@Test
+	public void testShapeGivesUpAfterMaxWait() throws Exception {
+		throttle.setMaxRate(10);
+		throttle.setMaxWait(50);
+		assertTrue(throttle.acquire(10, 0));
+		try {
+			throttle.acquire(10, 0);
+			fail("expected RejectedExecutionException");
+		}
+		catch (RejectedExecutionException e) {
+			assertEquals(10, throttle.getRejectedCount());
+		}
+	}
+
+	@Test
+	public void testShedByPriority() throws Exception {
+		throttle.setMaxRate(100);
+		throttle.setPolicy(ThrottlePolicy.SHED);
+		throttle.setPriorityThreshold(5);
+		assertTrue(throttle.acquire(100, 0));
+		assertFalse(throttle.acquire(1, 4));
+		assertEquals(1, throttle.getShedCount());
+		assertTrue(throttle.acquire(1, 5));
+	}
+
+	@Test
+	public void testAdditiveIncreaseMultiplicativeDecrease() {
+		throttle.setMaxRate(1000);
+		throttle.setAdditiveIncrease(100);
+		throttle.setAdjustInterval(0);
+		throttle.onWrite(10);
+		assertEquals(1000, throttle.getRate(), 0);
+		throttle.onWrite(AdaptiveThrottle.DEFAULT_LATENCY_THRESHOLD + 1);
+		assertEquals(500, throttle.getRate(), 0);
+		throttle.onFailure();
+		assertEquals(250, throttle.getRate(), 0);
+		throttle.onWrite(10);
+		assertEquals(350, throttle.getRate(), 0);
+		for (int i = 0; i < 10; i++) {
+			throttle.onFailure();
+		}
+		assertEquals(AdaptiveThrottle.DEFAULT_MIN_RATE, throttle.getRate(), 0);
+	}
+
+	@Test
+	public void testOneAdjustmentPerInterval() {
+		throttle.setMaxRate(1000);
+		throttle.setAdjustInterval(60000);
+		throttle.onFailure();
+		throttle.onFailure();
+		assertEquals(500, throttle.getRate(), 0);
+	}
+
+	@Test
+	public void testWriterShedsLowPriorityMessages() throws Exception {
+		final List<String> written = new CopyOnWriteArrayList<String>();
+		AbstractSplunkDataWriter writer = new AbstractSplunkDataWriter(mock(ServiceFactory.class), new Args()) {
+
+			@Override
+			protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+				written.add(event.getEventData().get("event_id"));
+			}
+
+			@Override
+			protected Socket createSocket(Service service) throws IOException {
+				return null;
+			}
+
+		};
+		throttle.setMaxRate(2);
+		throttle.setPolicy(ThrottlePolicy.SHED);
+		writer.setThrottle(throttle);
+		SplunkEventPool<SplunkEvent> pool = new SplunkEventPool<SplunkEvent>(SplunkEvent.class);
+		writer.start();
+		try {
+			writer.write(new SplunkEvent("spring", "1"));
+			writer.write(new SplunkEvent("spring", "2"));
+			writer.write(MessageBuilder.withPayload(pool.acquire("spring", "3")).build());
+			writer.write(MessageBuilder.withPayload(new SplunkEvent("spring", "4"))
+					.setHeader(IntegrationMessageHeaderAccessor.PRIORITY, 1).build());
+		}
+		finally {
+			writer.stop();
+		}
+		assertEquals("[1, 2, 4]", written.toString());
+		assertEquals(1, throttle.getShedCount());
+		// the shed event is counted as dropped and returned to its pool
+		assertEquals(1, writer.getDroppedCount());
+		assertEquals(1, pool.getPooledCount());
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.integration.splunk.event.SplunkEventPool;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class AsyncSplunkDataWriterTests {
+
+	private final List<String> written = new CopyOnWriteArrayList<String>();
+
+	private final CountDownLatch firstWriteStarted = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private AbstractSplunkDataWriter writer;
+
+	@Before
+	public void before() {
+		writer = new AbstractSplunkDataWriter(mock(ServiceFactory.class), new Args()) {
+
+			@Override
+			protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+				firstWriteStarted.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				written.add(event.getEventData().get("event_id"));
+			}
+
+			@Override
+			protected Socket createSocket(Service service) throws IOException {
+				return null;
+			}
+
+		};
+		writer.setQueueCapacity(2);
+	}
+
+	@After
+	public void after() {
+		release.countDown();
+		writer.stop();
+	}
+
+	@Test
+	public void testCallerDoesNotWaitForIo() throws Exception {
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		assertTrue(firstWriteStarted.await(10, TimeUnit.SECONDS));
+		writer.write(new SplunkEvent("spring", "2"));
+		assertEquals(1, writer.getQueueSize());
+		release.countDown();
+		writer.stop();
+		assertEquals("[1, 2]", written.toString());
+	}
+
+	@Test
+	public void testDropNewest() throws Exception {
+		writer.setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+		fillQueue();
+		writer.write(new SplunkEvent("spring", "4"));
+		release.countDown();
+		writer.stop();
+		assertEquals("[1, 2, 3]", written.toString());
+		assertEquals(1, writer.getDroppedCount());
+	}
+
+	@Test
+	public void testDropOldest() throws Exception {
+		writer.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+		fillQueue();
+		writer.write(new SplunkEvent("spring", "4"));
+		release.countDown();
+		writer.stop();
+		assertEquals("[1, 3, 4]", written.toString());
+		assertEquals(1, writer.getDroppedCount());
+	}
+
+	@Test
+	public void testEventsReleasedToPool() throws Exception {
+		SplunkEventPool<SplunkEvent> pool = new SplunkEventPool<SplunkEvent>(SplunkEvent.class, 8, 1);
+		pool.setDebug(true);
+		writer.setOverflowPolicy(OverflowPolicy.DROP_NEWEST);
+		writer.start();
+		SplunkEvent first = pool.acquire("spring", "1");
+		writer.write(first);
+		assertTrue(firstWriteStarted.await(10, TimeUnit.SECONDS));
+		writer.write(pool.acquire("spring", "2"));
+		writer.write(pool.acquire("spring", "3"));
+		SplunkEvent dropped = pool.acquire("spring", "4");
+		writer.write(dropped);
+		assertReleased(dropped);
+		release.countDown();
+		writer.stop();
+		assertEquals("[1, 2, 3]", written.toString());
+		assertReleased(first);
+	}
+
+	private static void assertReleased(SplunkEvent event) {
+		try {
+			event.toString();
+			fail("expected IllegalStateException");
+		}
+		catch (IllegalStateException e) {
+		}
+	}
+
+	@Test
+	public void testFailFast() throws Exception {
+		writer.setOverflowPolicy(OverflowPolicy.FAIL_FAST);
+		fillQueue();
+		try {
+			writer.write(new SplunkEvent("spring", "4"));
+			fail("RejectedExecutionException expected");
+		}
+		catch (RejectedExecutionException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testBlock() throws Exception {
+		fillQueue();
+		Thread producer = new Thread(new Runnable() {
+
+			public void run() {
+				try {
+					writer.write(new SplunkEvent("spring", "4"));
+				}
+				catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+		});
+		producer.start();
+		producer.join(100);
+		assertTrue(producer.isAlive());
+		release.countDown();
+		producer.join(10000);
+		writer.stop();
+		assertEquals("[1, 2, 3, 4]", written.toString());
+	}
+
+	@Test
+	public void testBlockedProducerRejectedOnStop() throws Exception {
+		fillQueue();
+		final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+		Thread producer = new Thread(new Runnable() {
+
+			public void run() {
+				try {
+					writer.write(new SplunkEvent("spring", "4"));
+				}
+				catch (Exception e) {
+					failure.set(e);
+				}
+			}
+
+		});
+		producer.start();
+		producer.join(100);
+		assertTrue(producer.isAlive());
+		Thread stopper = new Thread(new Runnable() {
+
+			public void run() {
+				writer.stop();
+			}
+
+		});
+		stopper.start();
+		producer.join(10000);
+		assertFalse(producer.isAlive());
+		assertTrue(failure.get() instanceof RejectedExecutionException);
+		release.countDown();
+		stopper.join(10000);
+		assertEquals("[1, 2, 3]", written.toString());
+	}
+
+	private void fillQueue() throws Exception {
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		assertTrue(firstWriteStarted.await(10, TimeUnit.SECONDS));
+		writer.write(new SplunkEvent("spring", "2"));
+		writer.write(new SplunkEvent("spring", "3"));
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class DiskSpoolTests {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAppendPeekCommitAcrossSegments() throws Exception {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 64, 1024);
+		assertTrue(spool.isEmpty());
+		for (int i = 0; i < 10; i++) {
+			assertTrue(append(spool, "record-" + i));
+		}
+		assertTrue(segmentCount() > 1);
+		for (int i = 0; i < 10; i++) {
+			assertEquals("record-" + i, new String(spool.peek(), "UTF-8"));
+			spool.commit();
+		}
+		assertNull(spool.peek());
+		assertTrue(spool.isEmpty());
+		assertEquals(1, segmentCount());
+		spool.close();
+	}
+
+	@Test
+	public void testRecoveryResumesAtCommittedOffset() throws Exception {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 64, 1024);
+		for (int i = 0; i < 10; i++) {
+			append(spool, "record-" + i);
+		}
+		for (int i = 0; i < 4; i++) {
+			spool.peek();
+			spool.commit();
+		}
+		// peeked but not committed: must be replayed again
+		spool.peek();
+		spool.close();
+
+		spool = new DiskSpool(folder.getRoot(), 64, 1024);
+		assertFalse(spool.isEmpty());
+		for (int i = 4; i < 10; i++) {
+			assertEquals("record-" + i, new String(spool.peek(), "UTF-8"));
+			spool.commit();
+		}
+		assertTrue(spool.isEmpty());
+		assertTrue(append(spool, "record-10"));
+		assertEquals("record-10", new String(spool.peek(), "UTF-8"));
+		spool.close();
+	}
+
+	@Test
+	public void testSizeCap() throws Exception {
+		DiskSpool spool = new DiskSpool(folder.getRoot(), 64, 128);
+		int appended = 0;
+		while (append(spool, "0123456789")) {
+			appended++;
+		}
+		assertEquals(8, appended);
+		spool.peek();
+		spool.commit();
+		assertFalse(append(spool, "0123456789"));
+		spool.close();
+	}
+
+	@Test
+	public void testWriterSpoolsWhileDownstreamIsUnavailable() throws Exception {
+		final List<String> written = new CopyOnWriteArrayList<String>();
+		final boolean[] available = { true };
+		AbstractSplunkDataWriter writer = new AbstractSplunkDataWriter(mock(ServiceFactory.class), new Args()) {
+
+			@Override
+			protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+					throws IOException {
+				if (!available[0]) {
+					throw new IOException("connection reset");
+				}
+				written.add(new String(batch, 0, length, "UTF-8").trim());
+			}
+
+			@Override
+			protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+				byte[] bytes = event.toString().getBytes("UTF-8");
+				doWriteBatch(bytes, bytes.length, socket, service, args);
+			}
+
+			@Override
+			protected Socket createSocket(Service service) throws IOException {
+				if (!available[0]) {
+					throw new IOException("connection refused");
+				}
+				return null;
+			}
+
+		};
+		writer.setSpoolDirectory(folder.getRoot());
+		writer.setSpoolRetryInterval(10);
+		writer.start();
+
+		writer.write(event("1"));
+		available[0] = false;
+		writer.write(event("2"));
+		assertTrue(writer.isSpooling());
+		available[0] = true;
+		// still spooling: keeps order behind the spooled event
+		writer.write(event("3"));
+
+		long deadline = System.currentTimeMillis() + 10000;
+		while (writer.isSpooling() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertFalse(writer.isSpooling());
+		writer.write(event("4"));
+		writer.stop();
+		assertEquals(4, written.size());
+		for (int i = 0; i < 4; i++) {
+			assertTrue(written.get(i), written.get(i).contains("event_id=\"" + (i + 1) + "\""));
+		}
+	}
+
+	private SplunkEvent event(String id) {
+		return new SplunkEvent("spring", id);
+	}
+
+	private boolean append(DiskSpool spool, String record) throws IOException {
+		byte[] bytes = record.getBytes("UTF-8");
+		return spool.append(bytes, 0, bytes.length);
+	}
+
+	private int segmentCount() {
+		return folder.getRoot().list().length - 1;
+	}
+
+}
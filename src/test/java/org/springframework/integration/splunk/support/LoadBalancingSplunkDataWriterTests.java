@@ -0,0 +1,235 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.integration.support.MessageBuilder;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class LoadBalancingSplunkDataWriterTests {
+
+	private final List<SplunkServer> servers = new ArrayList<SplunkServer>();
+
+	private final List<CountingWriter> writers = new ArrayList<CountingWriter>();
+
+	@Test
+	public void testRoundRobin() throws Exception {
+		LoadBalancingSplunkDataWriter writer = create(1, 1, 1);
+		write(writer, 9);
+		assertCounts(3, 3, 3);
+	}
+
+	@Test
+	public void testWeighted() throws Exception {
+		LoadBalancingSplunkDataWriter writer = create(1, 3);
+		writer.setStrategy(LoadBalancingStrategy.WEIGHTED);
+		write(writer, 8);
+		assertCounts(2, 6);
+	}
+
+	@Test
+	public void testLeastOutstanding() throws Exception {
+		LoadBalancingSplunkDataWriter writer = create(1, 1);
+		writer.setStrategy(LoadBalancingStrategy.LEAST_OUTSTANDING);
+		write(writer, 4);
+		// nothing is ever outstanding between synchronous writes: the first server wins
+		assertCounts(4, 0);
+	}
+
+	@Test
+	public void testFailedServerLeavesAndRejoinsRotation() throws Exception {
+		LoadBalancingSplunkDataWriter writer = create(1, 1);
+		writer.setRetryInterval(50);
+		writers.get(0).available = false;
+		write(writer, 4);
+		assertCounts(0, 4);
+		assertEquals(Arrays.asList(servers.get(1)), writer.getAvailableServers());
+		// the writer is left running for writes in flight and producers do not reconnect
+		assertTrue(writers.get(0).isRunning());
+		write(writer, 2);
+		assertCounts(0, 6);
+
+		writers.get(0).available = true;
+		int n = 0;
+		while (writer.getAvailableServers().size() < 2 && n++ < 100) {
+			Thread.sleep(10);
+		}
+		write(writer, 4);
+		assertCounts(2, 8);
+		assertEquals(2, writer.getAvailableServers().size());
+		writer.stop();
+	}
+
+	@Test
+	public void testWeightedWritesNotBlockedByRejoin() throws Exception {
+		final LoadBalancingSplunkDataWriter writer = create(1, 1);
+		writer.setStrategy(LoadBalancingStrategy.WEIGHTED);
+		writer.setRetryInterval(10);
+		CountingWriter failing = writers.get(0);
+		failing.available = false;
+		write(writer, 1);
+		assertCounts(0, 1);
+
+		failing.connecting = new CountDownLatch(1);
+		failing.blockConnect = new CountDownLatch(1);
+		failing.available = true;
+		assertTrue(failing.connecting.await(5, TimeUnit.SECONDS));
+		// the rejoin thread is connecting, producers go on with the other server
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> writes = executor.submit(new Callable<Void>() {
+
+				public Void call() throws Exception {
+					write(writer, 4);
+					return null;
+				}
+
+			});
+			writes.get(5, TimeUnit.SECONDS);
+			assertCounts(0, 5);
+		}
+		finally {
+			failing.blockConnect.countDown();
+			executor.shutdown();
+		}
+		writer.stop();
+	}
+
+	@Test
+	public void testMessagePriorityReachesThrottle() throws Exception {
+		LoadBalancingSplunkDataWriter writer = create(1);
+		AdaptiveThrottle throttle = new AdaptiveThrottle();
+		throttle.setMaxRate(1);
+		throttle.setPolicy(ThrottlePolicy.SHED);
+		writers.get(0).setThrottle(throttle);
+		writer.write(MessageBuilder.withPayload(new SplunkEvent("spring", "1")).build());
+		writer.write(MessageBuilder.withPayload(new SplunkEvent("spring", "2")).build());
+		writer.write(MessageBuilder.withPayload(new SplunkEvent("spring", "3"))
+				.setHeader(IntegrationMessageHeaderAccessor.PRIORITY, 1).build());
+		assertCounts(2);
+		assertEquals(1, writers.get(0).getDroppedCount());
+		writer.stop();
+	}
+
+	@Test
+	public void testAllServersDown() throws Exception {
+		LoadBalancingSplunkDataWriter writer = create(1, 1);
+		writers.get(0).available = false;
+		writers.get(1).available = false;
+		try {
+			writer.write(new SplunkEvent("spring", "1"));
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			assertEquals("connection reset", e.getMessage());
+		}
+		assertTrue(writer.getAvailableServers().isEmpty());
+	}
+
+	private LoadBalancingSplunkDataWriter create(int... weights) {
+		for (int i = 0; i < weights.length; i++) {
+			SplunkServer server = new SplunkServer();
+			server.setHost("indexer" + i);
+			server.setWeight(weights[i]);
+			servers.add(server);
+			writers.add(new CountingWriter());
+		}
+		LoadBalancingSplunkDataWriter writer = new LoadBalancingSplunkDataWriter(servers,
+				new ArrayList<AbstractSplunkDataWriter>(writers));
+		writer.start();
+		return writer;
+	}
+
+	private void write(LoadBalancingSplunkDataWriter writer, int count) throws Exception {
+		for (int i = 0; i < count; i++) {
+			writer.write(new SplunkEvent("spring", String.valueOf(i)));
+		}
+	}
+
+	private void assertCounts(int... counts) {
+		for (int i = 0; i < counts.length; i++) {
+			assertEquals("writer " + i, counts[i], writers.get(i).count);
+		}
+	}
+
+	private static class CountingWriter extends AbstractSplunkDataWriter {
+
+		private volatile boolean available = true;
+
+		private volatile CountDownLatch connecting;
+
+		private volatile CountDownLatch blockConnect;
+
+		private int count;
+
+		CountingWriter() {
+			super(mock(ServiceFactory.class), new Args());
+		}
+
+		@Override
+		protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) throws IOException {
+			if (!this.available) {
+				throw new IOException("connection reset");
+			}
+			this.count++;
+		}
+
+		@Override
+		protected Socket createSocket(Service service) throws IOException {
+			if (!this.available) {
+				throw new IOException("connection refused");
+			}
+			if (this.blockConnect != null) {
+				this.connecting.countDown();
+				try {
+					this.blockConnect.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @since 1.2
+ */
+public class MpscRingBufferTests {
+
+	@Test
+	public void testCapacityRoundedUp() {
+		assertEquals(8, new MpscRingBuffer<Object>(5).capacity());
+		assertEquals(1, new MpscRingBuffer<Object>(1).capacity());
+	}
+
+	@Test
+	public void testOfferAndPollWrapAround() {
+		MpscRingBuffer<Integer> buffer = new MpscRingBuffer<Integer>(4);
+		for (int lap = 0; lap < 3; lap++) {
+			for (int i = 0; i < 4; i++) {
+				assertTrue(buffer.offer(i));
+			}
+			assertFalse(buffer.offer(4));
+			assertEquals(4, buffer.size());
+			for (int i = 0; i < 4; i++) {
+				assertEquals(Integer.valueOf(i), buffer.poll());
+			}
+			assertNull(buffer.poll());
+			assertTrue(buffer.isEmpty());
+		}
+	}
+
+	@Test
+	public void testConcurrentProducers() throws Exception {
+		final MpscRingBuffer<Long> buffer = new MpscRingBuffer<Long>(1024);
+		final int producers = 4;
+		final int perProducer = 100000;
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		for (int p = 0; p < producers; p++) {
+			final long base = (long) p * perProducer;
+			executor.execute(new Runnable() {
+
+				public void run() {
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < perProducer; i++) {
+						while (!buffer.offer(base + i)) {
+							Thread.yield();
+						}
+					}
+				}
+
+			});
+		}
+		start.countDown();
+
+		long[] lastSeen = new long[producers];
+		Arrays.fill(lastSeen, -1);
+		long received = 0;
+		long deadline = System.currentTimeMillis() + 30000;
+		while (received < (long) producers * perProducer && System.currentTimeMillis() < deadline) {
+			Long value = buffer.poll();
+			if (value == null) {
+				continue;
+			}
+			int producer = (int) (value / perProducer);
+			// events of a single producer come out in order
+			assertTrue(value > lastSeen[producer]);
+			lastSeen[producer] = value;
+			received++;
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals((long) producers * perProducer, received);
+		assertNull(buffer.poll());
+	}
+
+}
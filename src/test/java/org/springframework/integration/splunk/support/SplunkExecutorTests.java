@@ -18,6 +18,7 @@ package org.springframework.integration.splunk.support;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Assert;
@@ -29,6 +30,7 @@ import org.springframework.integration.splunk.core.DataWriter;
 import org.springframework.integration.splunk.event.SplunkEvent;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
 
 /**
  * @author Jarred Li
@@ -64,6 +66,20 @@ public class SplunkExecutorTests {
 		verify(writer).write(sd);
 	}
 
+	@Test
+	public void testHandleCollectionMessage() throws Exception {
+		List<SplunkEvent> events = new ArrayList<SplunkEvent>();
+		events.add(new SplunkEvent("spring", "1"));
+		events.add(new SplunkEvent("spring", "2"));
+		executor.handleMessage(MessageBuilder.withPayload(events).build());
+		verify(writer).write(events);
+	}
+
+	@Test(expected = MessageHandlingException.class)
+	public void testHandleCollectionOfOtherPayloads() throws Exception {
+		executor.handleMessage(MessageBuilder.withPayload(Arrays.asList("foo")).build());
+	}
+
 	/**
 	 * Test method for {@link org.springframework.integration.splunk.support.SplunkExecutor#poll()}.
 	 * @throws Exception
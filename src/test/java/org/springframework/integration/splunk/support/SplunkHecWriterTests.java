@@ -0,0 +1,301 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+
+import com.splunk.Args;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * @since 1.2
+ */
+public class SplunkHecWriterTests {
+
+	private final List<String> bodies = new CopyOnWriteArrayList<String>();
+
+	private final List<String> authorizations = new CopyOnWriteArrayList<String>();
+
+	private volatile int status = 200;
+
+	private final AtomicLong ackIds = new AtomicLong();
+
+	private final List<String> ackQueries = new CopyOnWriteArrayList<String>();
+
+	private volatile boolean acking = true;
+
+	private HttpServer server;
+
+	private ServiceFactory serviceFactory;
+
+	private SplunkHecWriter writer;
+
+	@Before
+	public void before() throws Exception {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/services/collector/event", new HttpHandler() {
+
+			public void handle(HttpExchange exchange) throws IOException {
+				InputStream body = exchange.getRequestBody();
+				if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+					body = new GZIPInputStream(body);
+				}
+				bodies.add(read(body));
+				authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+				String json = "{\"text\":\"Success\",\"code\":0";
+				if (exchange.getRequestHeaders().getFirst("X-Splunk-Request-Channel") != null) {
+					json += ",\"ackId\":" + ackIds.getAndIncrement();
+				}
+				respond(exchange, json + "}");
+			}
+
+		});
+		server.createContext("/services/collector/ack", new HttpHandler() {
+
+			public void handle(HttpExchange exchange) throws IOException {
+				String query = read(exchange.getRequestBody());
+				ackQueries.add(exchange.getRequestURI().getQuery() + " " + query);
+				StringBuilder json = new StringBuilder("{\"acks\":{");
+				Matcher ids = Pattern.compile("\\d+").matcher(query);
+				boolean first = true;
+				while (ids.find()) {
+					json.append(first ? "" : ",").append('"').append(ids.group()).append("\":").append(acking);
+					first = false;
+				}
+				respond(exchange, json.append("}}").toString());
+			}
+
+		});
+		server.start();
+
+		Args args = new ArgsBuilder().setHost("test.host").setSource("example").setSourceType("spring").build();
+		serviceFactory = mock(ServiceFactory.class);
+		writer = new SplunkHecWriter(serviceFactory, args);
+		writer.setUrl("http://localhost:" + server.getAddress().getPort() + "/services/collector/event");
+		writer.setToken("secret");
+		writer.setIndex("foo");
+	}
+
+	@After
+	public void after() {
+		writer.stop();
+		server.stop(0);
+	}
+
+	@Test
+	public void testWriteSingleEvent() throws Exception {
+		writer.start();
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		event.setCommonDesc("a \"quoted\" description");
+		writer.write(event);
+
+		verifyZeroInteractions(serviceFactory);
+		assertEquals(1, bodies.size());
+		assertEquals("Splunk secret", authorizations.get(0));
+		String body = bodies.get(0);
+		assertTrue(body, body.startsWith("{\"time\":"));
+		assertTrue(body, body.contains(
+				",\"host\":\"test.host\",\"source\":\"example\",\"sourcetype\":\"spring\",\"index\":\"foo\",\"event\":\""));
+		assertTrue(body, body.contains("desc=\\\"a \\\"quoted\\\" description\\\"\"}\n"));
+	}
+
+	@Test
+	public void testWriteGzippedBatch() throws Exception {
+		writer.setGzip(true);
+		writer.setBatchSize(3);
+		writer.setBatchLinger(0);
+		writer.start();
+		for (int i = 0; i < 3; i++) {
+			writer.write(new SplunkEvent("spring", String.valueOf(i)));
+		}
+
+		assertEquals(1, bodies.size());
+		String[] events = bodies.get(0).split("\n");
+		assertEquals(3, events.length);
+		for (int i = 0; i < 3; i++) {
+			assertTrue(events[i], events[i].contains("event_id=\\\"" + i + "\\\""));
+		}
+	}
+
+	@Test
+	public void testErrorStatus() throws Exception {
+		status = 403;
+		writer.start();
+		try {
+			writer.write(new SplunkEvent("spring", "1"));
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("403"));
+		}
+		assertFalse(bodies.isEmpty());
+	}
+
+	@Test
+	public void testAcknowledgedBatchReported() throws Exception {
+		QueueChannel ackChannel = new QueueChannel();
+		enableAck(ackChannel);
+		writer.start();
+		writer.write(Arrays.asList(new SplunkEvent("spring", "1"), new SplunkEvent("spring", "2")));
+
+		Message<?> ack = ackChannel.receive(5000);
+		assertNotNull(ack);
+		assertEquals(Boolean.TRUE, ack.getHeaders().get(SplunkHeaders.HEC_ACKNOWLEDGED));
+		assertEquals(0L, ack.getHeaders().get(SplunkHeaders.HEC_ACK_ID));
+		assertEquals(2, ack.getHeaders().get(SplunkHeaders.HEC_EVENT_COUNT));
+		assertEquals(1, ack.getHeaders().get(SplunkHeaders.HEC_ATTEMPTS));
+		assertEquals(bodies.get(0), ack.getPayload());
+		assertTrue(ackQueries.get(0), ackQueries.get(0).matches("channel=[-0-9a-f]+ \\{\"acks\":\\[0\\]\\}"));
+		assertEquals(0, writer.getPendingAckCount());
+	}
+
+	@Test
+	public void testUnacknowledgedBatchSentAgainThenReportedAsFailed() throws Exception {
+		acking = false;
+		QueueChannel ackChannel = new QueueChannel();
+		enableAck(ackChannel);
+		writer.setAckTimeout(50);
+		writer.setAckMaxRetries(1);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+
+		Message<?> ack = ackChannel.receive(5000);
+		assertNotNull(ack);
+		assertEquals(Boolean.FALSE, ack.getHeaders().get(SplunkHeaders.HEC_ACKNOWLEDGED));
+		assertEquals(2, ack.getHeaders().get(SplunkHeaders.HEC_ATTEMPTS));
+		assertEquals(2, bodies.size());
+		assertEquals(bodies.get(0), bodies.get(1));
+	}
+
+	@Test
+	public void testBatchSentAgainWhenAckIdReused() throws Exception {
+		acking = false;
+		QueueChannel ackChannel = new QueueChannel();
+		enableAck(ackChannel);
+		writer.setAckWindow(2);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		// the server restarts and hands out the same ack id again
+		ackIds.set(0);
+		writer.write(new SplunkEvent("spring", "2"));
+
+		acking = true;
+		Message<?> first = ackChannel.receive(5000);
+		Message<?> second = ackChannel.receive(5000);
+		assertNotNull(first);
+		assertNotNull(second);
+		assertEquals(Boolean.TRUE, first.getHeaders().get(SplunkHeaders.HEC_ACKNOWLEDGED));
+		assertEquals(Boolean.TRUE, second.getHeaders().get(SplunkHeaders.HEC_ACKNOWLEDGED));
+		assertEquals(3, bodies.size());
+		assertEquals(bodies.get(0), bodies.get(2));
+		assertEquals(new HashSet<Object>(Arrays.asList(bodies.get(0), bodies.get(1))),
+				new HashSet<Object>(Arrays.asList(first.getPayload(), second.getPayload())));
+		assertEquals(0, writer.getPendingAckCount());
+
+		// both slots of the window are free again
+		writer.write(new SplunkEvent("spring", "3"));
+		writer.write(new SplunkEvent("spring", "4"));
+		assertEquals(5, bodies.size());
+	}
+
+	@Test
+	public void testWriteWaitsForRoomInAckWindow() throws Exception {
+		acking = false;
+		enableAck(null);
+		writer.setAckWindow(1);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+
+		final CountDownLatch written = new CountDownLatch(1);
+		new Thread(new Runnable() {
+
+			public void run() {
+				try {
+					writer.write(new SplunkEvent("spring", "2"));
+					written.countDown();
+				}
+				catch (Exception e) {
+					// counted as not written
+				}
+			}
+
+		}).start();
+		assertFalse(written.await(200, TimeUnit.MILLISECONDS));
+		assertEquals(1, bodies.size());
+
+		acking = true;
+		assertTrue(written.await(5, TimeUnit.SECONDS));
+		assertEquals(2, bodies.size());
+	}
+
+	private void enableAck(MessageChannel ackChannel) {
+		writer.setAck(true);
+		writer.setAckPollInterval(10);
+		writer.setAckChannel(ackChannel);
+	}
+
+	private void respond(HttpExchange exchange, String json) throws IOException {
+		byte[] response = json.getBytes("UTF-8");
+		exchange.sendResponseHeaders(status, response.length);
+		exchange.getResponseBody().write(response);
+		exchange.close();
+	}
+
+	private static String read(InputStream stream) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[512];
+		int read;
+		while ((read = stream.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toString("UTF-8");
+	}
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+
+import com.splunk.Args;
+import com.splunk.Receiver;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class SplunkIndexWriterTests {
+
+	private ServerSocket serverSocket;
+
+	private Socket clientSocket;
+
+	private BufferedReader received;
+
+	private Receiver receiver;
+
+	private SplunkIndexWriter writer;
+
+	@Before
+	public void before() throws Exception {
+		serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		clientSocket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+		Socket accepted = serverSocket.accept();
+		accepted.setSoTimeout(200);
+		received = new BufferedReader(new InputStreamReader(accepted.getInputStream(), "UTF-8"));
+
+		receiver = mock(Receiver.class);
+		when(receiver.attach(any(Args.class))).thenReturn(clientSocket);
+		Service service = mock(Service.class);
+		when(service.getReceiver()).thenReturn(receiver);
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenReturn(service);
+
+		writer = new SplunkIndexWriter(serviceFactory, new Args());
+	}
+
+	@After
+	public void after() throws Exception {
+		writer.stop();
+		serverSocket.close();
+	}
+
+	@Test
+	public void testWriteWithoutBatching() throws Exception {
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		assertTrue(received.readLine().contains("event_id=\"1\""));
+	}
+
+	@Test
+	public void testWriteCollection() throws Exception {
+		writer.start();
+		writer.write(Arrays.asList(new SplunkEvent("spring", "1"), new SplunkEvent("spring", "2")));
+		assertTrue(received.readLine().contains("event_id=\"1\""));
+		assertTrue(received.readLine().contains("event_id=\"2\""));
+	}
+
+	@Test
+	public void testCollectionAddedToBatch() throws Exception {
+		writer.setBatchSize(3);
+		writer.setBatchLinger(0);
+		writer.start();
+		writer.write(Arrays.asList(new SplunkEvent("spring", "1"), new SplunkEvent("spring", "2")));
+		assertNothingReceived();
+
+		writer.write(Arrays.asList(new SplunkEvent("spring", "3"), new SplunkEvent("spring", "4")));
+		for (int i = 1; i <= 3; i++) {
+			assertTrue(received.readLine().contains("event_id=\"" + i + "\""));
+		}
+		assertNothingReceived();
+	}
+
+	@Test
+	public void testBatchWrittenWhenSizeReached() throws Exception {
+		writer.setBatchSize(3);
+		writer.setBatchLinger(0);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		writer.write(new SplunkEvent("spring", "2"));
+		assertNothingReceived();
+
+		writer.write(new SplunkEvent("spring", "3"));
+		for (int i = 1; i <= 3; i++) {
+			assertTrue(received.readLine().contains("event_id=\"" + i + "\""));
+		}
+	}
+
+	@Test
+	public void testBatchWrittenWhenMaxBytesReached() throws Exception {
+		writer.setBatchSize(100);
+		writer.setBatchMaxBytes(1);
+		writer.setBatchLinger(0);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		assertTrue(received.readLine().contains("event_id=\"1\""));
+	}
+
+	@Test
+	public void testBatchWrittenAfterLinger() throws Exception {
+		writer.setBatchSize(100);
+		writer.setBatchLinger(20);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		long start = System.currentTimeMillis();
+		String line = null;
+		while (line == null && System.currentTimeMillis() - start < 5000) {
+			try {
+				line = received.readLine();
+			}
+			catch (SocketTimeoutException e) {
+				// not yet
+			}
+		}
+		assertTrue(line.contains("event_id=\"1\""));
+	}
+
+	@Test
+	public void testPendingBatchWrittenOnStop() throws Exception {
+		writer.setBatchSize(100);
+		writer.setBatchLinger(0);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		writer.stop();
+		assertTrue(received.readLine().contains("event_id=\"1\""));
+		assertEquals(null, received.readLine());
+	}
+
+	@Test
+	public void testFlushEveryNEvents() throws Exception {
+		writer.setFlushPolicy(FlushPolicy.EVERY_N_EVENTS);
+		writer.setFlushEvents(3);
+		writer.setFlushInterval(60000);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		writer.write(new SplunkEvent("spring", "2"));
+		assertNothingReceived();
+
+		writer.write(new SplunkEvent("spring", "3"));
+		for (int i = 1; i <= 3; i++) {
+			assertTrue(received.readLine().contains("event_id=\"" + i + "\""));
+		}
+	}
+
+	@Test
+	public void testFlushEveryNBytes() throws Exception {
+		int eventSize = new SplunkEvent("spring", "0").toString().getBytes("UTF-8").length;
+		writer.setFlushPolicy(FlushPolicy.EVERY_N_BYTES);
+		writer.setFlushBytes(eventSize * 2 + 1);
+		writer.setFlushInterval(60000);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		writer.write(new SplunkEvent("spring", "2"));
+		assertNothingReceived();
+
+		writer.write(new SplunkEvent("spring", "3"));
+		assertTrue(received.readLine().contains("event_id=\"1\""));
+		assertTrue(received.readLine().contains("event_id=\"2\""));
+		assertNothingReceived();
+
+		writer.flush();
+		assertTrue(received.readLine().contains("event_id=\"3\""));
+	}
+
+	@Test
+	public void testFlushInterval() throws Exception {
+		writer.setFlushPolicy(FlushPolicy.INTERVAL);
+		writer.setFlushInterval(20);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		long start = System.currentTimeMillis();
+		String line = null;
+		while (line == null && System.currentTimeMillis() - start < 5000) {
+			try {
+				line = received.readLine();
+			}
+			catch (SocketTimeoutException e) {
+				// not yet
+			}
+		}
+		assertTrue(line.contains("event_id=\"1\""));
+	}
+
+	@Test
+	public void testFlushOnIdle() throws Exception {
+		writer.setFlushPolicy(FlushPolicy.ON_IDLE);
+		writer.setFlushInterval(60000);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		assertTrue(received.readLine().contains("event_id=\"1\""));
+	}
+
+	@Test
+	public void testBatchAfterBufferedEvents() throws Exception {
+		writer.setFlushPolicy(FlushPolicy.INTERVAL);
+		writer.setFlushInterval(60000);
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		writer.write(Arrays.asList(new SplunkEvent("spring", "2"), new SplunkEvent("spring", "3")));
+		for (int i = 1; i <= 3; i++) {
+			assertTrue(received.readLine().contains("event_id=\"" + i + "\""));
+		}
+	}
+
+	@Test
+	public void testStripes() throws Exception {
+		final ServerSocket stripeServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		final List<String> lines = new CopyOnWriteArrayList<String>();
+		final AtomicInteger connections = new AtomicInteger();
+		final ExecutorService executor = Executors.newCachedThreadPool();
+		try {
+			when(receiver.attach(any(Args.class))).thenAnswer(new Answer<Socket>() {
+
+				public Socket answer(InvocationOnMock invocation) throws Throwable {
+					return new Socket(InetAddress.getLoopbackAddress(), stripeServer.getLocalPort());
+				}
+
+			});
+			executor.execute(new Runnable() {
+
+				public void run() {
+					try {
+						while (true) {
+							final Socket accepted = stripeServer.accept();
+							connections.incrementAndGet();
+							executor.execute(new Runnable() {
+
+								public void run() {
+									try {
+										BufferedReader in = new BufferedReader(
+												new InputStreamReader(accepted.getInputStream(), "UTF-8"));
+										String line;
+										while ((line = in.readLine()) != null) {
+											lines.add(line);
+										}
+									}
+									catch (IOException e) {
+										// closed
+									}
+								}
+
+							});
+						}
+					}
+					catch (IOException e) {
+						// server closed
+					}
+				}
+
+			});
+			writer.setStripes(4);
+			writer.start();
+			List<Future<?>> producers = new ArrayList<Future<?>>();
+			for (int i = 0; i < 8; i++) {
+				producers.add(executor.submit(new Callable<Void>() {
+
+					public Void call() throws Exception {
+						for (int j = 0; j < 10; j++) {
+							writer.write(new SplunkEvent("spring", String.valueOf(j)));
+						}
+						return null;
+					}
+
+				}));
+			}
+			for (Future<?> producer : producers) {
+				producer.get(10, TimeUnit.SECONDS);
+			}
+			assertTrue(writer.getOpenStripes() <= 4);
+			writer.stop();
+			long start = System.currentTimeMillis();
+			while (lines.size() < 80 && System.currentTimeMillis() - start < 5000) {
+				Thread.sleep(10);
+			}
+			assertEquals(80, lines.size());
+			assertTrue(connections.get() >= 1 && connections.get() <= 4);
+		}
+		finally {
+			stripeServer.close();
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testIdleStripeClosed() throws Exception {
+		final ServerSocket stripeServer = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		try {
+			when(receiver.attach(any(Args.class))).thenAnswer(new Answer<Socket>() {
+
+				public Socket answer(InvocationOnMock invocation) throws Throwable {
+					return new Socket(InetAddress.getLoopbackAddress(), stripeServer.getLocalPort());
+				}
+
+			});
+			writer.setStripes(2);
+			writer.setIdleTimeout(50);
+			writer.start();
+			Thread other;
+			do {
+				// a thread writing to the other stripe
+				other = new Thread(new Runnable() {
+
+					public void run() {
+						try {
+							writer.write(new SplunkEvent("spring", "1"));
+						}
+						catch (Exception e) {
+							throw new IllegalStateException(e);
+						}
+					}
+
+				});
+			}
+			while (other.getId() % 2 == Thread.currentThread().getId() % 2);
+			other.start();
+			other.join();
+			assertEquals(1, writer.getOpenStripes());
+			Thread.sleep(100);
+			writer.write(new SplunkEvent("spring", "2"));
+			assertEquals(1, writer.getOpenStripes());
+		}
+		finally {
+			stripeServer.close();
+		}
+	}
+
+	private void assertNothingReceived() throws Exception {
+		try {
+			received.readLine();
+			throw new AssertionError("no data expected");
+		}
+		catch (SocketTimeoutException e) {
+			// expected
+		}
+	}
+
+}
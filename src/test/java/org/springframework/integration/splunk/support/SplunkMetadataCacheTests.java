@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+
+import com.splunk.Args;
+import com.splunk.HttpException;
+import com.splunk.Index;
+import com.splunk.IndexCollection;
+import com.splunk.SavedSearch;
+import com.splunk.SavedSearchCollection;
+import com.splunk.Service;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @since 1.2
+ */
+public class SplunkMetadataCacheTests {
+
+	private final SplunkMetadataCache cache = new SplunkMetadataCache();
+
+	private Service service;
+
+	private IndexCollection indexes;
+
+	private Index index;
+
+	@Before
+	public void setUp() {
+		this.index = mock(Index.class);
+		this.indexes = new IndexCollection();
+		this.indexes.put("main", this.index);
+		this.service = service("localhost", 8089);
+		when(this.service.getIndexes()).thenReturn(this.indexes);
+	}
+
+	@Test
+	public void testLookupCached() {
+		assertSame(this.index, this.cache.getIndex(this.service, "main"));
+		assertSame(this.index, this.cache.getIndex(this.service, "main"));
+		verify(this.service, times(1)).getIndexes();
+	}
+
+	@Test
+	public void testMissCached() {
+		assertNull(this.cache.getIndex(this.service, "other"));
+		assertNull(this.cache.getIndex(this.service, "other"));
+		verify(this.service, times(1)).getIndexes();
+	}
+
+	@Test
+	public void testExpiry() {
+		this.cache.setTimeToLive(0);
+		this.cache.getIndex(this.service, "main");
+		this.cache.getIndex(this.service, "main");
+		verify(this.service, times(2)).getIndexes();
+	}
+
+	@Test
+	public void testEntriesPerServer() {
+		Service other = service("otherhost", 8089);
+		when(other.getIndexes()).thenReturn(new IndexCollection());
+		this.cache.getIndex(this.service, "main");
+		assertNull(this.cache.getIndex(other, "main"));
+		assertSame(this.index, this.cache.getIndex(this.service, "main"));
+		verify(this.service, times(1)).getIndexes();
+	}
+
+	@Test
+	public void testEntriesPerService() {
+		// same server, logged in as another user
+		Service other = service("localhost", 8089);
+		when(other.getIndexes()).thenReturn(new IndexCollection());
+		this.cache.getIndex(this.service, "main");
+		assertNull(this.cache.getIndex(other, "main"));
+		assertSame(this.index, this.cache.getIndex(this.service, "main"));
+		verify(this.service, times(1)).getIndexes();
+		verify(other, times(1)).getIndexes();
+	}
+
+	@Test
+	public void testInvalidatedOnUnauthorized() {
+		this.cache.getIndex(this.service, "main");
+		HttpException unauthorized = mock(HttpException.class);
+		when(unauthorized.getStatus()).thenReturn(401);
+		assertTrue(this.cache.invalidateIfStale(this.service, unauthorized));
+		this.cache.getIndex(this.service, "main");
+		verify(this.service, times(2)).getIndexes();
+	}
+
+	@Test
+	public void testInvalidatedOnNotFound() {
+		this.cache.getIndex(this.service, "main");
+		assertFalse(this.cache.invalidateIfStale(this.service, new IOException()));
+		HttpException notFound = mock(HttpException.class);
+		when(notFound.getStatus()).thenReturn(404);
+		assertTrue(this.cache.invalidateIfStale(this.service, notFound));
+		this.cache.getIndex(this.service, "main");
+		verify(this.service, times(2)).getIndexes();
+	}
+
+	@Test
+	public void testSavedSearchPerNamespace() {
+		SavedSearch search = mock(SavedSearch.class);
+		SavedSearchCollection searches = new SavedSearchCollection();
+		searches.put("errors", search);
+		Args namespace = new Args();
+		namespace.put("app", "search");
+		when(this.service.getSavedSearches(namespace)).thenReturn(searches);
+		assertSame(search, this.cache.getSavedSearch(this.service, "errors", namespace));
+		assertSame(search, this.cache.getSavedSearch(this.service, "errors", namespace));
+		verify(this.service, times(1)).getSavedSearches(namespace);
+		Args otherNamespace = new Args();
+		otherNamespace.put("app", "other");
+		when(this.service.getSavedSearches(otherNamespace)).thenReturn(new SavedSearchCollection());
+		assertNull(this.cache.getSavedSearch(this.service, "errors", otherNamespace));
+	}
+
+	private static Service service(String host, int port) {
+		Service service = mock(Service.class);
+		when(service.getScheme()).thenReturn("https");
+		when(service.getHost()).thenReturn(host);
+		when(service.getPort()).thenReturn(port);
+		return service;
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+
+import com.splunk.Args;
+import com.splunk.Input;
+import com.splunk.InputCollection;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class SplunkNioTcpWriterTests {
+
+	private ServerSocket serverSocket;
+
+	private SplunkNioTcpWriter writer;
+
+	@Before
+	public void before() throws Exception {
+		serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		int port = serverSocket.getLocalPort();
+
+		InputCollection inputs = mock(InputCollection.class);
+		when(inputs.get(String.valueOf(port))).thenReturn(mock(Input.class));
+		Service service = mock(Service.class);
+		when(service.getInputs()).thenReturn(inputs);
+		when(service.getHost()).thenReturn(InetAddress.getLoopbackAddress().getHostAddress());
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenReturn(service);
+
+		writer = new SplunkNioTcpWriter(serviceFactory, new Args());
+		writer.setPort(port);
+		writer.setTcpNoDelay(true);
+		writer.setKeepAlive(true);
+	}
+
+	@After
+	public void after() throws Exception {
+		writer.stop();
+		serverSocket.close();
+	}
+
+	@Test
+	public void testEventSpanningSeveralBuffers() throws Exception {
+		writer.setBufferSize(16);
+		writer.start();
+		BufferedReader received = accept();
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		event.setCommonDesc("gr\u00fc\u00dfe \u00e0 tous, \u4f60\u597d");
+		writer.write(event);
+		writer.write(new SplunkEvent("spring", "2"));
+
+		String line = received.readLine();
+		assertTrue(line, line.contains("event_id=\"1\""));
+		assertTrue(line, line.contains("desc=\"gr\u00fc\u00dfe \u00e0 tous, \u4f60\u597d\""));
+		assertTrue(received.readLine().contains("event_id=\"2\""));
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		writer.setBufferSize(64);
+		writer.setBatchSize(10);
+		writer.setBatchLinger(0);
+		writer.start();
+		BufferedReader received = accept();
+		for (int i = 0; i < 10; i++) {
+			writer.write(new SplunkEvent("spring", String.valueOf(i)));
+		}
+		for (int i = 0; i < 10; i++) {
+			assertTrue(received.readLine().contains("event_id=\"" + i + "\""));
+		}
+		writer.stop();
+		assertEquals(null, received.readLine());
+	}
+
+	private BufferedReader accept() throws Exception {
+		Socket accepted = serverSocket.accept();
+		accepted.setSoTimeout(5000);
+		return new BufferedReader(new InputStreamReader(accepted.getInputStream(), "UTF-8"));
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.integration.support.MessageBuilder;
+
+import com.splunk.Args;
+import com.splunk.Index;
+import com.splunk.IndexCollection;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class SplunkRoutingIndexWriterTests {
+
+	private ServerSocket serverSocket;
+
+	private IndexCollection indexes;
+
+	private SplunkRoutingIndexWriter writer;
+
+	@Before
+	public void before() throws Exception {
+		serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+		indexes = new IndexCollection();
+		for (String name : Arrays.asList("a", "b", "c")) {
+			Index index = mock(Index.class);
+			when(index.attach(any(Args.class))).thenAnswer(new Answer<Socket>() {
+
+				public Socket answer(InvocationOnMock invocation) throws Throwable {
+					return new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+				}
+
+			});
+			indexes.put(name, index);
+		}
+		Service service = mock(Service.class);
+		when(service.getHost()).thenReturn("localhost");
+		when(service.getIndexes()).thenReturn(indexes);
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenReturn(service);
+
+		Args args = new Args();
+		args.put("sourcetype", "spring-integration");
+		writer = new SplunkRoutingIndexWriter(serviceFactory, args);
+		writer.setMetadataCache(new SplunkMetadataCache());
+		writer.start();
+	}
+
+	@After
+	public void after() throws Exception {
+		writer.stop();
+		serverSocket.close();
+	}
+
+	@Test
+	public void testStreamPerIndex() throws Exception {
+		write("a", "1");
+		write("b", "2");
+		write("a", "3");
+		assertEquals(2, writer.getStreamCount());
+		verify(indexes.get("a"), times(1)).attach(any(Args.class));
+		verify(indexes.get("b"), times(1)).attach(any(Args.class));
+
+		BufferedReader a = accept();
+		BufferedReader b = accept();
+		assertTrue(a.readLine().contains("event_id=\"1\""));
+		assertTrue(a.readLine().contains("event_id=\"3\""));
+		assertTrue(b.readLine().contains("event_id=\"2\""));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted() throws Exception {
+		writer.setMaxStreams(2);
+		write("a", "1");
+		write("b", "2");
+		write("c", "3");
+		assertEquals(2, writer.getStreamCount());
+
+		BufferedReader a = accept();
+		assertTrue(a.readLine().contains("event_id=\"1\""));
+		assertNull(a.readLine());
+
+		write("a", "4");
+		verify(indexes.get("a"), times(2)).attach(any(Args.class));
+	}
+
+	@Test
+	public void testIdleStreamEvicted() throws Exception {
+		writer.setIdleTimeout(1);
+		write("a", "1");
+		Thread.sleep(20);
+		write("b", "2");
+		assertEquals(1, writer.getStreamCount());
+		BufferedReader a = accept();
+		assertTrue(a.readLine().contains("event_id=\"1\""));
+		assertNull(a.readLine());
+	}
+
+	@Test
+	public void testWritersConfiguredFromTemplate() throws Exception {
+		writer.getWriterTemplate().setQueueCapacity(16);
+		writer.getWriterTemplate().setBatchSize(10);
+		write("a", "1");
+		write("a", "2");
+		SplunkIndexWriter routed = writer.getWriters().get(0);
+		assertEquals("a", routed.getIndex());
+		assertEquals(16, routed.getQueueCapacity());
+		assertEquals(10, routed.getBatchSize());
+		// the routing writer stops the routed writers, which write out their batch
+		writer.stop();
+		BufferedReader a = accept();
+		assertTrue(a.readLine().contains("event_id=\"1\""));
+		assertTrue(a.readLine().contains("event_id=\"2\""));
+	}
+
+	@Test
+	public void testWritersShareScheduler() throws Exception {
+		writer.getWriterTemplate().setBatchSize(10);
+		write("a", "1");
+		write("b", "2");
+		assertNotNull(writer.getWriters().get(0).getScheduler());
+		assertSame(writer.getWriters().get(0).getScheduler(), writer.getWriters().get(1).getScheduler());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWriteAfterStopRejected() throws Exception {
+		writer.stop();
+		write("a", "1");
+	}
+
+	@Test
+	public void testSpoolDirectoryPerRoute() {
+		writer.getWriterTemplate().setSpoolDirectory(new File("spool"));
+		SplunkIndexWriter routed = writer.createWriter(
+				new SplunkRoutingIndexWriter.Route("a", "access/combined", null, null));
+		assertEquals("spool", routed.getSpoolDirectory().getParentFile().getName());
+		assertTrue(routed.getSpoolDirectory().getName().startsWith("a-access_combined-"));
+		assertTrue(writer.createWriter(new SplunkRoutingIndexWriter.Route(null, null, null, null))
+				.getSpoolDirectory().getName().startsWith("default-"));
+	}
+
+	@Test
+	public void testExpressionsAndArgs() throws Exception {
+		SpelExpressionParser parser = new SpelExpressionParser();
+		writer.setIndexExpression(parser.parseExpression("headers['tenant']"));
+		writer.setSourceTypeExpression(parser.parseExpression("'access_' + headers['tenant']"));
+		SplunkExecutor executor = new SplunkExecutor();
+		executor.setWriter(writer);
+		executor.write(MessageBuilder.withPayload(Arrays.asList(new SplunkEvent("spring", "1"),
+				new SplunkEvent("spring", "2"))).setHeader("tenant", "c").build());
+
+		ArgumentCaptor<Args> args = ArgumentCaptor.forClass(Args.class);
+		verify(indexes.get("c")).attach(args.capture());
+		assertEquals("access_c", args.getValue().get("sourcetype"));
+		BufferedReader c = accept();
+		assertTrue(c.readLine().contains("event_id=\"1\""));
+		assertTrue(c.readLine().contains("event_id=\"2\""));
+	}
+
+	private void write(String index, String id) throws Exception {
+		writer.write(MessageBuilder.withPayload(new SplunkEvent("spring", id))
+				.setHeader(SplunkHeaders.INDEX, index).build());
+	}
+
+	private BufferedReader accept() throws Exception {
+		Socket accepted = serverSocket.accept();
+		accepted.setSoTimeout(5000);
+		return new BufferedReader(new InputStreamReader(accepted.getInputStream(), "UTF-8"));
+	}
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+
+import com.splunk.Args;
+import com.splunk.Input;
+import com.splunk.InputCollection;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class SplunkS2sWriterTests {
+
+	private ServerSocket serverSocket;
+
+	private SplunkS2sWriter writer;
+
+	@Before
+	public void before() throws Exception {
+		serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+		final int port = serverSocket.getLocalPort();
+
+		InputCollection inputs = mock(InputCollection.class);
+		when(inputs.get(String.valueOf(port))).thenReturn(mock(Input.class));
+		Service service = mock(Service.class);
+		when(service.getInputs()).thenReturn(inputs);
+		when(service.getHost()).thenReturn(InetAddress.getLoopbackAddress().getHostAddress());
+		when(service.open(port)).thenAnswer(new Answer<Socket>() {
+
+			public Socket answer(InvocationOnMock invocation) throws Throwable {
+				return new Socket(InetAddress.getLoopbackAddress(), port);
+			}
+
+		});
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenReturn(service);
+
+		Args args = new Args();
+		args.put("host", "app01");
+		args.put("source", "orders");
+		args.put("sourcetype", "spring-integration");
+		writer = new SplunkS2sWriter(serviceFactory, args);
+		writer.setMetadataCache(new SplunkMetadataCache());
+		writer.setPort(port);
+		writer.setIndex("main");
+		writer.setServerName("forwarder01");
+	}
+
+	@After
+	public void after() throws Exception {
+		writer.stop();
+		serverSocket.close();
+	}
+
+	@Test
+	public void testCookedFrames() throws Exception {
+		writer.start();
+		Receiver receiver = accept();
+		assertEquals("forwarder01", receiver.serverName);
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		event.setCommonDesc("gr\u00fc\u00dfe");
+		writer.write(event);
+
+		Map<String, String> frame = receiver.readFrame();
+		assertTrue(frame.get("_raw"), frame.get("_raw").endsWith("desc=\"gr\u00fc\u00dfe\""));
+		assertEquals("main", frame.get("_MetaData:Index"));
+		assertEquals("host::app01", frame.get("MetaData:Host"));
+		assertEquals("source::orders", frame.get("MetaData:Source"));
+		assertEquals("sourcetype::spring-integration", frame.get("MetaData:Sourcetype"));
+		assertEquals("_done", frame.get("_done"));
+		long time = Long.parseLong(frame.get("_time"));
+		assertTrue(Math.abs(System.currentTimeMillis() / 1000 - time) < 5);
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		writer.setBatchSize(10);
+		writer.setBatchLinger(0);
+		writer.start();
+		Receiver receiver = accept();
+		for (int i = 0; i < 10; i++) {
+			writer.write(new SplunkEvent("spring", String.valueOf(i)));
+		}
+		for (int i = 0; i < 10; i++) {
+			assertTrue(receiver.readFrame().get("_raw").contains("event_id=\"" + i + "\""));
+		}
+		writer.stop();
+		assertNull(receiver.readFrame());
+	}
+
+	private Receiver accept() throws Exception {
+		Socket accepted = serverSocket.accept();
+		accepted.setSoTimeout(5000);
+		return new Receiver(accepted.getInputStream());
+	}
+
+	/**
+	 * A stand-in for a receiving port, decoding the signature and the frames.
+	 */
+	private static class Receiver {
+
+		private final DataInputStream in;
+
+		private final String serverName;
+
+		Receiver(InputStream in) throws IOException {
+			DataInputStream signatureIn = new DataInputStream(in);
+			byte[] signature = new byte[SplunkS2sWriter.SIGNATURE_LENGTH + SplunkS2sWriter.SERVER_NAME_LENGTH
+					+ SplunkS2sWriter.MANAGEMENT_PORT_LENGTH];
+			signatureIn.readFully(signature);
+			assertEquals(SplunkS2sWriter.SIGNATURE, string(signature, 0, SplunkS2sWriter.SIGNATURE_LENGTH));
+			this.serverName = string(signature, SplunkS2sWriter.SIGNATURE_LENGTH,
+					SplunkS2sWriter.SERVER_NAME_LENGTH);
+			this.in = signatureIn;
+		}
+
+		Map<String, String> readFrame() throws IOException {
+			int size;
+			try {
+				size = this.in.readInt();
+			}
+			catch (EOFException e) {
+				return null;
+			}
+			byte[] frame = new byte[size];
+			this.in.readFully(frame);
+			DataInputStream data = new DataInputStream(new ByteArrayInputStream(frame));
+			Map<String, String> pairs = new LinkedHashMap<String, String>();
+			int count = data.readInt();
+			for (int i = 0; i < count; i++) {
+				pairs.put(readString(data), readString(data));
+			}
+			assertEquals(0, data.readInt());
+			assertEquals("_raw", readString(data));
+			assertEquals(0, data.available());
+			return pairs;
+		}
+
+		private static String readString(DataInputStream data) throws IOException {
+			byte[] bytes = new byte[data.readInt()];
+			data.readFully(bytes);
+			assertEquals(0, bytes[bytes.length - 1]);
+			return new String(bytes, 0, bytes.length - 1, "UTF-8");
+		}
+
+		private static String string(byte[] bytes, int offset, int length) throws IOException {
+			int end = offset;
+			while (end < offset + length && bytes[end] != 0) {
+				end++;
+			}
+			return new String(bytes, offset, end - offset, "UTF-8");
+		}
+
+	}
+
+}
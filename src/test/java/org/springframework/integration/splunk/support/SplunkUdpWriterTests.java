@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+
+import com.splunk.Args;
+import com.splunk.Input;
+import com.splunk.InputCollection;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class SplunkUdpWriterTests {
+
+	private DatagramSocket receiver;
+
+	private SplunkUdpWriter writer;
+
+	@Before
+	public void before() throws Exception {
+		receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+		receiver.setSoTimeout(5000);
+		int port = receiver.getLocalPort();
+
+		InputCollection inputs = new InputCollection();
+		inputs.put(String.valueOf(port), mock(Input.class));
+		Service service = mock(Service.class);
+		when(service.getInputs()).thenReturn(inputs);
+		when(service.getHost()).thenReturn(InetAddress.getLoopbackAddress().getHostAddress());
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenReturn(service);
+
+		writer = new SplunkUdpWriter(serviceFactory, new Args());
+		writer.setMetadataCache(new SplunkMetadataCache());
+		writer.setPort(port);
+	}
+
+	@After
+	public void after() throws Exception {
+		writer.stop();
+		receiver.close();
+	}
+
+	@Test
+	public void testDatagramPerEvent() throws Exception {
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		writer.write(new SplunkEvent("spring", "2"));
+		assertEquals(1, receive().size());
+		assertEquals(1, receive().size());
+	}
+
+	@Test
+	public void testBatchPackedIntoDatagrams() throws Exception {
+		int eventSize = new SplunkEvent("spring", "0").toString().getBytes("UTF-8").length;
+		writer.setMaxDatagramSize(eventSize * 4 + 2);
+		writer.setBatchSize(10);
+		writer.setBatchLinger(0);
+		writer.start();
+		for (int i = 0; i < 10; i++) {
+			writer.write(new SplunkEvent("spring", String.valueOf(i)));
+		}
+		List<String> events = new ArrayList<String>();
+		int datagrams = 0;
+		while (events.size() < 10) {
+			List<String> received = receive();
+			assertTrue(received.size() <= 4);
+			events.addAll(received);
+			datagrams++;
+		}
+		assertEquals(3, datagrams);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(events.get(i), events.get(i).contains("event_id=\"" + i + "\""));
+		}
+		assertEquals(0, writer.getDroppedDatagrams());
+	}
+
+	@Test
+	public void testEventLargerThanDatagram() throws Exception {
+		writer.setMaxDatagramSize(16);
+		writer.start();
+		SplunkEvent event = new SplunkEvent("spring", "1");
+		event.setCommonDesc("larger than sixteen bytes");
+		writer.write(event);
+		List<String> received = receive();
+		assertEquals(1, received.size());
+		assertTrue(received.get(0).contains("desc=\"larger than sixteen bytes\""));
+	}
+
+	private List<String> receive() throws Exception {
+		DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+		receiver.receive(packet);
+		String data = new String(packet.getData(), 0, packet.getLength(), "UTF-8");
+		List<String> events = new ArrayList<String>();
+		for (String line : data.split("\n")) {
+			events.add(line);
+		}
+		return events;
+	}
+
+}
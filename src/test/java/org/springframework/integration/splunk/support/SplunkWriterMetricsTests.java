@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+import org.springframework.jmx.export.annotation.AnnotationMBeanExporter;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class SplunkWriterMetricsTests {
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	private SplunkIndexWriter writer;
+
+	private volatile boolean failing;
+
+	@Before
+	public void before() throws Exception {
+		Service service = mock(Service.class);
+		when(service.getHost()).thenReturn("splunk.example.com");
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenReturn(service);
+		final Socket connection = new Socket() {
+
+			@Override
+			public ByteArrayOutputStream getOutputStream() {
+				return out;
+			}
+
+		};
+		writer = new SplunkIndexWriter(serviceFactory, new Args()) {
+
+			@Override
+			protected Socket createSocket(Service service) throws IOException {
+				return connection;
+			}
+
+			@Override
+			protected void doWriteBatch(byte[] batch, int length, Socket socket, Service service, Args args)
+					throws IOException {
+				if (failing) {
+					throw new IOException("connection reset");
+				}
+				super.doWriteBatch(batch, length, socket, service, args);
+			}
+
+		};
+		writer.setIndex("main");
+	}
+
+	@After
+	public void after() {
+		failing = false;
+		writer.stop();
+	}
+
+	@Test
+	public void testSingleEvents() throws Exception {
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		writer.write(new SplunkEvent("spring", "2"));
+		SplunkWriterMetrics metrics = writer.getMetrics();
+		assertEquals(2, metrics.getEventsWritten());
+		assertEquals(out.size(), metrics.getBytesWritten());
+		assertEquals(2, metrics.getWriteDuration().getCount());
+		assertEquals(0, metrics.getBatchWriteDuration().getCount());
+		long writes = 0;
+		for (Long count : metrics.getLatencyHistogram().values()) {
+			writes += count;
+		}
+		assertEquals(2, writes);
+	}
+
+	@Test
+	public void testBatchesAndErrors() throws Exception {
+		writer.setBatchSize(3);
+		writer.setBatchLinger(0);
+		writer.start();
+		writer.write(Arrays.asList(new SplunkEvent("spring", "1"), new SplunkEvent("spring", "2"),
+				new SplunkEvent("spring", "3")));
+		SplunkWriterMetrics metrics = writer.getMetrics();
+		assertEquals(3, metrics.getEventsWritten());
+		assertEquals(out.size(), metrics.getBytesWritten());
+		assertEquals(1, metrics.getBatchWriteDuration().getCount());
+
+		writer.write(new SplunkEvent("spring", "4"));
+		assertEquals(1, metrics.getPendingBatchSize());
+		failing = true;
+		try {
+			writer.flush();
+			fail("expected IOException");
+		}
+		catch (IOException e) {
+			assertEquals(1, metrics.getErrors());
+		}
+		assertEquals(3, metrics.getEventsWritten());
+	}
+
+	@Test
+	public void testTagsAndMBean() throws Exception {
+		SplunkWriterMetrics metrics = writer.getMetrics();
+		ObjectName unstarted = metrics.getObjectName();
+		writer.start();
+		writer.write(new SplunkEvent("spring", "1"));
+		Map<String, String> tags = metrics.getTags();
+		assertTrue(tags.containsKey("type"));
+		assertEquals("splunk.example.com", tags.get("host"));
+		assertEquals("main", tags.get("index"));
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		AnnotationMBeanExporter exporter = new AnnotationMBeanExporter();
+		exporter.setServer(server);
+		exporter.setEnsureUniqueRuntimeObjectNames(false);
+		exporter.afterPropertiesSet();
+		exporter.registerManagedResource(metrics);
+		ObjectName name = metrics.getObjectName();
+		try {
+			// the host is only known once started, the name stays the same
+			assertEquals(unstarted, name);
+			assertNotNull(name.getKeyProperty("id"));
+			assertFalse(name.equals(new SplunkIndexWriter(mock(ServiceFactory.class), new Args()).getMetrics()
+					.getObjectName()));
+			assertEquals(1L, server.getAttribute(name, "EventsWritten"));
+			assertEquals(tags, server.getAttribute(name, "Tags"));
+		}
+		finally {
+			exporter.destroy();
+		}
+	}
+
+}
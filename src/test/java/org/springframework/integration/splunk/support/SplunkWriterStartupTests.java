@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.splunk.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.springframework.integration.splunk.core.ServiceFactory;
+import org.springframework.integration.splunk.event.SplunkEvent;
+
+import com.splunk.Args;
+import com.splunk.Service;
+
+/**
+ * @since 1.2
+ */
+public class SplunkWriterStartupTests {
+
+	private final List<String> written = new CopyOnWriteArrayList<String>();
+
+	@Test
+	public void testLazyConnect() throws Exception {
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenThrow(new RuntimeException("splunk is down"))
+				.thenReturn(mock(Service.class));
+		AbstractSplunkDataWriter writer = writer(serviceFactory);
+		writer.setLazyConnect(true);
+		writer.start();
+		verify(serviceFactory, never()).getService();
+		try {
+			writer.write(new SplunkEvent("spring", "1"));
+			fail("expected IOException");
+		}
+		catch (IOException e) {
+			assertEquals("splunk is down", e.getCause().getMessage());
+		}
+		writer.write(new SplunkEvent("spring", "2"));
+		writer.write(new SplunkEvent("spring", "3"));
+		writer.stop();
+		verify(serviceFactory, times(2)).getService();
+		assertEquals("[2, 3]", this.written.toString());
+	}
+
+	@Test
+	public void testWriteDoesNotWaitForBusyExecutor() throws Exception {
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenReturn(mock(Service.class));
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		AbstractSplunkDataWriter writer = writer(serviceFactory);
+		writer.setWarmUpExecutor(new Executor() {
+
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+
+		});
+		writer.start();
+		assertEquals(1, tasks.size());
+		writer.write(new SplunkEvent("spring", "1"));
+		tasks.get(0).run();
+		writer.stop();
+		verify(serviceFactory, times(1)).getService();
+		assertEquals("[1]", this.written.toString());
+	}
+
+	@Test
+	public void testParallelWarmUp() throws Exception {
+		final CountDownLatch connecting = new CountDownLatch(4);
+		ServiceFactory serviceFactory = mock(ServiceFactory.class);
+		when(serviceFactory.getService()).thenAnswer(new Answer<Service>() {
+
+			public Service answer(InvocationOnMock invocation) throws Throwable {
+				connecting.countDown();
+				// every login waits for all the others, only possible if they run in parallel
+				assertTrue(connecting.await(10, TimeUnit.SECONDS));
+				return mock(Service.class);
+			}
+
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<AbstractSplunkDataWriter> writers = new ArrayList<AbstractSplunkDataWriter>();
+		try {
+			for (int i = 0; i < 4; i++) {
+				AbstractSplunkDataWriter writer = writer(serviceFactory);
+				writer.setWarmUpExecutor(executor);
+				writer.start();
+				writers.add(writer);
+			}
+			for (AbstractSplunkDataWriter writer : writers) {
+				writer.write(new SplunkEvent("spring", "1"));
+				writer.stop();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertEquals(4, this.written.size());
+	}
+
+	private AbstractSplunkDataWriter writer(ServiceFactory serviceFactory) {
+		return new AbstractSplunkDataWriter(serviceFactory, new Args()) {
+
+			@Override
+			protected void doWrite(SplunkEvent event, Socket socket, Service service, Args args) {
+				written.add(event.getEventData().get("event_id"));
+			}
+
+			@Override
+			protected Socket createSocket(Service service) {
+				return null;
+			}
+
+		};
+	}
+
+}